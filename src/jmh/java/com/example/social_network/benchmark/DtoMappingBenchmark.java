@@ -0,0 +1,68 @@
+package com.example.social_network.benchmark;
+
+import com.example.social_network.domain.City;
+import com.example.social_network.domain.Region;
+import com.example.social_network.domain.User;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.dto.UserPageDto;
+import com.example.social_network.service.CityService;
+import com.example.social_network.service.UserService;
+import com.example.social_network.utils.Genders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование сущности пользователя в dto списка и страницы пользователя.
+ * Методы преобразования не обращаются к зависимостям сервисов, кроме CityService
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private UserService userService;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        CityService cityService = new CityService(null, null, null, null);
+        userService = new UserService(null, cityService, null, null, null, null, null, null);
+        Region region = new Region();
+        region.setId(1L);
+        region.setName("Алтайский край");
+        user = User.builder()
+                .id(42L)
+                .name("Иван")
+                .surname("Иванов")
+                .dateOfBirth(LocalDate.of(1990, 5, 17))
+                .gender(Genders.M)
+                .interests("книги, музыка, путешествия")
+                .city(new City(1L, "г Барнаул", region))
+                .build();
+    }
+
+    @Benchmark
+    public UserByListDto convertToUserByListDto() {
+        return userService.convertToUserByListDto(user);
+    }
+
+    @Benchmark
+    public UserPageDto convertToUserPageDto() {
+        return userService.convertToUserPageDto(user);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.social_network.benchmark;
+
+import com.example.social_network.domain.User;
+import com.example.social_network.service.filters.UserFilter;
+import com.example.social_network.utils.Genders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение спецификации фильтра поиска пользователей: выполняется для каждого запроса поиска.
+ * Измеряется только сборка спецификации, без построения критериев Hibernate и запроса к БД
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterSpecificationBenchmark {
+
+    private UserFilter filter;
+
+    private String[][] tokens;
+
+    @Setup
+    public void setUp() {
+        filter = new UserFilter();
+        filter.setUser(User.builder().id(1L).build());
+        filter.setFio("bdfyjd bdfy");
+        filter.setCity("Барнаул");
+        filter.setMinAge(18);
+        filter.setMaxAge(45);
+        filter.setGender(Genders.M);
+        tokens = new String[][]{{"иванов", "bdfyjd"}, {"иван", "bdfy"}, {"петрович"}};
+    }
+
+    @Benchmark
+    public Specification<User> toSpecification() {
+        return filter.toSpecification();
+    }
+
+    @Benchmark
+    public Specification<User> appendSpecifications() {
+        return filter.appendSpecifications(tokens);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.social_network.benchmark;
+
+import com.example.social_network.utils.KeyboardConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Конвертация раскладки поисковой строки fio: выполняется для каждого запроса поиска
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyboardConverterBenchmark {
+
+    /**
+     * Строка в английской раскладке, строка на русском и строка, которая не конвертируется
+     */
+    @Param({"bdfyjd bdfy", "Иванов Иван", "Ivanov2"})
+    public String fio;
+
+    @Benchmark
+    public String convert() {
+        return KeyboardConverter.convert(fio);
+    }
+
+    @Benchmark
+    public String switchLayout() {
+        return KeyboardConverter.switchLayout(fio);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.social_network.benchmark;
+
+import com.example.social_network.SocialNetworkApplication;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.service.UserService;
+import com.example.social_network.service.filters.FriendFilter;
+import com.example.social_network.service.filters.UserFilter;
+import com.example.social_network.service.pagination.TotalMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск пользователей и друзей на сгенерированных данных профиля scale.
+ * При первом запуске данные генерируются (или заранее: ./gradlew generateScaleData),
+ * затем переиспользуются из build/scale. Самый старый пользователь графа - вершина с наибольшим
+ * числом друзей, самый новый - с минимальным
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSearchScaleBenchmark {
+
+    @Param({"иван", "bdfy", "Петров Мария"})
+    public String fio;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    private Long hubId;
+
+    private Long newestId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SocialNetworkApplication.class)
+                .profiles("scale")
+                .web(WebApplicationType.NONE)
+                .run();
+        userService = context.getBean(UserService.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        hubId = jdbc.queryForObject("SELECT MIN(id) FROM users", Long.class);
+        newestId = jdbc.queryForObject("SELECT MAX(id) FROM users", Long.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<UserByListDto> searchUsers() {
+        UserFilter filter = new UserFilter();
+        filter.setFio(fio);
+        return userService.findAll(newestId, filter, PageRequest.of(0, 20), TotalMode.NONE);
+    }
+
+    @Benchmark
+    public Slice<UserByListDto> searchHubFriends() {
+        FriendFilter filter = new FriendFilter(null);
+        filter.setFio(fio);
+        return userService.getFriends(hubId, filter, PageRequest.of(0, 20), TotalMode.NONE);
+    }
+}
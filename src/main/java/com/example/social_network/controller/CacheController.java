@@ -0,0 +1,33 @@
+package com.example.social_network.controller;
+
+import com.example.social_network.dto.CacheStatsDto;
+import com.example.social_network.service.UserPageCache;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Контроллер для просмотра состояния кэшей
+ */
+@RestController
+@RequestMapping("/cache")
+@RequiredArgsConstructor
+@Api(description = "Контроллер для просмотра состояния кэшей")
+public class CacheController {
+
+    private final UserPageCache userPageCache;
+
+    /**
+     * Статистика кэша страниц пользователей
+     *
+     * @return счетчики попаданий, промахов и вытеснений
+     */
+    @GetMapping("/profiles")
+    @ApiOperation("Статистика кэша страниц пользователей")
+    public CacheStatsDto getProfileCacheStats() {
+        return userPageCache.getStats();
+    }
+}
@@ -2,19 +2,25 @@ package com.example.social_network.controller;
 
 import com.example.social_network.dto.CityDto;
 import com.example.social_network.service.CityService;
+import com.example.social_network.service.pagination.TotalMode;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import springfox.documentation.annotations.ApiIgnore;
 
+import java.util.Map;
+
 /**
  * Контроллер для работы с сущностью City
  */
@@ -27,10 +33,32 @@ public class CityController {
 
     private final CityService cityService;
 
+    /**
+     * Получение списка городов по вхождению строки в название
+     *
+     * @param name поисковая строка
+     * @param total подсчет общего количества: exact (по умолчанию), approximate или none
+     * @param pageable настройки пагинации
+     * @return страница с городами или срез без количества
+     */
     @GetMapping
     @ApiOperation("Получение списка городов")
-    public Page<CityDto> getCities(@RequestParam(required = false) String name,
-                                   @ApiIgnore @PageableDefault(size = 5) Pageable pageable) {
-        return cityService.findCityByName(name, pageable);
+    public Slice<CityDto> getCities(@RequestParam(required = false) String name,
+                                    @RequestParam(required = false) String total,
+                                    @ApiIgnore @PageableDefault(size = 5) Pageable pageable) {
+        return cityService.findCityByName(name, pageable, TotalMode.of(total));
+    }
+
+    /**
+     * Обработчик ошибок некорректных параметров запроса
+     *
+     * @param ex исключение
+     * @return исключение в тестовом виде
+     */
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public Map<String, String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        log.error(String.format("Error: %s", ex.getMessage()));
+        return Map.of("error", String.valueOf(ex.getMessage()));
     }
 }
@@ -0,0 +1,132 @@
+package com.example.social_network.controller;
+
+import com.example.social_network.dto.ConnectionDto;
+import com.example.social_network.dto.SuggestionDto;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.service.ConnectionService;
+import com.example.social_network.service.SuggestionService;
+import com.example.social_network.service.UserService;
+import com.example.social_network.service.filters.FriendFilter;
+import com.example.social_network.service.pagination.TotalMode;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import springfox.documentation.annotations.ApiIgnore;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Контроллер для запросов к графу дружбы пользователей: рекомендации, общие друзья и степень связи
+ */
+@RestController
+@RequestMapping("/users")
+@RequiredArgsConstructor
+@Slf4j
+@Api(description = "Контроллер для запросов к графу дружбы пользователей")
+public class FriendshipController {
+
+    private static final int MAX_SUGGESTIONS = 100;
+
+    private static final int MAX_MUTUAL_COUNTS = 100;
+
+    private final SuggestionService suggestionService;
+
+    private final ConnectionService connectionService;
+
+    private final UserService userService;
+
+    /**
+     * Получение рекомендаций "Возможно, вы знакомы"
+     *
+     * @param userId идентификатор пользователя
+     * @param limit максимальное количество рекомендаций
+     * @return список рекомендаций
+     */
+    @GetMapping("/{userId}/suggestions")
+    @ApiOperation("Получение рекомендаций \"Возможно, вы знакомы\"")
+    public List<SuggestionDto> getSuggestions(@PathVariable Long userId,
+                                              @RequestParam(defaultValue = "10") int limit) {
+        log.info("Get suggestions for user with id = {}", userId);
+        return suggestionService.getSuggestions(userId, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    /**
+     * Степень связи двух пользователей с примером кратчайшего пути дружбы
+     *
+     * @param userId идентификатор пользователя
+     * @param otherId идентификатор второго пользователя
+     * @return степень связи и путь
+     */
+    @GetMapping("/{userId}/connection/{otherId}")
+    @ApiOperation("Степень связи двух пользователей с примером пути")
+    public ConnectionDto getConnection(@PathVariable Long userId, @PathVariable Long otherId) {
+        log.info("Get connection of users id = {} and id = {}", userId, otherId);
+        return connectionService.getConnection(userId, otherId);
+    }
+
+    /**
+     * Получение общих друзей двух пользователей с помощью фильтра
+     *
+     * @param userId идентификатор пользователя
+     * @param otherId идентификатор второго пользователя
+     * @param filter фильтры
+     * @param total подсчет общего количества: exact (по умолчанию), approximate или none
+     * @param pageable настройки пагинации
+     * @return страницу с общими друзьями
+     */
+    @GetMapping("/{userId}/mutual/{otherId}")
+    @ApiOperation("Получение общих друзей двух пользователей с помощью фильтра")
+    public Slice<UserByListDto> getMutualFriends(@PathVariable Long userId,
+                                                 @PathVariable Long otherId,
+                                                 FriendFilter filter,
+                                                 @RequestParam(required = false) String total,
+                                                 @ApiIgnore @PageableDefault(size = 5) Pageable pageable) {
+        log.info("Get mutual friends of users id = {} and id = {}", userId, otherId);
+        return userService.getMutualFriends(userId, otherId, filter, pageable, TotalMode.of(total));
+    }
+
+    /**
+     * Количество общих друзей пользователя с каждым из других пользователей
+     *
+     * @param userId идентификатор пользователя
+     * @param ids идентификаторы других пользователей, не более 100
+     * @return идентификатор -> количество общих друзей
+     */
+    @GetMapping("/{userId}/mutual")
+    @ApiOperation("Количество общих друзей пользователя с каждым из других пользователей")
+    public Map<Long, Integer> countMutualFriends(@PathVariable Long userId,
+                                                 @RequestParam List<Long> ids) {
+        if (ids.size() > MAX_MUTUAL_COUNTS) {
+            throw new IllegalArgumentException("At most " + MAX_MUTUAL_COUNTS + " ids are allowed");
+        }
+        log.info("Count mutual friends of user with id = {} with {} users", userId, ids.size());
+        return userService.countMutualFriends(userId, new LinkedHashSet<>(ids));
+    }
+
+    /**
+     * Обработчик ошибок некорректных параметров запроса
+     *
+     * @param ex исключение
+     * @return исключение в тестовом виде
+     */
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public Map<String, String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        log.error(String.format("Error: %s", ex.getMessage()));
+        return Map.of("error", String.valueOf(ex.getMessage()));
+    }
+}
@@ -1,28 +1,40 @@
 package com.example.social_network.controller;
 
+import com.example.social_network.dto.CursorPageDto;
+import com.example.social_network.dto.FriendshipBatchDto;
+import com.example.social_network.dto.FriendshipOutcomeDto;
 import com.example.social_network.dto.UserByListDto;
 import com.example.social_network.dto.UserEditDto;
 import com.example.social_network.dto.UserPageDto;
 import com.example.social_network.dto.UserRegisterDto;
+import com.example.social_network.service.UserPageCache;
 import com.example.social_network.service.UserService;
+import com.example.social_network.service.exporting.ExportFormat;
+import com.example.social_network.service.exporting.UserExportService;
 import com.example.social_network.service.filters.FriendFilter;
 import com.example.social_network.service.filters.BaseFilter;
 import com.example.social_network.service.filters.UserFilter;
+import com.example.social_network.service.pagination.TotalMode;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import springfox.documentation.annotations.ApiIgnore;
 
 import javax.validation.Valid;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -38,6 +50,10 @@ public class UserController {
 
     private final UserService userService;
 
+    private final UserPageCache userPageCache;
+
+    private final UserExportService userExportService;
+
     /**
      * Получение страницы пользователя по его id
      *
@@ -49,7 +65,7 @@ public class UserController {
     public UserPageDto getPage(@PathVariable Long id) {
 
         log.info("Get page of user with id={}", id);
-        return userService.getUser(id);
+        return userPageCache.getUser(id);
     }
 
     /**
@@ -57,16 +73,18 @@ public class UserController {
      *
      * @param userId идентификатор пользователя от лица которого осуществляется поиск
      * @param filter настройки фильтрации
+     * @param total подсчет общего количества: exact (по умолчанию), approximate или none
      * @param pageable настройки пагинации
      * @return список пользователей удовлетворяющих условиям фильтра и статус ответа
      */
     @GetMapping("/{userId}/users")
     @ApiOperation("Поиск пользователей с помощью фильтра")
-    public Page<UserByListDto> getUsers(@PathVariable Long userId,
-                                        UserFilter filter,
-                                        @ApiIgnore @PageableDefault(size = 5) Pageable pageable) {
+    public Slice<UserByListDto> getUsers(@PathVariable Long userId,
+                                         UserFilter filter,
+                                         @RequestParam(required = false) String total,
+                                         @ApiIgnore @PageableDefault(size = 5) Pageable pageable) {
         log.info("Get list of users");
-        return userService.findAll(userId, filter, pageable);
+        return userService.findAll(userId, filter, pageable, TotalMode.of(total));
     }
 
     /**
@@ -74,17 +92,102 @@ public class UserController {
      *
      * @param userId идентификатор пользователя
      * @param filter фильтры
+     * @param total подсчет общего количества: exact (по умолчанию), approximate или none
      * @param pageable
      * @return страницу с друзьями и статус ответа
      */
     @GetMapping("/{userId}/friends")
     @ApiOperation("Получение списка друзей пользователя с помощью фильтра")
-    public Page<UserByListDto> getFriends(@PathVariable Long userId,
-                                          FriendFilter filter,
-                                          @ApiIgnore @PageableDefault(size = 5) Pageable pageable) {
+    public Slice<UserByListDto> getFriends(@PathVariable Long userId,
+                                           FriendFilter filter,
+                                           @RequestParam(required = false) String total,
+                                           @ApiIgnore @PageableDefault(size = 5) Pageable pageable) {
 
         log.info("Get list of friends for user with id = {}", userId);
-        return userService.getFriends(userId, filter, pageable);
+        return userService.getFriends(userId, filter, pageable, TotalMode.of(total));
+    }
+
+
+    /**
+     * Поиск пользователей с помощью фильтра с постраничным выводом по ключу.
+     * Первая страница запрашивается без курсора, следующие - с токеном nextCursor из предыдущего ответа
+     *
+     * @param userId идентификатор пользователя от лица которого осуществляется поиск
+     * @param filter настройки фильтрации
+     * @param cursor токен продолжения
+     * @param size размер страницы
+     * @return страницу пользователей с токеном следующей страницы
+     */
+    @GetMapping("/{userId}/users/cursor")
+    @ApiOperation("Поиск пользователей с помощью фильтра с постраничным выводом по ключу")
+    public CursorPageDto<UserByListDto> getUsersByCursor(@PathVariable Long userId,
+                                                         UserFilter filter,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "5") int size) {
+        log.info("Get list of users after cursor {}", cursor);
+        return userService.findAll(userId, filter, cursor, size);
+    }
+
+    /**
+     * Получение списка друзей пользователя с помощью фильтра с постраничным выводом по ключу
+     *
+     * @param userId идентификатор пользователя
+     * @param filter фильтры
+     * @param cursor токен продолжения
+     * @param size размер страницы
+     * @return страницу друзей с токеном следующей страницы
+     */
+    @GetMapping("/{userId}/friends/cursor")
+    @ApiOperation("Получение списка друзей пользователя с постраничным выводом по ключу")
+    public CursorPageDto<UserByListDto> getFriendsByCursor(@PathVariable Long userId,
+                                                           FriendFilter filter,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "5") int size) {
+        log.info("Get list of friends for user with id = {} after cursor {}", userId, cursor);
+        return userService.getFriends(userId, filter, cursor, size);
+    }
+
+
+    /**
+     * Выгрузка всех пользователей, подходящих под фильтр, одним потоком без постраничного вывода
+     *
+     * @param userId идентификатор пользователя от лица которого осуществляется поиск
+     * @param filter настройки фильтрации
+     * @param format формат выгрузки: ndjson (по умолчанию) или csv
+     * @return поток пользователей в порядке фамилии, имени и id
+     */
+    @GetMapping("/{userId}/users/export")
+    @ApiOperation("Выгрузка всех пользователей, подходящих под фильтр")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@PathVariable Long userId,
+                                                             UserFilter filter,
+                                                             @RequestParam(required = false) String format) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        log.info("Export users, format={}", exportFormat);
+        return exportResponse(exportFormat, userExportService.exportUsers(userId, filter, exportFormat));
+    }
+
+    /**
+     * Выгрузка всех друзей пользователя, подходящих под фильтр, одним потоком без постраничного вывода
+     *
+     * @param userId идентификатор пользователя
+     * @param filter фильтры
+     * @param format формат выгрузки: ndjson (по умолчанию) или csv
+     * @return поток друзей в порядке id
+     */
+    @GetMapping("/{userId}/friends/export")
+    @ApiOperation("Выгрузка всех друзей пользователя, подходящих под фильтр")
+    public ResponseEntity<StreamingResponseBody> exportFriends(@PathVariable Long userId,
+                                                               FriendFilter filter,
+                                                               @RequestParam(required = false) String format) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        log.info("Export friends for user with id = {}, format={}", userId, exportFormat);
+        return exportResponse(exportFormat, userExportService.exportFriends(userId, filter, exportFormat));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> exportResponse(ExportFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.valueOf(format.getContentType()), StandardCharsets.UTF_8))
+                .body(body);
     }
 
 
@@ -151,6 +254,23 @@ public class UserController {
     }
 
 
+    /**
+     * Пакетное добавление и удаление друзей в одной транзакции
+     *
+     * @param userId идентификатор пользователя, который совершает действие
+     * @param batch идентификаторы добавляемых и удаляемых друзей
+     * @return результат для каждого идентификатора
+     */
+    @PostMapping("/{userId}/friends/batch")
+    @ApiOperation("Пакетное добавление и удаление друзей")
+    public List<FriendshipOutcomeDto> updateFriends(@PathVariable Long userId,
+                                                    @RequestBody @Valid FriendshipBatchDto batch) {
+
+        log.info("Update friends of user with id = {}: add {}, remove {}",
+                userId, batch.getAdd().size(), batch.getRemove().size());
+        return userService.updateFriends(userId, batch);
+    }
+
     /**
      * Удаление страницы пользователя с указанным id
      *
@@ -184,4 +304,17 @@ public class UserController {
         });
         return errors;
     }
+
+    /**
+     * Обработчик ошибок некорректных параметров запроса (например, поврежденного курсора)
+     *
+     * @param ex исключение
+     * @return исключение в тестовом виде
+     */
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public Map<String, String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        log.error(String.format("Error: %s", ex.getMessage()));
+        return Map.of("error", String.valueOf(ex.getMessage()));
+    }
 }
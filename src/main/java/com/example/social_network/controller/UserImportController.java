@@ -0,0 +1,73 @@
+package com.example.social_network.controller;
+
+import com.example.social_network.service.importing.ImportFormat;
+import com.example.social_network.service.importing.UserImportService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Контроллер для массового импорта пользователей
+ */
+@RestController
+@RequestMapping("/users")
+@RequiredArgsConstructor
+@Slf4j
+@Api(description = "Контроллер для массового импорта пользователей")
+public class UserImportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final UserImportService userImportService;
+
+    /**
+     * Потоковый импорт пользователей из тела запроса.
+     * Тело читается по мере загрузки пачек, отчет по записям отдается в ответе по мере их фиксации
+     *
+     * @param format формат тела: ndjson или csv, по умолчанию определяется по Content-Type
+     * @param request запрос с телом в кодировке UTF-8
+     * @param response ответ: NDJSON с результатом для каждой записи и итоговой строкой
+     */
+    @PostMapping("/import")
+    @ApiOperation("Массовый импорт пользователей из NDJSON или CSV")
+    public void importUsers(@RequestParam(required = false) String format,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        ImportFormat importFormat = ImportFormat.of(format, request.getContentType());
+        log.info("Import users, format={}", importFormat);
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        userImportService.importUsers(request.getInputStream(), importFormat, response.getOutputStream());
+    }
+
+    /**
+     * Обработчик ошибок формата файла (неизвестный формат, нет заголовка CSV)
+     *
+     * @param ex исключение
+     * @return исключение в тестовом виде
+     */
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public Map<String, String> handleIllegalArgumentException(IllegalArgumentException ex,
+                                                              HttpServletResponse response) {
+        // тип отчета уже выставлен, а ошибка формата возникает до его первой строки
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        log.error(String.format("Error: %s", ex.getMessage()));
+        return Map.of("error", String.valueOf(ex.getMessage()));
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.social_network.datasource;
+
+import com.example.social_network.utils.DatabaseDialect;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Источник данных с репликами для чтения.
+ *
+ * Транзакции только для чтения (@Transactional(readOnly = true)) идут на исправные реплики по кругу,
+ * все остальное - запись и запросы вне транзакций - на основную БД. Соединение берется лениво,
+ * при первом запросе, когда признак readOnly транзакции уже известен. Транзакция только для чтения,
+ * вложенная в транзакцию записи, остается на основной БД. Внутри {@link #onPrimary(Supplier)} все запросы
+ * потока идут на основную БД - для чтений, которые не должны отставать от только что зафиксированной записи.
+ *
+ * Реплики проверяются при создании и каждые healthCheckInterval: реплика исправна, если запрос
+ * отставания выполнился и отставание не больше maxLag. Если исправных реплик нет, чтение идет
+ * с основной БД
+ */
+@Slf4j
+public class ReadReplicaDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    static final String PRIMARY = "primary";
+
+    /**
+     * Отставание реплики PostgreSQL в секундах: ноль, если все полученные изменения применены
+     * или это не реплика, иначе - время с последней примененной транзакции
+     */
+    static final String POSTGRES_LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery()"
+            + " OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final Duration maxLag;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledExecutorService healthCheck;
+
+    /**
+     * @param primary основная БД
+     * @param replicas реплики по имени
+     * @param maxLag допустимое отставание реплики
+     * @param lagQuery запрос отставания в секундах, null - по СУБД реплики
+     * @param healthCheckInterval период проверки реплик, ноль - только при создании
+     */
+    public ReadReplicaDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag,
+                                 String lagQuery, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue(), lagQuery, healthCheckInterval))
+                .collect(Collectors.toList());
+        this.maxLag = maxLag;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        Router router = new Router();
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.setLenientFallback(false);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+
+        checkReplicas();
+        if (healthCheckInterval.isZero() || healthCheckInterval.isNegative()) {
+            this.healthCheck = null;
+        } else {
+            this.healthCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "replica-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = healthCheckInterval.toMillis();
+            this.healthCheck.scheduleWithFixedDelay(this::checkReplicas, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Выполняет действие в текущем потоке так, что все его соединения, в том числе в транзакциях
+     * только для чтения, берутся с основной БД. Соединение, уже полученное транзакцией до вызова, не меняется
+     *
+     * @param action действие
+     * @return результат действия
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            } else {
+                PRIMARY_REQUIRED.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Выполняет действие без результата так же, как {@link #onPrimary(Supplier)}
+     *
+     * @param action действие
+     */
+    public static void onPrimary(Runnable action) {
+        onPrimary(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Признак того, что текущий поток выполняется внутри {@link #onPrimary(Supplier)}
+     *
+     * @return true, если чтение должно идти с основной БД
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    /**
+     * Имена исправных реплик
+     *
+     * @return список имен
+     */
+    public List<String> getHealthyReplicas() {
+        return replicas.stream().filter(replica -> replica.healthy).map(replica -> replica.name)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Проверяет доступность и отставание реплик
+     */
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            String problem = replica.check(maxLag);
+            boolean healthy = problem == null;
+            if (replica.healthy != healthy) {
+                if (healthy) {
+                    log.info(String.format("Replica %s is healthy, reads are routed to it", replica.name));
+                } else {
+                    log.warn(String.format("Replica %s is excluded from reads: %s", replica.name, problem));
+                }
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (healthCheck != null) {
+            healthCheck.shutdownNow();
+        }
+        List<DataSource> pools = new ArrayList<>();
+        pools.add(primary);
+        replicas.forEach(replica -> pools.add(replica.dataSource));
+        for (DataSource pool : pools) {
+            if (pool instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) pool).close();
+                } catch (Exception ex) {
+                    log.warn(String.format("Failed to close data source: %s", ex.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Выбор БД для соединения: для транзакции только для чтения вне {@link #onPrimary(Supplier)} -
+     * следующая исправная реплика
+     */
+    private class Router extends AbstractRoutingDataSource {
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicas.isEmpty()
+                    || isPrimaryRequired()) {
+                return PRIMARY;
+            }
+            int start = next.getAndIncrement();
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+                if (replica.healthy) {
+                    return replica.name;
+                }
+            }
+            return PRIMARY;
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private final JdbcTemplate jdbcTemplate;
+
+        private volatile String lagQuery;
+
+        private volatile boolean healthy;
+
+        Replica(String name, DataSource dataSource, String lagQuery, Duration healthCheckInterval) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.jdbcTemplate.setQueryTimeout((int) Math.max(1, healthCheckInterval.getSeconds()));
+            this.lagQuery = lagQuery;
+        }
+
+        /**
+         * @return описание проблемы или null, если реплика исправна
+         */
+        String check(Duration maxLag) {
+            try {
+                if (lagQuery == null) {
+                    lagQuery = DatabaseDialect.isPostgres(jdbcTemplate) ? POSTGRES_LAG_QUERY : "SELECT 0";
+                }
+                Number lag = jdbcTemplate.queryForObject(lagQuery, Number.class);
+                if (lag != null && lag.doubleValue() * 1000 > maxLag.toMillis()) {
+                    return String.format("lag %.1fs exceeds %s", lag.doubleValue(), maxLag);
+                }
+                return null;
+            } catch (DataAccessException ex) {
+                return ex.getMessage();
+            }
+        }
+    }
+}
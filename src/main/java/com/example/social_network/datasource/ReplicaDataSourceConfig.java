@@ -0,0 +1,72 @@
+package com.example.social_network.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Источник данных с репликами для чтения. Включается, если задана хотя бы одна реплика
+ * sn.datasource.replicas[0].url, иначе используется обычный пул Spring Boot по spring.datasource.*.
+ *
+ * Пулы создаются внутри {@link ReadReplicaDataSource} и не являются бинами, поэтому метрики SQL
+ * оборачивают только итоговый источник данных. Метрики пулов HikariCP - с тегом pool: primary, replica-N
+ */
+@Configuration
+@ConditionalOnProperty("sn.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaDataSourceConfig {
+
+    /**
+     * Основная БД и реплики. Настройки пула основной БД - spring.datasource.hikari.*
+     */
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, ReplicaProperties replicaProperties,
+                                 Environment environment, ObjectProvider<MeterRegistry> registry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName(ReadReplicaDataSource.PRIMARY);
+        metrics(primary, registry);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaProperties.Replica> configured = replicaProperties.getReplicas();
+        for (int i = 0; i < configured.size(); i++) {
+            ReplicaProperties.Replica replica = configured.get(i);
+            HikariDataSource pool = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(StringUtils.hasText(replica.getUsername()) ? replica.getUsername() : properties.determineUsername())
+                    .password(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword())
+                    .build();
+            pool.setPoolName("replica-" + i);
+            pool.setMaximumPoolSize(replicaProperties.getReplicaPoolSize());
+            // недоступная реплика не должна задерживать чтение дольше периода проверки
+            pool.setConnectionTimeout(Math.max(250, replicaProperties.getHealthCheckInterval().toMillis()));
+            metrics(pool, registry);
+            replicas.put(pool.getPoolName(), pool);
+        }
+        return new ReadReplicaDataSource(primary, replicas, replicaProperties.getMaxLag(),
+                replicaProperties.getLagQuery(), replicaProperties.getHealthCheckInterval());
+    }
+
+    private static void metrics(HikariDataSource pool, ObjectProvider<MeterRegistry> registry) {
+        MeterRegistry meterRegistry = registry.getIfAvailable();
+        if (meterRegistry != null) {
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.social_network.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки реплик для чтения (sn.datasource.*). Основная БД настраивается в spring.datasource.*
+ */
+@Getter
+@Setter
+@ConfigurationProperties("sn.datasource")
+public class ReplicaProperties {
+
+    /**
+     * Реплики, на которые направляются транзакции только для чтения
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Максимальный размер пула соединений каждой реплики
+     */
+    private int replicaPoolSize = 10;
+
+    /**
+     * Период проверки доступности и отставания реплик
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * Допустимое отставание реплики, при большем чтение идет с основной БД
+     */
+    private Duration maxLag = Duration.ofSeconds(10);
+
+    /**
+     * Запрос отставания реплики в секундах. По умолчанию для PostgreSQL - по времени последней
+     * примененной транзакции, для остальных СУБД отставание считается нулевым
+     */
+    private String lagQuery;
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        /**
+         * Пользователь, по умолчанию - как у основной БД
+         */
+        private String username;
+
+        /**
+         * Пароль, по умолчанию - как у основной БД
+         */
+        private String password;
+    }
+}
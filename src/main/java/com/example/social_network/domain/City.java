@@ -3,7 +3,9 @@ package com.example.social_network.domain;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.util.List;
@@ -27,7 +29,11 @@ public class City {
     @Column(name = "name")
     private String name;
 
-    @ManyToOne
+    //Регион. Загружается только там, где нужен, и не участвует в equals, hashCode и toString,
+    //чтобы их вызов не загружал его
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "region_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Region region;
 }
\ No newline at end of file
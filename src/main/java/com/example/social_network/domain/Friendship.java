@@ -0,0 +1,54 @@
+package com.example.social_network.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * Запись о дружбе. Каждая дружба хранится двумя записями, (a, b) и (b, a),
+ * поэтому друзья пользователя - это записи с его id_user.
+ * Используется в подзапросах спецификаций, изменяется только запросами репозитория
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(Friendship.Key.class)
+@Table(name = "friendship")
+public class Friendship {
+
+    //Идентификатор пользователя
+    @Id
+    @Column(name = "id_user")
+    private Long userId;
+
+    //Идентификатор друга
+    @Id
+    @Column(name = "id_friend")
+    private Long friendId;
+
+    /**
+     * Составной первичный ключ (id_user, id_friend)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+
+        private Long friendId;
+    }
+}
@@ -55,24 +55,30 @@ public class User {
     @Column(name = "interests")
     private String interests;
 
-    //Город
-    @ManyToOne
+    //Количество друзей. Изменяется только запросами UPDATE репозитория, поэтому не пишется из сущности
+    @Column(name = "friends_count", insertable = false, updatable = false)
+    private Integer friendsCount;
+
+    //Город. Загружается только там, где нужен: страница профиля выбирает его вместе с пользователем
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="city_id")
     private City city;
 
-    //Список друзей пользователя
+    //Список друзей пользователя. Дружба хранится в обоих направлениях, поэтому список полный
     @ManyToMany(cascade={CascadeType.PERSIST}, fetch = FetchType.LAZY)
     @JoinTable(name="friendship",
             joinColumns={@JoinColumn(name="id_user")},
             inverseJoinColumns={@JoinColumn(name="id_friend")})
     private List<User> myFriends = new ArrayList<>();
 
+    //Пользователи, у которых этот пользователь записан в друзьях, совпадает с myFriends
     @ManyToMany(cascade={CascadeType.PERSIST}, mappedBy = "myFriends", fetch = FetchType.LAZY)
     private List<User> friendsOfMine = new ArrayList<>();
 
     @Override
     public String toString(){
         return String.format("Name: %s, Surname: %s, Age: %d, Gender: %s, Interests: %s, City: %s \n",
-                name, surname, Period.between(LocalDate.now(), dateOfBirth).getYears(), gender, interests, city);
+                name, surname, Period.between(LocalDate.now(), dateOfBirth).getYears(), gender, interests,
+                city == null ? null : city.getId());
     }
 }
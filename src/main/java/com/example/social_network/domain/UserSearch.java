@@ -0,0 +1,60 @@
+package com.example.social_network.domain;
+
+import com.example.social_network.utils.Genders;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Строка таблицы поиска пользователей user_search: поля фильтров {@link User}
+ * с городом и регионом в одной узкой строке, текстовые поля для поиска - в нижнем регистре.
+ *
+ * Только для чтения: строки записывает {@link com.example.social_network.service.search.UserSearchWriter}
+ * в транзакциях изменения пользователей. Имена полей совпадают с полями {@link User},
+ * поэтому сортировки и спецификации по id, name, surname, dateOfBirth и gender подходят обеим сущностям
+ */
+
+@Getter
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "user_search")
+public class UserSearch {
+
+    //Идентификатор пользователя
+    @Id
+    @Column(name = "user_id")
+    private Long id;
+
+    //Имя
+    @Column(name = "name")
+    private String name;
+
+    //Фамилия
+    @Column(name = "surname")
+    private String surname;
+
+    //Имя и фамилия в нижнем регистре через пробел
+    @Column(name = "fio")
+    private String fio;
+
+    //Название города в нижнем регистре
+    @Column(name = "city_name")
+    private String cityName;
+
+    //Регион города
+    @Column(name = "region_id")
+    private Long regionId;
+
+    //Дата рождения
+    @Column(name = "date_of_birth")
+    private LocalDate dateOfBirth;
+
+    //Пол
+    @Enumerated(EnumType.STRING)
+    @Column(name = "gender")
+    private Genders gender;
+}
@@ -0,0 +1,29 @@
+package com.example.social_network.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Страница, общее количество строк которой может быть взято из кэша
+ * и отличаться от текущего количества в БД
+ */
+public class ApproximatePage<T> extends PageImpl<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean totalApproximate;
+
+    public ApproximatePage(List<T> content, Pageable pageable, long total, boolean totalApproximate) {
+        super(content, pageable, total);
+        this.totalApproximate = totalApproximate;
+    }
+
+    /**
+     * Признак того, что totalElements и totalPages приблизительные
+     */
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.social_network.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dto со статистикой кэша
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDto {
+
+    /**
+     * Количество попаданий
+     */
+    private long hits;
+
+    /**
+     * Количество промахов
+     */
+    private long misses;
+
+    /**
+     * Количество записей, вытесненных по размеру или времени жизни
+     */
+    private long evictions;
+
+    /**
+     * Доля попаданий
+     */
+    private double hitRate;
+
+    /**
+     * Примерное количество записей в кэше
+     */
+    private long size;
+}
@@ -0,0 +1,35 @@
+package com.example.social_network.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Dto для отображения того, как связаны два пользователя
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionDto {
+
+    /**
+     * Степень связи: 1 - друзья, 2 - есть общий друг и т.д.
+     * null, если путь не найден
+     */
+    private Integer degree;
+
+    /**
+     * Пример кратчайшего пути от первого пользователя ко второму включительно
+     */
+    private List<UserByListDto> path;
+
+    /**
+     * Поиск выполнен полностью. false - граф дружбы не загружен или исчерпан бюджет поиска,
+     * и отсутствие пути не означает, что пользователи не связаны
+     */
+    private boolean complete;
+}
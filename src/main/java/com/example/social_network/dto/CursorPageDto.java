@@ -0,0 +1,27 @@
+package com.example.social_network.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dto для страницы, полученной постраничным выводом по ключу.
+ * Вместо номера страницы и общего количества содержит токен для получения следующей страницы
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+
+    private List<T> content = new ArrayList<>();
+
+    /**
+     * Токен продолжения, null если следующей страницы нет
+     */
+    private String nextCursor;
+
+    private boolean hasNext;
+}
@@ -0,0 +1,32 @@
+package com.example.social_network.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dto для пакетного изменения списка друзей: идентификаторы пользователей,
+ * которых нужно добавить в друзья и удалить из друзей
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendshipBatchDto {
+
+    public static final int MAX_SIZE = 10_000;
+
+    @Builder.Default
+    @Size(max = MAX_SIZE)
+    private List<@NotNull Long> add = new ArrayList<>();
+
+    @Builder.Default
+    @Size(max = MAX_SIZE)
+    private List<@NotNull Long> remove = new ArrayList<>();
+}
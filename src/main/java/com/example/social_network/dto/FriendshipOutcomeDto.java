@@ -0,0 +1,21 @@
+package com.example.social_network.dto;
+
+import com.example.social_network.utils.FriendshipStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dto с результатом изменения дружбы с одним пользователем в пакетном запросе
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendshipOutcomeDto {
+
+    private Long friendId;
+
+    private FriendshipStatus status;
+}
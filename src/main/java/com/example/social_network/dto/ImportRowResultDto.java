@@ -0,0 +1,40 @@
+package com.example.social_network.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Dto с результатом импорта одной записи: новый id пользователя или ошибки
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportRowResultDto {
+
+    /**
+     * Номер строки файла
+     */
+    private Long line;
+
+    /**
+     * Идентификатор пользователя в исходной системе
+     */
+    private String externalId;
+
+    /**
+     * Идентификатор созданного пользователя
+     */
+    private Long id;
+
+    /**
+     * Ошибки проверки: поле -> сообщение
+     */
+    private Map<String, String> errors;
+}
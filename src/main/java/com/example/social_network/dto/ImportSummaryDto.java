@@ -0,0 +1,26 @@
+package com.example.social_network.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dto с итогами импорта пользователей
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportSummaryDto {
+
+    /**
+     * Количество созданных пользователей
+     */
+    private long imported;
+
+    /**
+     * Количество отклоненных записей
+     */
+    private long rejected;
+}
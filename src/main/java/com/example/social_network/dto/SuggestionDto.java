@@ -0,0 +1,33 @@
+package com.example.social_network.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dto для отображения пользователя в списке "Возможно, вы знакомы"
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDto {
+
+    private UserByListDto user;
+
+    /**
+     * Количество общих друзей
+     */
+    private Integer mutualFriends;
+
+    /**
+     * Пользователь живет в том же городе
+     */
+    private boolean sameCity;
+
+    /**
+     * Количество общих интересов
+     */
+    private Integer commonInterests;
+}
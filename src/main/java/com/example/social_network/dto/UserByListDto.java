@@ -1,6 +1,7 @@
 package com.example.social_network.dto;
 
 import com.example.social_network.utils.Genders;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -29,6 +30,16 @@ public class UserByListDto {
 
     private Integer age;
 
+    /**
+     * Количество друзей, не выводится, если список собран без счетчика
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer friendsCount;
+
+    public UserByListDto(Long id, String fio, Genders gender, Integer age) {
+        this(id, fio, gender, age, null);
+    }
+
     public static class UserByListDtoBuilder{
         Integer age;
 
@@ -33,8 +33,21 @@ public class UserPageDto {
 
     private CityDto city;
 
+    /**
+     * Первые друзья пользователя для предпросмотра на странице
+     */
     private List<UserByListDto> friends = new ArrayList<>();
 
+    /**
+     * Общее количество друзей
+     */
+    private Long friendsCount;
+
+    /**
+     * Страница собрана не полностью: друзья не получены вовремя
+     */
+    private boolean partial;
+
     public static class UserPageDtoBuilder{
         private Integer age;
 
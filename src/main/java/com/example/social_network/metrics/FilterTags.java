@@ -0,0 +1,42 @@
+package com.example.social_network.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Тег filters с набором заданных фильтров поиска, например "city,fio" или "none".
+ * Учитываются только известные параметры фильтров и только факт их наличия, не значения,
+ * поэтому число значений тега ограничено
+ */
+public class FilterTags {
+
+    /**
+     * Параметры запроса, соответствующие полям BaseFilter
+     */
+    static final List<String> FILTERS = List.of("fio", "city", "minAge", "maxAge", "gender");
+
+    private static final Tag NONE = Tag.of("filters", "none");
+
+    private FilterTags() {
+    }
+
+    /**
+     * Тег по параметрам HTTP запроса
+     *
+     * @param request запрос
+     * @return тег filters
+     */
+    public static Tag of(HttpServletRequest request) {
+        StringJoiner present = new StringJoiner(",");
+        for (String filter : FILTERS) {
+            if (StringUtils.hasText(request.getParameter(filter))) {
+                present.add(filter);
+            }
+        }
+        return present.length() == 0 ? NONE : Tag.of("filters", present.toString());
+    }
+}
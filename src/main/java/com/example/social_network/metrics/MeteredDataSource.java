@@ -0,0 +1,124 @@
+package com.example.social_network.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Источник данных, который замеряет выполнение запросов JDBC для {@link SqlMetrics}.
+ *
+ * Соединения и запросы оборачиваются динамическими прокси, время измеряется вокруг методов execute*.
+ * Проходят через него и запросы Hibernate, и запросы JdbcTemplate. Команды COPY через
+ * connection.unwrap(PGConnection.class) идут мимо прокси и не учитываются.
+ * unwrap возвращает исходный пул, поэтому метрики HikariCP подключаются как обычно
+ */
+public class MeteredDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<SqlMetrics> metrics;
+
+    public MeteredDataSource(DataSource target, ObjectProvider<SqlMetrics> metrics) {
+        super(target);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    /**
+     * Закрывает исходный пул. Контейнер ищет метод закрытия у бина-обертки, а не у пула
+     */
+    public void close() throws Exception {
+        DataSource target = getTargetDataSource();
+        if (target instanceof AutoCloseable) {
+            ((AutoCloseable) target).close();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            // сравнение соединений в транзакциях Spring идет по прокси, а не по исходному соединению
+            if (method.getName().equals("equals")) { return proxy == args[0]; }
+            if (method.getName().equals("hashCode")) { return System.identityHashCode(proxy); }
+            Object result = invoke(connection, method, args);
+            if (result instanceof CallableStatement) {
+                return proxy(CallableStatement.class, result, new StatementHandler(result));
+            }
+            if (result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, result, new StatementHandler(result));
+            }
+            if (result instanceof Statement) {
+                return proxy(Statement.class, result, new StatementHandler(result));
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Тип запроса для тега по имени метода execute*
+     */
+    static String statementType(String method) {
+        switch (method) {
+            case "executeQuery": return "query";
+            case "executeUpdate":
+            case "executeLargeUpdate": return "update";
+            case "executeBatch":
+            case "executeLargeBatch": return "batch";
+            default: return "execute";
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Object statement;
+
+        StatementHandler(Object statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return MeteredDataSource.invoke(statement, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return MeteredDataSource.invoke(statement, method, args);
+            } finally {
+                SqlMetrics sqlMetrics = metrics.getIfAvailable();
+                if (sqlMetrics != null) {
+                    sqlMetrics.record(statementType(method.getName()), System.nanoTime() - start);
+                }
+            }
+        }
+    }
+}
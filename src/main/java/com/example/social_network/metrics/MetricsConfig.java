@@ -0,0 +1,77 @@
+package com.example.social_network.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+/**
+ * Настройка метрик: таймеры методов сервисов (@Timed), тег filters у http.server.requests
+ * и замер SQL запросов через обертку источника данных, бюджет SQL запросов Hibernate на HTTP запрос
+ */
+@Configuration
+@EnableConfigurationProperties(StatementBudgetProperties.class)
+@PropertySource(value = "classpath:sql-budget.properties", encoding = "UTF-8")
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public WebMvcTagsContributor filterTagsContributor() {
+        return new WebMvcTagsContributor() {
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response,
+                                         Object handler, Throwable exception) {
+                return Tags.of(FilterTags.of(request));
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Tags.empty();
+            }
+        };
+    }
+
+    /**
+     * Оборачивает источники данных в {@link MeteredDataSource}.
+     * SqlMetrics берется лениво, чтобы не создавать реестр метрик раньше источника данных
+     */
+    @Bean
+    public static BeanPostProcessor meteredDataSourcePostProcessor(ObjectProvider<SqlMetrics> sqlMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof MeteredDataSource)) {
+                    return new MeteredDataSource((DataSource) bean, sqlMetrics);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Регистрирует {@link StatementBudget} инспектором запросов Hibernate,
+     * сохраняя инспектор, заданный в spring.jpa.properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementBudgetCustomizer(StatementBudget budget) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                StatementBudget.chain(properties.get(AvailableSettings.STATEMENT_INSPECTOR), budget));
+    }
+}
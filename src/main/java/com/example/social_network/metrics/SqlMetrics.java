@@ -0,0 +1,81 @@
+package com.example.social_network.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики SQL запросов.
+ *
+ * Каждое выполнение запроса через {@link MeteredDataSource} записывается в таймер sn.sql.statements
+ * с тегом type (query, update, batch, execute). Если в потоке идет HTTP запрос ({@link #begin()}),
+ * число запросов и время JDBC копятся для него и по окончании запроса записываются
+ * в sn.sql.request.statements и sn.sql.request.time с тегами эндпоинта и набора фильтров
+ */
+@Component
+public class SqlMetrics {
+
+    private static final ThreadLocal<RequestStats> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+
+    public SqlMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Начинает подсчет запросов текущего потока
+     */
+    public void begin() {
+        CURRENT.set(new RequestStats());
+    }
+
+    /**
+     * Заканчивает подсчет запросов текущего потока и записывает метрики запроса
+     *
+     * @param tags теги HTTP запроса
+     */
+    public void end(Tags tags) {
+        RequestStats stats = CURRENT.get();
+        CURRENT.remove();
+        if (stats == null) { return; }
+        DistributionSummary.builder("sn.sql.request.statements")
+                .description("SQL statements executed per HTTP request")
+                .tags(tags)
+                .register(registry)
+                .record(stats.statements);
+        Timer.builder("sn.sql.request.time")
+                .description("Time spent in JDBC statement execution per HTTP request")
+                .tags(tags)
+                .register(registry)
+                .record(stats.nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Записывает выполнение одного запроса
+     *
+     * @param type тип запроса
+     * @param nanos время выполнения
+     */
+    void record(String type, long nanos) {
+        Timer.builder("sn.sql.statements")
+                .description("JDBC statement executions")
+                .tag("type", type)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += nanos;
+        }
+    }
+
+    private static final class RequestStats {
+        int statements;
+        long nanos;
+    }
+}
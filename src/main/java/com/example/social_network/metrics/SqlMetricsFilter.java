@@ -0,0 +1,41 @@
+package com.example.social_network.metrics;
+
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTags;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Подсчет SQL запросов и времени JDBC для каждого HTTP запроса.
+ * Теги uri и method совпадают с http.server.requests, тег filters - см. {@link FilterTags}.
+ * Для потоковых ответов учитываются только запросы, выполненные до начала передачи тела
+ */
+@Component
+public class SqlMetricsFilter extends OncePerRequestFilter {
+
+    private final SqlMetrics sqlMetrics;
+
+    public SqlMetricsFilter(SqlMetrics sqlMetrics) {
+        this.sqlMetrics = sqlMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        sqlMetrics.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            sqlMetrics.end(Tags.of(
+                    WebMvcTags.method(request),
+                    WebMvcTags.uri(request, response),
+                    FilterTags.of(request)));
+        }
+    }
+}
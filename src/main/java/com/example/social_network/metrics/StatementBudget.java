@@ -0,0 +1,176 @@
+package com.example.social_network.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Бюджет SQL запросов Hibernate на HTTP запрос. Ловит N+1 и лавины ленивых загрузок.
+ *
+ * Hibernate передает каждый подготавливаемый запрос в {@link #inspect(String)}, запросы считаются
+ * для текущего HTTP запроса ({@link StatementBudgetFilter}). Запросы JdbcTemplate в бюджет не входят,
+ * их число и время - в метриках sn.sql.*. Если по окончании HTTP запроса бюджет эндпоинта превышен,
+ * увеличивается счетчик sn.sql.budget.exceeded и, в зависимости от sn.sql.budget.mode:
+ * LOG - для доли запросов sn.sql.budget.sample-rate пишется предупреждение с текстами запросов,
+ * FAIL - выбрасывается {@link StatementBudgetExceededException} (режим тестов), OFF - проверки нет
+ */
+@Slf4j
+@Component
+public class StatementBudget implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Mode {
+        OFF,
+        LOG,
+        FAIL
+    }
+
+    private static final ThreadLocal<Usage> CURRENT = new ThreadLocal<>();
+
+    private final StatementBudgetProperties properties;
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    public StatementBudget(StatementBudgetProperties properties, ObjectProvider<MeterRegistry> registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    /**
+     * Начинает подсчет запросов текущего потока. Тексты запросов запоминаются в режиме FAIL
+     * и для выборки запросов в режиме LOG
+     */
+    public void begin() {
+        Mode mode = properties.getMode();
+        if (mode == Mode.OFF) { return; }
+        boolean capture = mode == Mode.FAIL || ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+        CURRENT.set(new Usage(capture ? properties.getMaxStatements() : 0));
+    }
+
+    /**
+     * Прекращает подсчет без проверки, например если запрос завершился ошибкой
+     */
+    public void reset() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Заканчивает подсчет и проверяет бюджет эндпоинта
+     *
+     * @param method HTTP метод
+     * @param pattern шаблон пути обработчика, null - обработчик не найден, проверки нет
+     * @return число запросов или -1, если подсчет не велся
+     * @throws StatementBudgetExceededException бюджет превышен в режиме FAIL
+     */
+    public int end(String method, String pattern) {
+        Usage usage = CURRENT.get();
+        CURRENT.remove();
+        if (usage == null) { return -1; }
+        int limit = pattern == null ? -1 : limit(method, pattern);
+        if (limit < 0 || usage.count <= limit) { return usage.count; }
+
+        MeterRegistry meterRegistry = registry.getIfAvailable();
+        if (meterRegistry != null) {
+            Counter.builder("sn.sql.budget.exceeded")
+                    .description("HTTP requests that executed more Hibernate statements than the endpoint budget")
+                    .tag("method", method)
+                    .tag("uri", pattern)
+                    .register(meterRegistry)
+                    .increment();
+        }
+        if (properties.getMode() == Mode.FAIL) {
+            throw new StatementBudgetExceededException(message(method, pattern, usage, limit));
+        }
+        if (usage.statements != null) {
+            log.warn(message(method, pattern, usage, limit));
+        }
+        return usage.count;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Usage usage = CURRENT.get();
+        if (usage != null) {
+            usage.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Бюджет эндпоинта
+     *
+     * @return число запросов или отрицательное значение, если бюджет не ограничен
+     */
+    int limit(String method, String pattern) {
+        Map<String, Integer> byPath = properties.getEndpoints().get(method.toLowerCase(Locale.ROOT));
+        Integer limit = byPath == null ? null : byPath.get(pattern);
+        return limit == null ? properties.getDefaultLimit() : limit;
+    }
+
+    /**
+     * Объединяет бюджет с инспектором, уже заданным в hibernate.session_factory.statement_inspector:
+     * экземпляром, классом или именем класса
+     *
+     * @param configured значение настройки или null
+     * @param budget бюджет
+     * @return инспектор, вызывающий оба
+     */
+    static StatementInspector chain(Object configured, StatementBudget budget) {
+        if (configured == null || configured == budget) { return budget; }
+        StatementInspector first;
+        if (configured instanceof StatementInspector) {
+            first = (StatementInspector) configured;
+        } else {
+            Class<?> type = configured instanceof Class
+                    ? (Class<?>) configured
+                    : ClassUtils.resolveClassName(configured.toString().trim(), StatementBudget.class.getClassLoader());
+            first = (StatementInspector) BeanUtils.instantiateClass(type);
+        }
+        return sql -> budget.inspect(first.inspect(sql));
+    }
+
+    private static String message(String method, String pattern, Usage usage, int limit) {
+        StringBuilder message = new StringBuilder("SQL statement budget exceeded: ")
+                .append(method).append(' ').append(pattern)
+                .append(" executed ").append(usage.count).append(" statements, budget ").append(limit);
+        if (usage.statements != null) {
+            usage.statements.forEach((sql, count) -> message.append("\n  ").append(count).append(" x ").append(sql));
+        }
+        return message.toString();
+    }
+
+    /**
+     * Запросы текущего HTTP запроса: общее число и до maxStatements разных текстов с количеством
+     */
+    private static final class Usage {
+
+        private final int maxStatements;
+
+        private final Map<String, Integer> statements;
+
+        private int count;
+
+        Usage(int maxStatements) {
+            this.maxStatements = maxStatements;
+            this.statements = maxStatements > 0 ? new LinkedHashMap<>() : null;
+        }
+
+        void add(String sql) {
+            count++;
+            if (statements != null && (statements.size() < maxStatements || statements.containsKey(sql))) {
+                statements.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+}
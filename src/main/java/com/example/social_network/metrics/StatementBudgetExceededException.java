@@ -0,0 +1,13 @@
+package com.example.social_network.metrics;
+
+/**
+ * HTTP запрос выполнил больше SQL запросов, чем позволяет бюджет эндпоинта
+ */
+public class StatementBudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.social_network.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Подсчет SQL запросов Hibernate для каждого HTTP запроса и проверка бюджета эндпоинта.
+ * Запросы, завершившиеся ошибкой, не проверяются
+ */
+@Component
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    private final StatementBudget budget;
+
+    public StatementBudgetFilter(StatementBudget budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        budget.begin();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (!completed) {
+                budget.reset();
+            }
+        }
+        budget.end(request.getMethod(), (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+    }
+}
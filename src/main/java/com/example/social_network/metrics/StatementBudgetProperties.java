@@ -0,0 +1,43 @@
+package com.example.social_network.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Настройки бюджета SQL запросов на HTTP запрос (sn.sql.budget.*).
+ * Бюджеты эндпоинтов лежат в sql-budget.properties, общем для приложения и тестов
+ */
+@Getter
+@Setter
+@ConfigurationProperties("sn.sql.budget")
+public class StatementBudgetProperties {
+
+    /**
+     * Режим проверки бюджета
+     */
+    private StatementBudget.Mode mode = StatementBudget.Mode.LOG;
+
+    /**
+     * Бюджет эндпоинтов, для которых он не задан отдельно
+     */
+    private int defaultLimit = 20;
+
+    /**
+     * Бюджеты по HTTP методу и шаблону пути: endpoints.get[/users/{id}]=3. Отрицательное значение - без ограничения
+     */
+    private Map<String, Map<String, Integer>> endpoints = new HashMap<>();
+
+    /**
+     * Доля запросов в режиме LOG, для которых запоминается текст SQL и пишется предупреждение
+     */
+    private double sampleRate = 0.05;
+
+    /**
+     * Сколько разных SQL запросов запоминается для предупреждения
+     */
+    private int maxStatements = 20;
+}
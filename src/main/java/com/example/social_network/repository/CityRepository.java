@@ -4,8 +4,10 @@ import com.example.social_network.domain.City;
 import com.example.social_network.domain.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -32,6 +34,24 @@ public interface CityRepository extends JpaRepository<City, Long>, JpaSpecificat
      * @param pageable пагинация
      * @return страница с городами
      */
-
+    @EntityGraph(attributePaths = "region")
     Page<City> findByNameContainsIgnoreCase(String name, Pageable pageable);
+
+    /**
+     * Поиск города по вхождению строки без запроса COUNT
+     *
+     * @param name поисковый запрос
+     * @param pageable пагинация
+     * @return срез с городами
+     */
+    @EntityGraph(attributePaths = "region")
+    Slice<City> readByNameContainsIgnoreCase(String name, Pageable pageable);
+
+    /**
+     * Количество городов, в названии которых есть строка
+     *
+     * @param name поисковый запрос
+     * @return количество городов
+     */
+    long countByNameContainsIgnoreCase(String name);
 }
@@ -11,36 +11,102 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Репозиторий для работы с сущностью User (пользователь)
  */
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>, UserRepositoryCustom {
 
     /**
-     * Добавление друга пользователю с userId
+     * Получение пользователя для страницы профиля вместе с городом и регионом одним запросом
      *
-     * @param idUser идентификатор пользователя
-     * @param idFriend идентификатор друга
-     * @return количество измененных в БД строк
+     * @param id идентификатор пользователя
+     * @return пользователь
      */
-    @Modifying
-    @Query(value = "INSERT INTO friendship (id_user, id_friend) VALUES (:user, :friend)", nativeQuery = true)
-    int addFriend(@Param("user") Long idUser,
-                  @Param("friend") Long idFriend);
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.city c LEFT JOIN FETCH c.region WHERE u.id = :id")
+    Optional<User> findProfileById(@Param("id") Long id);
+
+    /**
+     * Идентификаторы существующих пользователей из заданного набора
+     *
+     * @param ids идентификаторы
+     * @return идентификаторы найденных пользователей
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Счетчики количества друзей users.friends_count пользователей из заданного набора
+     *
+     * @param ids идентификаторы
+     * @return строки [идентификатор пользователя, количество друзей]
+     */
+    @Query("SELECT u.id, u.friendsCount FROM User u WHERE u.id IN :ids")
+    List<Object[]> findFriendsCounts(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Город и интересы пользователей из заданного набора - поля для ранжирования рекомендаций.
+     * Идентификатор города берется из внешнего ключа users.city_id, без соединения с cities
+     *
+     * @param ids идентификаторы
+     * @return строки [идентификатор пользователя, идентификатор города, интересы]
+     */
+    @Query("SELECT u.id, u.city.id, u.interests FROM User u WHERE u.id IN :ids")
+    List<Object[]> findCityAndInterests(@Param("ids") Collection<Long> ids);
 
     /**
-     * Удаление друга из списка друзей
+     * Удаление друга из списка друзей. Удаляются обе записи дружбы
      *
      * @param idUser идентификатор пользователя, который совершает действие
      * @param idFriend идентификатор другя
      * @return количество измененных в БД строк
      */
     @Modifying
-    @Query(value = "DELETE FROM friendship WHERE (iduser = :user) AND (idfriend = :friend)", nativeQuery = true)
+    @Query(value = "DELETE FROM friendship WHERE (id_user = :user AND id_friend = :friend) " +
+            "OR (id_user = :friend AND id_friend = :user)", nativeQuery = true)
     int deleteFriend(@Param("user") Long idUser,
                      @Param("friend") Long idFriend);
+
+    /**
+     * Изменение количества друзей пользователей
+     *
+     * @param ids идентификаторы пользователей
+     * @param delta на сколько изменить количество
+     * @return количество измененных в БД строк
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.friendsCount = u.friendsCount + :delta WHERE u.id IN :ids")
+    int adjustFriendsCount(@Param("ids") Collection<Long> ids, @Param("delta") int delta);
+
+    /**
+     * Уменьшение количества друзей у друзей пользователя перед его удалением:
+     * записи дружбы удаляются каскадом вместе с пользователем
+     *
+     * @param idUser идентификатор удаляемого пользователя
+     * @return количество измененных в БД строк
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET friends_count = friends_count - 1 " +
+            "WHERE id IN (SELECT id_friend FROM friendship WHERE id_user = :user)", nativeQuery = true)
+    int decrementFriendsCountOfFriends(@Param("user") Long idUser);
+
+    /**
+     * Количество общих друзей пользователя с каждым из других пользователей.
+     * Соединение по первичному ключу friendship (id_user, id_friend): для каждого друга пользователя
+     * проверяется запись дружбы с другими пользователями
+     *
+     * @param idUser идентификатор пользователя
+     * @param otherIds идентификаторы других пользователей
+     * @return строки [идентификатор другого пользователя, количество], только с ненулевым количеством
+     */
+    @Query(value = "SELECT o.id_user, COUNT(*) FROM friendship f " +
+            "JOIN friendship o ON o.id_friend = f.id_friend AND o.id_user IN (:others) " +
+            "WHERE f.id_user = :user GROUP BY o.id_user", nativeQuery = true)
+    List<Object[]> countMutualFriends(@Param("user") Long idUser,
+                                      @Param("others") Collection<Long> otherIds);
 }
@@ -0,0 +1,87 @@
+package com.example.social_network.repository;
+
+import com.example.social_network.domain.User;
+import com.example.social_network.dto.CursorPageDto;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.service.pagination.UserCursor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Дополнительные методы репозитория пользователей, которые нельзя выразить
+ * стандартными средствами Spring Data
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Поиск пользователей по спецификации с ограничением количества строк.
+     * Выбирает только колонки, нужные для {@link UserByListDto}, без загрузки сущностей,
+     * поэтому связанные город и регион не запрашиваются
+     *
+     * @param spec спецификация
+     * @param sort сортировка
+     * @param limit максимальное количество строк
+     * @return список пользователей для отображения в списке
+     */
+    List<UserByListDto> findAllAsListDto(Specification<User> spec, Sort sort, int limit);
+
+    /**
+     * Срез пользователей по спецификации без запроса COUNT: выбирается на одну строку больше
+     * размера страницы, чтобы узнать, есть ли следующая
+     *
+     * @param spec спецификация
+     * @param pageable настройки пагинации и сортировка
+     * @return срез пользователей для отображения в списке
+     */
+    Slice<UserByListDto> findSliceAsListDto(Specification<User> spec, Pageable pageable);
+
+    /**
+     * Страница пользователей для постраничного вывода по ключу: до size строк по спецификации
+     * в порядке sort и токен следующей страницы по ключу последней строки. Как и в
+     * {@link #findAllAsListDto(Specification, Sort, int)}, выбираются только колонки {@link UserByListDto},
+     * ключ (surname, name, id) берется из тех же колонок
+     *
+     * @param spec спецификация вместе с условием курсора
+     * @param sort {@link UserCursor#BY_FIO} или {@link UserCursor#BY_ID}
+     * @param size размер страницы
+     * @return страница пользователей с токеном следующей страницы
+     */
+    CursorPageDto<UserByListDto> findCursorPageAsListDto(Specification<User> spec, Sort sort, int size);
+
+    /**
+     * Потоковое чтение всех пользователей по спецификации в виде {@link UserByListDto}.
+     * Строки читаются с сервера порциями по fetchSize, поэтому память не зависит от размера результата.
+     * Поток нужно закрыть, это закрывает курсор и прерывает запрос. Вызывается внутри транзакции:
+     * PostgreSQL использует серверный курсор только при выключенном autocommit
+     *
+     * @param spec спецификация
+     * @param sort сортировка
+     * @param fetchSize количество строк, читаемых с сервера за раз
+     * @return поток пользователей для отображения в списке
+     */
+    Stream<UserByListDto> streamAsListDto(Specification<User> spec, Sort sort, int fetchSize);
+
+    /**
+     * Пакетное добавление друзей пользователю. Дружба записывается в обоих направлениях
+     * и не добавляется повторно
+     *
+     * @param userId идентификатор пользователя
+     * @param friendIds идентификаторы существующих пользователей
+     * @return количество добавленных строк для каждого друга (0 или 1)
+     */
+    int[] addFriends(Long userId, List<Long> friendIds);
+
+    /**
+     * Пакетное удаление друзей пользователя, в обоих направлениях
+     *
+     * @param userId идентификатор пользователя
+     * @param friendIds идентификаторы друзей
+     * @return количество удаленных строк для каждого друга
+     */
+    int[] deleteFriends(Long userId, List<Long> friendIds);
+}
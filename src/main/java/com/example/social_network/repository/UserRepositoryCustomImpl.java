@@ -0,0 +1,232 @@
+package com.example.social_network.repository;
+
+import com.example.social_network.domain.User;
+import com.example.social_network.dto.CursorPageDto;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.service.pagination.UserCursor;
+import com.example.social_network.utils.DatabaseDialect;
+import com.example.social_network.utils.Genders;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Реализация дополнительных методов репозитория пользователей
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    /**
+     * Добавление записи о дружбе, если ее еще нет
+     */
+    private static final String INSERT_FRIEND =
+            "INSERT INTO friendship (id_user, id_friend) SELECT CAST(? AS INTEGER), CAST(? AS INTEGER) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM friendship WHERE id_user = ? AND id_friend = ?)";
+
+    private static final String DELETE_FRIEND = "DELETE FROM friendship WHERE id_user = ? AND id_friend = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile String insertFriendSql;
+
+    public UserRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<UserByListDto> findAllAsListDto(Specification<User> spec, Sort sort, int limit) {
+        return listDtoQuery(spec, sort)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(UserRepositoryCustomImpl::toListDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Без сортировки срезы упорядочиваются по id: иначе соседние страницы OFFSET
+     * могут пересекаться и признак следующей страницы будет неверным
+     */
+    @Override
+    public Slice<UserByListDto> findSliceAsListDto(Specification<User> spec, Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+        TypedQuery<Tuple> query = listDtoQuery(spec, sort);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<UserByListDto> content = query.getResultList()
+                .stream()
+                .map(UserRepositoryCustomImpl::toListDto)
+                .collect(Collectors.toList());
+        boolean hasNext = pageable.isPaged() && content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    /**
+     * Запрашивается одна лишняя строка, чтобы узнать, есть ли следующая страница
+     */
+    @Override
+    public CursorPageDto<UserByListDto> findCursorPageAsListDto(Specification<User> spec, Sort sort, int size) {
+        List<Tuple> rows = listDtoQuery(spec, sort)
+                .setMaxResults(size + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > size;
+        String nextCursor = null;
+        if (hasNext) {
+            rows = rows.subList(0, size);
+            Tuple last = rows.get(size - 1);
+            Long id = last.get(0, Long.class);
+            nextCursor = (sort == UserCursor.BY_FIO
+                    ? UserCursor.byFio(last.get(2, String.class), last.get(1, String.class), id)
+                    : UserCursor.byId(id)).encode();
+        }
+        return new CursorPageDto<>(
+                rows.stream().map(UserRepositoryCustomImpl::toListDto).collect(Collectors.toList()),
+                nextCursor,
+                hasNext);
+    }
+
+    /**
+     * Hibernate выполняет getResultStream через ScrollableResults в режиме FORWARD_ONLY,
+     * строки читаются из курсора порциями по fetchSize. Выбираются только колонки,
+     * поэтому контекст персистентности не растет
+     */
+    @Override
+    public Stream<UserByListDto> streamAsListDto(Specification<User> spec, Sort sort, int fetchSize) {
+        return listDtoQuery(spec, sort)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()
+                .map(UserRepositoryCustomImpl::toListDto);
+    }
+
+    private TypedQuery<Tuple> listDtoQuery(Specification<User> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> root = query.from(User.class);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.multiselect(
+                root.get("id"),
+                root.get("name"),
+                root.get("surname"),
+                root.get("gender"),
+                root.get("dateOfBirth"),
+                root.get("friendsCount"))
+                .orderBy(toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    private static UserByListDto toListDto(Tuple tuple) {
+        return UserByListDto.builder()
+                .id(tuple.get(0, Long.class))
+                .fio(String.format("%s %s", tuple.get(1, String.class), tuple.get(2, String.class)))
+                .gender(tuple.get(3, Genders.class))
+                .age(tuple.get(4, LocalDate.class))
+                .friendsCount(tuple.get(5, Integer.class))
+                .build();
+    }
+
+    /**
+     * Дружба хранится в обоих направлениях, поэтому вставка выполняется двумя пакетами.
+     * Результат определяется прямым направлением
+     */
+    @Override
+    public int[] addFriends(Long userId, List<Long> friendIds) {
+        int[] added = insertRows(userId, friendIds, false);
+        insertRows(userId, friendIds, true);
+        return added;
+    }
+
+    private int[] insertRows(Long userId, List<Long> friendIds, boolean reverse) {
+        return jdbcTemplate.batchUpdate(insertFriendSql(), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                long from = reverse ? friendIds.get(i) : userId;
+                long to = reverse ? userId : friendIds.get(i);
+                ps.setLong(1, from);
+                ps.setLong(2, to);
+                ps.setLong(3, from);
+                ps.setLong(4, to);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return friendIds.size();
+            }
+        });
+    }
+
+    /**
+     * Удаление выполняется двумя пакетами, по одному на направление записи дружбы:
+     * условие с OR по двум направлениям H2 выполняет полным просмотром таблицы.
+     * Результат для каждого друга - сумма по направлениям, 2 для удаленной дружбы
+     */
+    @Override
+    public int[] deleteFriends(Long userId, List<Long> friendIds) {
+        int[] forward = deleteRows(userId, friendIds, false);
+        int[] backward = deleteRows(userId, friendIds, true);
+        for (int i = 0; i < forward.length; i++) {
+            forward[i] += backward[i];
+        }
+        return forward;
+    }
+
+    private int[] deleteRows(Long userId, List<Long> friendIds, boolean reverse) {
+        return jdbcTemplate.batchUpdate(DELETE_FRIEND, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                long friendId = friendIds.get(i);
+                ps.setLong(1, reverse ? friendId : userId);
+                ps.setLong(2, reverse ? userId : friendId);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return friendIds.size();
+            }
+        });
+    }
+
+    /**
+     * В PostgreSQL к вставке добавляется ON CONFLICT DO NOTHING: параллельная вставка той же пары
+     * не прерывает транзакцию. В H2 такой конструкции нет, там достаточно условия NOT EXISTS
+     */
+    private String insertFriendSql() {
+        String sql = insertFriendSql;
+        if (sql == null) {
+            sql = DatabaseDialect.isPostgres(jdbcTemplate) ? INSERT_FRIEND + " ON CONFLICT DO NOTHING" : INSERT_FRIEND;
+            insertFriendSql = sql;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.social_network.repository;
+
+import com.example.social_network.domain.UserSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Репозиторий для поиска по таблице user_search (сущность {@link UserSearch})
+ */
+
+@Repository
+public interface UserSearchRepository extends JpaRepository<UserSearch, Long>, JpaSpecificationExecutor<UserSearch>,
+        UserSearchRepositoryCustom {
+}
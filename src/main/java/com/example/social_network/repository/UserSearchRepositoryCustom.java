@@ -0,0 +1,36 @@
+package com.example.social_network.repository;
+
+import com.example.social_network.domain.UserSearch;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Дополнительные методы репозитория поиска пользователей, которые нельзя выразить
+ * стандартными средствами Spring Data
+ */
+public interface UserSearchRepositoryCustom {
+
+    /**
+     * Поиск по спецификации с ограничением количества строк, без запроса COUNT и OFFSET
+     *
+     * @param spec спецификация
+     * @param sort сортировка
+     * @param limit максимальное количество строк
+     * @return строки поиска
+     */
+    List<UserSearch> findAll(Specification<UserSearch> spec, Sort sort, int limit);
+
+    /**
+     * Срез по спецификации без запроса COUNT: выбирается на одну строку больше
+     * размера страницы, чтобы узнать, есть ли следующая
+     *
+     * @param spec спецификация
+     * @param pageable настройки пагинации и сортировка
+     * @return срез строк поиска
+     */
+    Slice<UserSearch> findSlice(Specification<UserSearch> spec, Pageable pageable);
+}
@@ -0,0 +1,66 @@
+package com.example.social_network.repository;
+
+import com.example.social_network.domain.UserSearch;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Реализация дополнительных методов репозитория поиска пользователей.
+ * У {@link UserSearch} нет связей, поэтому строки загружаются одним запросом без соединений
+ */
+public class UserSearchRepositoryCustomImpl implements UserSearchRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserSearch> findAll(Specification<UserSearch> spec, Sort sort, int limit) {
+        return query(spec, sort)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Без сортировки срезы упорядочиваются по id, как в {@link UserRepositoryCustomImpl}
+     */
+    @Override
+    public Slice<UserSearch> findSlice(Specification<UserSearch> spec, Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+        TypedQuery<UserSearch> query = query(spec, sort);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<UserSearch> content = query.getResultList();
+        boolean hasNext = pageable.isPaged() && content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    private TypedQuery<UserSearch> query(Specification<UserSearch> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSearch> query = cb.createQuery(UserSearch.class);
+        Root<UserSearch> root = query.from(UserSearch.class);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.select(root).orderBy(toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+}
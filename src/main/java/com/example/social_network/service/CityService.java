@@ -5,6 +5,10 @@ import com.example.social_network.domain.Region;
 import com.example.social_network.domain.User;
 import com.example.social_network.dto.CityDto;
 import com.example.social_network.repository.CityRepository;
+import com.example.social_network.service.pagination.CountCache;
+import com.example.social_network.service.pagination.TotalMode;
+import com.example.social_network.service.search.CityIndex;
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
@@ -14,30 +18,62 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.*;
+import java.util.List;
 
 /**
  * Сервисный слой для работы с сущностью City
  */
 @Service
 @AllArgsConstructor
-@Transactional
+@Transactional(readOnly = true)
 public class CityService {
 
     private final CityRepository cityRepository;
 
+    private final CityIndex cityIndex;
+
+    private final CountCache countCache;
+
     @PersistenceContext
     private EntityManager entityManager;
 
     /**
-     * Поиск городов по вхождению строки в название города
+     * Поиск городов по вхождению строки в название города.
+     * Ищет по справочнику в памяти {@link CityIndex}, пока он не загружен - запросом к БД.
+     * Сортировка из pageable не применяется: города упорядочены по рангу совпадения.
+     * Справочник знает количество без запроса, поэтому приблизительный режим подсчета
+     * влияет только на поиск запросом к БД
      *
      * @param name поисковая строка
      * @param pageable настройки пагинации
-     * @return страница с городами
+     * @param total способ подсчета общего количества
+     * @return страница или срез с городами
      */
-    public Page<CityDto> findCityByName(String name, Pageable pageable) {
-        return cityRepository.findByNameContainsIgnoreCase(name, pageable)
-                             .map(this::convertToCityDto);
+    @Timed("sn.service")
+    public Slice<CityDto> findCityByName(String name, Pageable pageable, TotalMode total) {
+        List<CityDto> cities = cityIndex.search(name);
+        if (cities == null) {
+            return findInDatabase(name == null ? "" : name, pageable, total);
+        }
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(cities);
+        }
+        int from = (int) Math.min(pageable.getOffset(), cities.size());
+        int to = Math.min(from + pageable.getPageSize(), cities.size());
+        return total == TotalMode.NONE
+                ? new SliceImpl<>(cities.subList(from, to), pageable, to < cities.size())
+                : new PageImpl<>(cities.subList(from, to), pageable, cities.size());
+    }
+
+    private Slice<CityDto> findInDatabase(String name, Pageable pageable, TotalMode total) {
+        if (total == TotalMode.EXACT) {
+            return cityRepository.findByNameContainsIgnoreCase(name, pageable).map(this::convertToCityDto);
+        }
+        Slice<CityDto> slice = cityRepository.readByNameContainsIgnoreCase(name, pageable).map(this::convertToCityDto);
+        return total == TotalMode.NONE
+                ? slice
+                : countCache.page(slice, "cities:" + name.trim().toLowerCase(),
+                        () -> cityRepository.countByNameContainsIgnoreCase(name));
     }
 
     /**
@@ -0,0 +1,95 @@
+package com.example.social_network.service;
+
+import com.example.social_network.dto.ConnectionDto;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.repository.UserRepository;
+import com.example.social_network.service.Specification.BaseSpecification;
+import com.example.social_network.service.graph.FriendshipGraph;
+import com.example.social_network.service.graph.FriendshipGraphService;
+import com.example.social_network.service.graph.ShortestPath;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Сервисный слой для степени связи двух пользователей ("как вы связаны").
+ *
+ * Кратчайший путь ищется двунаправленным поиском в ширину по графу дружбы в памяти
+ * ({@link ShortestPath}) не глубже sn.connection.max-depth. Количество просмотренных друзей
+ * ограничено sn.connection.node-budget, поэтому путь через хабы с миллионами друзей
+ * не превращает запрос в обход всего графа
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class ConnectionService {
+
+    private final FriendshipGraphService friendshipGraph;
+    private final UserRepository userRepository;
+    private final int maxDepth;
+    private final int nodeBudget;
+
+    public ConnectionService(FriendshipGraphService friendshipGraph,
+                             UserRepository userRepository,
+                             @Value("${sn.connection.max-depth:3}") int maxDepth,
+                             @Value("${sn.connection.node-budget:100000}") int nodeBudget) {
+        this.friendshipGraph = friendshipGraph;
+        this.userRepository = userRepository;
+        this.maxDepth = maxDepth;
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Степень связи двух пользователей и пример пути
+     *
+     * @param userId идентификатор пользователя
+     * @param otherId идентификатор второго пользователя
+     * @return степень связи, путь и признак полноты поиска
+     */
+    @Timed("sn.service")
+    public ConnectionDto getConnection(Long userId, Long otherId) {
+        if (userRepository.findExistingIds(List.of(userId, otherId)).size() < (userId.equals(otherId) ? 1 : 2)) {
+            throw new RuntimeException("User not found");
+        }
+        FriendshipGraph.Snapshot graph = friendshipGraph.snapshot();
+        if (graph == null) {
+            return ConnectionDto.builder().path(Collections.emptyList()).complete(false).build();
+        }
+
+        ShortestPath.Result result = ShortestPath.find(graph, userId.intValue(), otherId.intValue(), maxDepth, nodeBudget);
+        if (result.isExhausted()) {
+            log.warn("Connection search between users {} and {} stopped after {} friends", userId, otherId, result.getScanned());
+        }
+        if (result.getPath() == null) {
+            return ConnectionDto.builder().path(Collections.emptyList()).complete(!result.isExhausted()).build();
+        }
+
+        List<Long> ids = new ArrayList<>(result.getPath().length);
+        for (int id : result.getPath()) {
+            ids.add((long) id);
+        }
+        Map<Long, UserByListDto> users = userRepository
+                .findAllAsListDto(BaseSpecification.in("id", ids), Sort.unsorted(), ids.size())
+                .stream()
+                .collect(Collectors.toMap(UserByListDto::getId, Function.identity()));
+        if (!users.keySet().containsAll(ids)) {
+            // пользователь на пути удален после снимка графа
+            return ConnectionDto.builder().path(Collections.emptyList()).complete(false).build();
+        }
+        return ConnectionDto.builder()
+                .degree(ids.size() - 1)
+                .path(ids.stream().map(users::get).collect(Collectors.toList()))
+                .complete(true)
+                .build();
+    }
+}
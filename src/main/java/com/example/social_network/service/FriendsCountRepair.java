@@ -0,0 +1,101 @@
+package com.example.social_network.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сверка количества друзей users.friends_count с таблицей friendship.
+ *
+ * Счетчики изменяются в транзакциях добавления и удаления друзей, расходиться с friendship они могут
+ * после записи дружбы в обход сервиса (загрузка данных, ручные правки) или гонки с самой сверкой.
+ * Сверка идет диапазонами id по sn.friends-count.repair-batch-size пользователей, каждый диапазон
+ * в своей транзакции, и обновляет только расходящиеся строки. Запускается каждые
+ * sn.friends-count.repair-interval, ноль - только вызовом {@link #repair()}
+ */
+@Slf4j
+@Service
+public class FriendsCountRepair {
+
+    private static final String REPAIR = "UPDATE users SET friends_count = "
+            + "(SELECT COUNT(*) FROM friendship f WHERE f.id_user = users.id) "
+            + "WHERE id >= ? AND id < ? "
+            + "AND friends_count <> (SELECT COUNT(*) FROM friendship f WHERE f.id_user = users.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final ScheduledExecutorService scheduler;
+
+    public FriendsCountRepair(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${sn.friends-count.repair-interval:1h}") Duration interval,
+                              @Value("${sn.friends-count.repair-batch-size:10000}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        if (interval.isZero() || interval.isNegative()) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "friends-count-repair");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = interval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::repairLogged, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Исправляет расходящиеся счетчики всех пользователей
+     *
+     * @return количество исправленных пользователей
+     */
+    public int repair() {
+        Map<String, Object> range = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM users");
+        if (range.get("lo") == null) { return 0; }
+        long lo = ((Number) range.get("lo")).longValue();
+        long hi = ((Number) range.get("hi")).longValue();
+        int fixed = 0;
+        for (long from = lo; from <= hi; from += batchSize) {
+            long to = from + batchSize;
+            long first = from;
+            fixed += transactionTemplate.execute(status -> jdbcTemplate.update(REPAIR, first, to));
+        }
+        return fixed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void repairLogged() {
+        try {
+            long start = System.currentTimeMillis();
+            int fixed = repair();
+            if (fixed > 0) {
+                log.warn("Repaired friends count of {} users in {} ms", fixed, System.currentTimeMillis() - start);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Friends count repair failed", ex);
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.social_network.service.Specification;
 import com.example.social_network.domain.City;
+import com.example.social_network.domain.Friendship;
 import com.example.social_network.domain.User;
+import com.example.social_network.service.pagination.UserCursor;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.criteria.*;
 import java.time.LocalDate;
+import java.util.Collection;
 
 /**
  * Базовый класс спецификаций
@@ -30,6 +33,22 @@ public class BaseSpecification {
                 );
     }
 
+    /**
+     * Поиск по вхождению в колонку, значения которой уже хранятся в нижнем регистре.
+     * В нижний регистр приводится только искомое значение, поэтому на PostgreSQL
+     * подходит триграммный индекс по самой колонке
+     *
+     * @param column колонка таблицы сущности T
+     * @param value значение для поиска
+     * @return спецификация
+     */
+    public static <T> Specification<T> contains(final String column, final String value) {
+        return StringUtils.isEmpty(column) || ObjectUtils.isEmpty(value)
+                ? null
+                : (root, query, cb) ->
+                cb.like(root.get(column), cb.lower(cb.literal("%" + value + "%")));
+    }
+
     /**
      * Поиск по эквивалентности полю
      *
@@ -48,7 +67,9 @@ public class BaseSpecification {
     }
 
     /**
-     * Поиск по эквивалентности полю
+     * Поиск по вхождению в поле связанной сущности.
+     * Строки без связанной сущности условию не соответствуют, поэтому соединение внутреннее:
+     * БД может начать с отбора связанных сущностей и искать строки по индексу внешнего ключа
      *
      * @param joinAttribute поле сущности, по которому будет join
      * @param column колонка таблицы сущности T
@@ -60,7 +81,7 @@ public class BaseSpecification {
                 ? null
                 : (root, query, cb) ->
                 cb.like(
-                    cb.lower(root.join(joinAttribute, JoinType.LEFT).get(column)),
+                    cb.lower(root.join(joinAttribute, JoinType.INNER).get(column)),
                     cb.lower(cb.literal("%"+ value + "%"))
                 );
     }
@@ -107,31 +128,116 @@ public class BaseSpecification {
     }
 
     /**
-     * Поиск сущностей, у которых в друзьях есть данный пользователь
+     * Поиск сущностей, у которых значение поля входит в заданный набор
+     *
+     * @param column колонка таблицы сущности T
+     * @param values набор значений, пустой набор не допускает ни одной строки
+     * @return спецификация
+     */
+    public static <T> Specification<T> in(final String column, final Collection<Long> values) {
+        return StringUtils.isEmpty(column) || values == null
+                ? null
+                : (root, query, cb) ->
+                values.isEmpty() ? cb.disjunction() : root.get(column).in(values);
+    }
+
+    /**
+     * Поиск сущностей, у которых значение поля не входит в заданный набор
+     *
+     * @param column колонка таблицы сущности T
+     * @param values набор исключаемых значений
+     * @return спецификация
+     */
+    public static <T> Specification<T> notIn(final String column, final Collection<Long> values) {
+        return StringUtils.isEmpty(column) || ObjectUtils.isEmpty(values)
+                ? null
+                : (root, query, cb) ->
+                cb.not(root.get(column).in(values));
+    }
+
+    /**
+     * Поиск сущностей, у которых в друзьях есть данный пользователь.
+     * Дружба хранится в обоих направлениях, поэтому достаточно одного подзапроса EXISTS
+     * по первичному ключу (id_user, id_friend)
      *
      * @param user пользователь
      * @return спецификация
      */
     public static Specification<User> isFriend(User user){
-        return (root, query , cb) -> {
-            Predicate userPr = cb.isMember(user, root.get("friendsOfMine"));
-            Predicate friendPr = cb.isMember(user, root.get("myFriends"));
-            return cb.or(userPr,friendPr);
-        };
+        return isFriend(user.getId());
     }
 
     /**
-     * Поиск сущностей, которых нет в друзьях у данного пользователя
+     * Поиск сущностей с идентификатором пользователя в поле id, у которых в друзьях есть данный пользователь
+     *
+     * @param userId идентификатор пользователя
+     * @return спецификация
+     */
+    public static <T> Specification<T> isFriend(Long userId){
+        return (root, query, cb) -> cb.exists(friendship(userId, root, query, cb));
+    }
+
+    /**
+     * Поиск сущностей, которых нет в друзьях у данного пользователя, кроме него самого.
+     * Антисоединение NOT EXISTS по первичному ключу (id_user, id_friend)
      *
      * @param user текущий пользователь
      * @return спецификация
      */
     public static Specification<User> notFriend(User user){
+        return notFriend(user.getId());
+    }
+
+    /**
+     * Поиск сущностей с идентификатором пользователя в поле id, которых нет в друзьях
+     * у данного пользователя, кроме него самого
+     *
+     * @param userId идентификатор текущего пользователя
+     * @return спецификация
+     */
+    public static <T> Specification<T> notFriend(Long userId){
+        return (root, query, cb) -> cb.and(
+                cb.notEqual(root.get("id"), userId),
+                cb.not(cb.exists(friendship(userId, root, query, cb))));
+    }
+
+    /**
+     * Подзапрос записи о дружбе пользователя userId с сущностью root
+     */
+    private static Subquery<Long> friendship(Long userId, Root<?> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<Friendship> friendship = subquery.from(Friendship.class);
+        return subquery.select(friendship.get("friendId"))
+                .where(cb.equal(friendship.get("userId"), userId),
+                        cb.equal(friendship.get("friendId"), root.get("id")));
+    }
+
+    /**
+     * Поиск сущностей, которые следуют за курсором в порядке (surname, name, id)
+     * или в порядке id, если курсор построен только по id
+     *
+     * @param cursor курсор последней отданной строки
+     * @return спецификация
+     */
+    public static <T> Specification<T> after(UserCursor cursor) {
+        if (cursor == null) { return null; }
+        if (!cursor.isByFio()) {
+            return (root, query, cb) -> cb.greaterThan(root.get("id"), cursor.getId());
+        }
         return (root, query, cb) -> {
-            Predicate userPr = cb.isMember(user, root.get("friendsOfMine"));
-            Predicate friendPr = cb.isMember(user, root.get("myFriends"));
-            Predicate selfUser = cb.equal(root, user);
-            return cb.not(cb.or(userPr, friendPr, selfUser));
+            Path<String> surname = root.get("surname");
+            Path<String> name = root.get("name");
+            // первое условие избыточно, но задает начало диапазона для индекса (surname, name, id)
+            return cb.and(
+                    cb.greaterThanOrEqualTo(surname, cursor.getSurname()),
+                    cb.or(
+                            cb.greaterThan(surname, cursor.getSurname()),
+                            cb.and(cb.equal(surname, cursor.getSurname()),
+                                    cb.greaterThan(name, cursor.getName())),
+                            cb.and(cb.equal(surname, cursor.getSurname()),
+                                    cb.equal(name, cursor.getName()),
+                                    cb.greaterThan(root.get("id"), cursor.getId()))
+                    ));
         };
     }
 }
@@ -0,0 +1,208 @@
+package com.example.social_network.service;
+
+import com.example.social_network.domain.User;
+import com.example.social_network.dto.SuggestionDto;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.repository.UserRepository;
+import com.example.social_network.service.Specification.BaseSpecification;
+import com.example.social_network.service.graph.FriendshipGraph;
+import com.example.social_network.service.graph.FriendshipGraphService;
+import com.example.social_network.service.graph.IntIntMap;
+import com.example.social_network.service.graph.Neighbours;
+import com.example.social_network.service.graph.TopK;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Сервисный слой для рекомендаций "Возможно, вы знакомы".
+ *
+ * Кандидаты - друзья друзей, которые еще не являются друзьями пользователя. Они ранжируются
+ * по количеству общих друзей, при равенстве - по совпадению города и количеству общих интересов.
+ * Подсчет выполняется обходом графа дружбы в памяти на глубину два без запросов к friendship.
+ * Обход ограничен: у пользователя просматривается не более sn.suggestions.max-friends друзей,
+ * у каждого друга - не более sn.suggestions.max-fan-out его друзей (равномерной выборкой),
+ * поэтому друг с миллионом друзей не увеличивает время ответа.
+ *
+ * Город и интересы загружаются только для кандидатов, которые могут попасть в ответ: с количеством
+ * общих друзей не меньше, чем у limit-го лучшего. Кандидаты с таким же количеством, как у limit-го,
+ * сравниваются по городу и интересам все, если их не больше sn.suggestions.max-tied; иначе - только
+ * max-tied из них с меньшими идентификаторами, и рекомендации среди равных приблизительные
+ */
+@Service
+@Transactional(readOnly = true)
+public class SuggestionService {
+
+    /**
+     * Метка друзей пользователя и его самого в таблице счетчиков.
+     * После прибавления общих друзей значение остается отрицательным
+     */
+    private static final int EXCLUDED = Integer.MIN_VALUE / 2;
+
+    private final FriendshipGraphService friendshipGraph;
+    private final UserRepository userRepository;
+    private final int maxFriends;
+    private final int maxFanOut;
+    private final int maxTied;
+
+    public SuggestionService(FriendshipGraphService friendshipGraph,
+                             UserRepository userRepository,
+                             @Value("${sn.suggestions.max-friends:2000}") int maxFriends,
+                             @Value("${sn.suggestions.max-fan-out:500}") int maxFanOut,
+                             @Value("${sn.suggestions.max-tied:20}") int maxTied) {
+        this.friendshipGraph = friendshipGraph;
+        this.userRepository = userRepository;
+        this.maxFriends = maxFriends;
+        this.maxFanOut = maxFanOut;
+        this.maxTied = maxTied;
+    }
+
+    /**
+     * Получение рекомендаций "Возможно, вы знакомы"
+     *
+     * @param userId идентификатор пользователя
+     * @param limit максимальное количество рекомендаций
+     * @return список рекомендаций, пустой если граф дружбы не загружен
+     */
+    public List<SuggestionDto> getSuggestions(Long userId, int limit) {
+        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        FriendshipGraph.Snapshot graph = friendshipGraph.snapshot();
+        if (graph == null || limit < 1) {
+            return Collections.emptyList();
+        }
+
+        IntIntMap mutual = countMutualFriends(graph, userId.intValue());
+        TopK top = selectCandidates(mutual, limit);
+        int[] ids = top.ids();
+        int[] counts = top.scores();
+
+        // для ранжирования нужны только город и интересы кандидатов, сущности не загружаются
+        Map<Long, Object[]> candidates = userRepository
+                .findCityAndInterests(Arrays.stream(ids).mapToObj(id -> (long) id).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], Function.identity()));
+        Long cityId = user.getCity() == null ? null : user.getCity().getId();
+        Set<String> interests = interests(user.getInterests());
+
+        List<SuggestionDto> suggestions = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            Object[] candidate = candidates.get((long) ids[i]);
+            if (candidate == null) { continue; }
+            Set<String> common = interests((String) candidate[2]);
+            common.retainAll(interests);
+            suggestions.add(SuggestionDto.builder()
+                    .user(UserByListDto.builder().id((Long) candidate[0]).build())
+                    .mutualFriends(counts[i])
+                    .sameCity(cityId != null && cityId.equals(candidate[1]))
+                    .commonInterests(common.size())
+                    .build());
+        }
+        suggestions.sort(Comparator.comparing(SuggestionDto::getMutualFriends).reversed()
+                .thenComparing(SuggestionDto::isSameCity, Comparator.reverseOrder())
+                .thenComparing(SuggestionDto::getCommonInterests, Comparator.reverseOrder())
+                .thenComparing(s -> s.getUser().getId()));
+        if (suggestions.size() > limit) {
+            suggestions = new ArrayList<>(suggestions.subList(0, limit));
+        }
+        if (suggestions.isEmpty()) {
+            return suggestions;
+        }
+
+        // строки списка - только для отобранных рекомендаций
+        List<Long> suggestedIds = suggestions.stream().map(s -> s.getUser().getId()).collect(Collectors.toList());
+        Map<Long, UserByListDto> users = userRepository
+                .findAllAsListDto(BaseSpecification.in("id", suggestedIds), Sort.unsorted(), suggestedIds.size())
+                .stream()
+                .collect(Collectors.toMap(UserByListDto::getId, Function.identity()));
+        suggestions.removeIf(s -> !users.containsKey(s.getUser().getId()));
+        suggestions.forEach(s -> s.setUser(users.get(s.getUser().getId())));
+        return suggestions;
+    }
+
+    /**
+     * Отбирает кандидатов для ранжирования по городу и интересам: всех с количеством общих друзей
+     * больше, чем у limit-го лучшего, и не более limit + max-tied всего вместе с равными ему
+     *
+     * @param mutual количество общих друзей по идентификатору кандидата
+     * @param limit количество рекомендаций
+     * @return отобранные кандидаты
+     */
+    TopK selectCandidates(IntIntMap mutual, int limit) {
+        TopK best = new TopK(limit);
+        mutual.forEach((id, count) -> {
+            if (count > 0) {
+                best.offer(id, count);
+            }
+        });
+        int[] scores = best.scores();
+        if (scores.length < limit) {
+            return best;
+        }
+        int cutOff = scores[scores.length - 1];
+        TopK top = new TopK(limit + maxTied);
+        mutual.forEach((id, count) -> {
+            if (count >= cutOff) {
+                top.offer(id, count);
+            }
+        });
+        return top;
+    }
+
+    /**
+     * Подсчитывает количество общих друзей для друзей друзей пользователя
+     *
+     * @param graph снимок графа дружбы
+     * @param userId идентификатор пользователя
+     * @return идентификатор кандидата -> количество общих друзей
+     * (друзья пользователя и он сам имеют отрицательное значение)
+     */
+    IntIntMap countMutualFriends(FriendshipGraph.Snapshot graph, int userId) {
+        Neighbours friends = graph.neighbours(userId);
+        IntIntMap mutual = new IntIntMap(Math.min(friends.size(), maxFriends) * 16);
+        mutual.putIfAbsent(userId, EXCLUDED);
+        for (int i = 0; i < friends.size(); i++) {
+            mutual.putIfAbsent(friends.get(i), EXCLUDED);
+        }
+
+        int friendStep = step(friends.size(), maxFriends);
+        for (int i = 0; i < friends.size(); i += friendStep) {
+            Neighbours friendsOfFriend = graph.neighbours(friends.get(i));
+            int step = step(friendsOfFriend.size(), maxFanOut);
+            for (int j = 0; j < friendsOfFriend.size(); j += step) {
+                mutual.add(friendsOfFriend.get(j), 1);
+            }
+        }
+        return mutual;
+    }
+
+    /**
+     * Шаг равномерной выборки не более limit элементов из size
+     */
+    private static int step(int size, int limit) {
+        return size > limit ? (size + limit - 1) / limit : 1;
+    }
+
+    /**
+     * Разбивает поле интересов на слова в нижнем регистре
+     */
+    private static Set<String> interests(String text) {
+        if (text == null) {
+            return new HashSet<>();
+        }
+        return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.social_network.service;
+
+import com.example.social_network.datasource.ReadReplicaDataSource;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.dto.UserPageDto;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Сборка страницы пользователя из независимых частей.
+ *
+ * Если sn.page.async.enabled=true, профиль с городом и количеством друзей и первые друзья запрашиваются
+ * параллельно в пуле sn.page.async.threads потоков, каждая часть в своей транзакции только для чтения.
+ * Профиль ждем не дольше sn.page.async.profile-timeout, без него страницы нет. Друзей
+ * ждем не дольше sn.page.async.friends-timeout: если не успели или упали, страница отдается без них
+ * с признаком partial. Запрос, не дождавшийся части, в БД не отменяется и занимает поток пула до конца.
+ * Когда очередь пула заполнена, часть выполняется в потоке запроса. Если страница запрошена внутри
+ * {@link ReadReplicaDataSource#onPrimary(Supplier)}, части в потоках пула тоже читают основную БД.
+ *
+ * Если режим выключен, страница собирается последовательно в одной транзакции {@link UserService#getUser(Long)}
+ */
+@Slf4j
+@Service
+public class UserPageAssembler {
+
+    private final UserService userService;
+
+    private final boolean enabled;
+
+    private final Duration profileTimeout;
+
+    private final Duration friendsTimeout;
+
+    private final ThreadPoolExecutor executor;
+
+    public UserPageAssembler(UserService userService,
+                             @Value("${sn.page.async.enabled:false}") boolean enabled,
+                             @Value("${sn.page.async.threads:8}") int threads,
+                             @Value("${sn.page.async.queue-size:256}") int queueSize,
+                             @Value("${sn.page.async.profile-timeout:1s}") Duration profileTimeout,
+                             @Value("${sn.page.async.friends-timeout:300ms}") Duration friendsTimeout) {
+        this.userService = userService;
+        this.enabled = enabled;
+        this.profileTimeout = profileTimeout;
+        this.friendsTimeout = friendsTimeout;
+        AtomicInteger number = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread thread = new Thread(r, "user-page-" + number.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Страница пользователя
+     *
+     * @param id идентификатор пользователя
+     * @return страница пользователя, partial - без друзей
+     */
+    @Timed("sn.service")
+    public UserPageDto getUser(Long id) {
+        if (!enabled) {
+            return userService.getUser(id);
+        }
+        CompletableFuture<UserPageDto> profile = supply(() -> userService.getProfile(id));
+        // таймаут отсчитывается от запуска, а не от получения профиля
+        CompletableFuture<List<UserByListDto>> friends = supply(() -> userService.getFriendsPreview(id))
+                .completeOnTimeout(null, friendsTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        UserPageDto page = await(profile, id);
+        List<UserByListDto> preview = optional(friends, "friends", id);
+        page.setFriends(preview != null ? preview : new ArrayList<>());
+        page.setPartial(preview == null);
+        return page;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> part) {
+        if (ReadReplicaDataSource.isPrimaryRequired()) {
+            return CompletableFuture.supplyAsync(() -> ReadReplicaDataSource.onPrimary(part), executor);
+        }
+        return CompletableFuture.supplyAsync(part, executor);
+    }
+
+    private UserPageDto await(CompletableFuture<UserPageDto> profile, Long id) {
+        try {
+            return profile.get(profileTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException(String.format("User %d profile timed out after %s", id, profileTimeout));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Результат необязательной части или null, если она не успела за friends-timeout или упала
+     */
+    private <T> T optional(CompletableFuture<T> part, String name, Long id) {
+        try {
+            T result = part.join();
+            if (result == null) {
+                log.warn(String.format("User %d page without %s: timed out after %s", id, name, friendsTimeout));
+            }
+            return result;
+        } catch (CompletionException ex) {
+            log.warn(String.format("User %d page without %s: %s", id, name, ex.getCause()));
+            return null;
+        }
+    }
+}
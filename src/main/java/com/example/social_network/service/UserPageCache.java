@@ -0,0 +1,154 @@
+package com.example.social_network.service;
+
+import com.example.social_network.datasource.ReadReplicaDataSource;
+import com.example.social_network.dto.CacheStatsDto;
+import com.example.social_network.dto.UserPageDto;
+import com.example.social_network.service.events.FriendshipBatchChangedEvent;
+import com.example.social_network.service.events.FriendshipChangedEvent;
+import com.example.social_network.service.events.UserDeletedEvent;
+import com.example.social_network.service.events.UserSavedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Кэш страниц пользователей в памяти приложения.
+ *
+ * Размер ограничен sn.cache.profile.max-size, записи живут не дольше sn.cache.profile.ttl.
+ * Страница удаляется из кэша после фиксации транзакции, изменившей пользователя или его друзей,
+ * до возврата ответа на запрос изменения, поэтому после успешного PUT старая страница не отдается.
+ *
+ * Страница, прочитанная из БД параллельно с изменением, не должна попасть в кэш после удаления.
+ * Для этого у каждой группы ключей есть версия: удаление увеличивает ее, а запись в кэш
+ * выполняется, только если версия не изменилась с начала чтения. Проверка и запись,
+ * увеличение версии и удаление выполняются атомарно для ключа.
+ *
+ * Страница читается из БД на основной БД ({@link ReadReplicaDataSource#onPrimary(Supplier)}), а не на реплике:
+ * реплика может еще не получить изменение, после которого страница удалена из кэша, и старая страница
+ * снова попала бы в кэш до истечения ttl. Запросы, обслуживаемые кэшем, на основную БД не идут.
+ *
+ * Страницы, собранные не полностью ({@link UserPageDto#isPartial()}), в кэш не попадают
+ */
+@Service
+public class UserPageCache {
+
+    private static final int STRIPES = 1024;
+
+    private final UserPageAssembler pageAssembler;
+
+    private final Cache<Long, UserPageDto> cache;
+
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    public UserPageCache(UserPageAssembler pageAssembler,
+                         @Value("${sn.cache.profile.max-size:10000}") long maxSize,
+                         @Value("${sn.cache.profile.ttl:60s}") Duration ttl) {
+        this.pageAssembler = pageAssembler;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Получение страницы пользователя из кэша или из БД.
+     * Возвращаемый объект общий для всех запросов и не должен изменяться
+     *
+     * @param id идентификатор пользователя
+     * @return страница пользователя
+     */
+    public UserPageDto getUser(Long id) {
+        UserPageDto page = cache.getIfPresent(id);
+        if (page != null) {
+            return page;
+        }
+        int stripe = stripe(id);
+        long version = versions.get(stripe);
+        UserPageDto loaded = ReadReplicaDataSource.onPrimary(() -> pageAssembler.getUser(id));
+        if (loaded.isPartial()) {
+            // страница без друзей не кэшируется, следующий запрос попробует собрать ее полностью
+            return loaded;
+        }
+        cache.asMap().compute(id, (key, current) -> versions.get(stripe) == version ? loaded : current);
+        return loaded;
+    }
+
+    /**
+     * Удаляет страницу пользователя из кэша
+     *
+     * @param id идентификатор пользователя
+     */
+    public void invalidate(Long id) {
+        cache.asMap().compute(id, (key, current) -> {
+            versions.incrementAndGet(stripe(key));
+            return null;
+        });
+    }
+
+    /**
+     * Очищает кэш полностью
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    /**
+     * Счетчики попаданий, промахов и вытеснений
+     *
+     * @return статистика кэша
+     */
+    public CacheStatsDto getStats() {
+        CacheStats stats = cache.stats();
+        return CacheStatsDto.builder()
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .evictions(stats.evictionCount())
+                .hitRate(stats.hitRate())
+                .size(cache.estimatedSize())
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSaved(UserSavedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        invalidate(event.getUserId());
+        invalidate(event.getFriendId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipBatchChanged(FriendshipBatchChangedEvent event) {
+        invalidate(event.getUserId());
+        event.getAddedIds().forEach(this::invalidate);
+        event.getRemovedIds().forEach(this::invalidate);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        if (event.getFriendIds() == null) {
+            // страницы друзей содержат удаленного пользователя, но кто они - неизвестно
+            invalidateAll();
+            return;
+        }
+        invalidate(event.getUserId());
+        event.getFriendIds().forEach(this::invalidate);
+    }
+
+    private static int stripe(Long id) {
+        return (Long.hashCode(id) & Integer.MAX_VALUE) % STRIPES;
+    }
+}
@@ -1,22 +1,56 @@
 package com.example.social_network.service;
 
 import com.example.social_network.domain.User;
+import com.example.social_network.domain.UserSearch;
+import com.example.social_network.dto.CursorPageDto;
+import com.example.social_network.dto.FriendshipBatchDto;
+import com.example.social_network.dto.FriendshipOutcomeDto;
 import com.example.social_network.dto.UserByListDto;
 import com.example.social_network.dto.UserEditDto;
 import com.example.social_network.dto.UserPageDto;
 import com.example.social_network.dto.UserRegisterDto;
 import com.example.social_network.repository.UserRepository;
+import com.example.social_network.repository.UserSearchRepository;
+import com.example.social_network.service.events.FriendshipBatchChangedEvent;
+import com.example.social_network.service.events.FriendshipChangedEvent;
+import com.example.social_network.service.events.UserDeletedEvent;
+import com.example.social_network.service.events.UserSavedEvent;
 import com.example.social_network.service.filters.FriendFilter;
 import com.example.social_network.service.filters.BaseFilter;
 import com.example.social_network.service.filters.UserFilter;
+import com.example.social_network.service.graph.FriendshipGraphService;
+import com.example.social_network.service.Specification.BaseSpecification;
+import com.example.social_network.service.pagination.CountCache;
+import com.example.social_network.service.pagination.TotalMode;
+import com.example.social_network.service.pagination.UserCursor;
+import com.example.social_network.service.graph.FriendshipGraph;
+import com.example.social_network.service.search.NameTrigramIndex;
+import com.example.social_network.service.search.UserSearchWriter;
+import com.example.social_network.utils.FriendshipStatus;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Сервисный слой для работы с сущностью User (пользователь)
@@ -28,6 +62,31 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final CityService cityService;
+    private final FriendshipGraphService friendshipGraph;
+    private final NameTrigramIndex nameIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CountCache countCache;
+    private final UserSearchRepository userSearchRepository;
+    private final UserSearchWriter userSearchWriter;
+
+    /**
+     * Количество друзей, которые показываются на странице пользователя
+     */
+    @Value("${sn.page.friends-preview-size:6}")
+    private int friendsPreviewSize;
+
+    /**
+     * Наибольшее количество друзей, при котором друзья из графа дружбы подставляются в запрос
+     * списком идентификаторов. У пользователей с большим числом друзей - подзапрос к friendship
+     */
+    @Value("${sn.search.id-list-max-degree:1000}")
+    private int idListMaxDegree;
+
+    /**
+     * Поиск пользователей по таблице user_search вместо users с городами
+     */
+    @Value("${sn.search.read-model.enabled:true}")
+    private boolean readModel;
 
     /**
      * Создание учетной записи пользователя. Сохраняет пользователя в базе данных
@@ -35,24 +94,72 @@ public class UserService {
      * @param userDto
      * @return id пользователя
      */
+    @Timed("sn.service")
     public Long save(UserRegisterDto userDto) throws Exception {
         User user = converterUserRegisterDtoToUser(userDto);
         user = userRepository.save(user);
+        userSearchWriter.refresh(List.of(user.getId()));
+        eventPublisher.publishEvent(new UserSavedEvent(user.getId(), user.getName(), user.getSurname()));
         return user.getId();
     }
 
     /**
-     * Получение данных пользователя по его id
+     * Получение данных пользователя по его id.
+     * Число запросов не зависит от количества друзей: пользователь с городом, регионом и количеством друзей
+     * и первые друзья для предпросмотра.
+     * Части выполняются одна за другой в одной транзакции, параллельно - {@link UserPageAssembler}
      *
      * @param id
      * @return страницу пользователя
      */
     @Transactional(readOnly = true)
+    @Timed("sn.service")
     public UserPageDto getUser(Long id) {
-        User user = userRepository.findById(id).get();
+        UserPageDto userPageDto = getProfile(id);
+        List<Long> friendIds = friendshipGraph.friendIds(id);
+        userPageDto.setFriends(findFriendsPreview(id, friendIds));
+        if (friendIds != null) {
+            userPageDto.setFriendsCount((long) friendIds.size());
+        }
+        return userPageDto;
+    }
+
+    /**
+     * Данные пользователя с городом, регионом и количеством друзей без самих друзей. Часть страницы пользователя
+     *
+     * @param id
+     * @return страницу пользователя без друзей
+     */
+    @Transactional(readOnly = true)
+    public UserPageDto getProfile(Long id) {
+        User user = userRepository.findProfileById(id).orElseThrow(() -> new RuntimeException("User not found"));
         return convertToUserPageDto(user);
     }
 
+    /**
+     * Первые друзья пользователя для предпросмотра на странице. Часть страницы пользователя
+     *
+     * @param id
+     * @return до sn.page.friends-preview-size друзей в порядке id
+     */
+    @Transactional(readOnly = true)
+    public List<UserByListDto> getFriendsPreview(Long id) {
+        return findFriendsPreview(id, friendshipGraph.friendIds(id));
+    }
+
+    private List<UserByListDto> findFriendsPreview(Long id, List<Long> friendIds) {
+        if (friendsPreviewSize <= 0) { return new ArrayList<>(); }
+        // идентификаторы из графа отсортированы, для предпросмотра достаточно первых
+        List<Long> previewIds = friendIds == null ? null : friendIds.subList(0, Math.min(friendsPreviewSize, friendIds.size()));
+        return userRepository.findAllAsListDto(friendSpecification(id, previewIds), Sort.by("id"), friendsPreviewSize);
+    }
+
+    private static Specification<User> friendSpecification(Long id, List<Long> friendIds) {
+        FriendFilter friends = new FriendFilter(User.builder().id(id).build());
+        friends.setFriendIds(friendIds);
+        return friends.toSpecification();
+    }
+
     /**
      * Обновление полей пользователя
      *
@@ -61,6 +168,7 @@ public class UserService {
      * @return id пользователя с обновленными полями
      */
 
+    @Timed("sn.service")
     public void updateUser(UserEditDto userDto, Long id) {
         User user = userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
         user.setName(userDto.getName());
@@ -69,16 +177,23 @@ public class UserService {
         user.setGender(userDto.getGender());
         user.setInterests(userDto.getInterests());
         user.setCity(userDto.getCity());
-        userRepository.save(user);
+        userRepository.saveAndFlush(user);
+        userSearchWriter.refresh(List.of(id));
+        eventPublisher.publishEvent(new UserSavedEvent(user.getId(), user.getName(), user.getSurname()));
     }
 
     /**
-     * Удаляет страницу пользователя (пользователя из базы данных) с указанным id
+     * Удаляет страницу пользователя (пользователя из базы данных) с указанным id.
+     * Строка поиска user_search удаляется вместе с пользователем внешним ключом
      *
      * @param id
      */
+    @Timed("sn.service")
     public void delete(Long id){
+        List<Long> friendIds = friendshipGraph.friendIds(id);
+        userRepository.decrementFriendsCountOfFriends(id);
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserDeletedEvent(id, friendIds));
     }
 
     /**
@@ -88,22 +203,46 @@ public class UserService {
      * @return сет друзей
      */
     @Transactional(readOnly = true)
+    @Timed("sn.service")
     public Page<UserByListDto> getFriends(Long id, FriendFilter filter, Pageable pageable){
         User user = userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
         filter.setUser(user);
-        return userRepository
-                .findAll(filter.toSpecification(), pageable)
-                .map(this::convertToUserByListDto);
+        filter.setFriendIds(friendIdList(user));
+        filter.setFioCandidateIds(nameIndex.candidatesOfVariants(filter.getFioVariants()));
+        return findPage(filter.toSpecification(), pageable);
+    }
+
+    /**
+     * Получение списка друзей пользователя с выбранным способом подсчета общего количества
+     *
+     * @param id пользователя
+     * @param filter фильтры
+     * @param pageable настройки пагинации
+     * @param total способ подсчета общего количества
+     * @return страница или срез друзей
+     */
+    @Transactional(readOnly = true)
+    @Timed("sn.service")
+    public Slice<UserByListDto> getFriends(Long id, FriendFilter filter, Pageable pageable, TotalMode total) {
+        if (total == TotalMode.EXACT) {
+            return getFriends(id, filter, pageable);
+        }
+        return findSlice(friendsSpecification(id, filter), pageable, total,
+                "friends:" + id + ":" + filter.toCacheKey());
     }
 
     /**
-     * Добавление друга пользователю с userId
+     * Добавление друга пользователю с userId. Повторное добавление существующего друга ничего не меняет
      *
      * @param userId идентификатор пользователя
      * @param friendId идентификатор друга
      */
+    @Timed("sn.service")
     public void addFriend(Long userId, Long friendId) {
-        userRepository.addFriend(userId, friendId);
+        if (userRepository.addFriends(userId, List.of(friendId))[0] > 0) {
+            userRepository.adjustFriendsCount(List.of(userId, friendId), 1);
+            eventPublisher.publishEvent(new FriendshipChangedEvent(userId, friendId, true));
+        }
     }
 
     /**
@@ -112,8 +251,117 @@ public class UserService {
      * @param userId идентификатор пользователя, который совершает действие
      * @param friendId идентификатор другя
      */
+    @Timed("sn.service")
     public void deleteFriend(Long userId, Long friendId) {
-        userRepository.deleteFriend(userId, friendId);
+        if (userRepository.deleteFriend(userId, friendId) > 0) {
+            userRepository.adjustFriendsCount(List.of(userId, friendId), -1);
+            eventPublisher.publishEvent(new FriendshipChangedEvent(userId, friendId, false));
+        }
+    }
+
+    /**
+     * Пакетное изменение списка друзей в одной транзакции. Сначала удаляются друзья из remove,
+     * затем добавляются друзья из add; повторная дружба и отсутствующие пользователи не приводят к ошибке
+     *
+     * @param userId идентификатор пользователя, который совершает действие
+     * @param batch идентификаторы добавляемых и удаляемых друзей
+     * @return результат для каждого идентификатора в порядке запроса
+     */
+    @Timed("sn.service")
+    public List<FriendshipOutcomeDto> updateFriends(Long userId, FriendshipBatchDto batch) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        Set<Long> add = new LinkedHashSet<>(batch.getAdd());
+        Set<Long> remove = new LinkedHashSet<>(batch.getRemove());
+        if (add.stream().anyMatch(remove::contains)) {
+            throw new IllegalArgumentException("The same user is both added and removed");
+        }
+        Set<Long> requested = new HashSet<>(add);
+        requested.addAll(remove);
+        Set<Long> existing = requested.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(userRepository.findExistingIds(requested));
+
+        List<FriendshipOutcomeDto> outcomes = new ArrayList<>(add.size() + remove.size());
+        List<Long> removed = apply(userId, remove, existing, outcomes, false);
+        List<Long> added = apply(userId, add, existing, outcomes, true);
+        adjustFriendsCount(userId, added, 1);
+        adjustFriendsCount(userId, removed, -1);
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            eventPublisher.publishEvent(new FriendshipBatchChangedEvent(userId, added, removed));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Изменяет количество друзей пользователя на число измененных дружб и у каждого из друзей на единицу
+     */
+    private void adjustFriendsCount(Long userId, List<Long> friendIds, int delta) {
+        if (friendIds.isEmpty()) { return; }
+        userRepository.adjustFriendsCount(List.of(userId), delta * friendIds.size());
+        userRepository.adjustFriendsCount(friendIds, delta);
+    }
+
+    /**
+     * Друзья пользователя из графа дружбы для подстановки в запрос списком.
+     * Если друзей больше sn.search.id-list-max-degree, список длиннее, чем выгодно передавать в запрос,
+     * и друзья выбираются подзапросом к friendship по первичному ключу
+     *
+     * @param user пользователь
+     * @return идентификаторы друзей или null - использовать подзапрос
+     */
+    private List<Long> friendIdList(User user) {
+        return hasSmallDegree(user) ? friendshipGraph.friendIds(user.getId()) : null;
+    }
+
+    /**
+     * Друзья пользователя и он сам из графа дружбы для исключения списком NOT IN.
+     * Для пользователей с большим количеством друзей - антисоединение NOT EXISTS
+     *
+     * @param user пользователь
+     * @return идентификаторы или null - использовать антисоединение
+     */
+    private List<Long> exclusionIdList(User user) {
+        return hasSmallDegree(user) ? friendshipGraph.exclusionIds(user.getId()) : null;
+    }
+
+    private boolean hasSmallDegree(User user) {
+        return user.getFriendsCount() == null || user.getFriendsCount() <= idListMaxDegree;
+    }
+
+    /**
+     * Выполняет пакет добавлений или удалений и дописывает результаты
+     *
+     * @return идентификаторы пользователей, дружба с которыми изменилась
+     */
+    private List<Long> apply(Long userId, Set<Long> ids, Set<Long> existing,
+                             List<FriendshipOutcomeDto> outcomes, boolean add) {
+        List<Long> batch = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id.equals(userId)) {
+                outcomes.add(new FriendshipOutcomeDto(id, FriendshipStatus.SELF));
+            } else if (!existing.contains(id)) {
+                outcomes.add(new FriendshipOutcomeDto(id, FriendshipStatus.USER_NOT_FOUND));
+            } else {
+                batch.add(id);
+            }
+        }
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        int[] rows = add ? userRepository.addFriends(userId, batch) : userRepository.deleteFriends(userId, batch);
+        List<Long> changed = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            boolean done = rows[i] > 0;
+            if (done) {
+                changed.add(batch.get(i));
+            }
+            outcomes.add(new FriendshipOutcomeDto(batch.get(i), add
+                    ? (done ? FriendshipStatus.ADDED : FriendshipStatus.ALREADY_FRIENDS)
+                    : (done ? FriendshipStatus.REMOVED : FriendshipStatus.NOT_FRIENDS)));
+        }
+        return changed;
     }
 
     /**
@@ -124,12 +372,276 @@ public class UserService {
      * @return список юзеров в виде {@UserByListDto}
      */
     @Transactional(readOnly = true)
+    @Timed("sn.service")
     public Page<UserByListDto> findAll(Long userId, UserFilter filter, Pageable pageable) {
-        User user = userRepository.findById(userId).get();
+        if (readModel) {
+            Page<UserSearch> page = userSearchRepository.findAll(searchSpecification(userId, filter), pageable);
+            return page.map(searchRowConverter(page.getContent()));
+        }
+        return findPage(usersSpecification(userId, filter), pageable);
+    }
+
+    /**
+     * Поиск пользователей по фильтрам с выбранным способом подсчета общего количества.
+     * В режимах NONE и APPROXIMATE запрос COUNT не выполняется для каждой страницы
+     *
+     * @param userId идентификатор пользователя от лица которого осуществляется поиск
+     * @param filter набор условий
+     * @param pageable настройки пагинации
+     * @param total способ подсчета общего количества
+     * @return страница или срез пользователей
+     */
+    @Transactional(readOnly = true)
+    @Timed("sn.service")
+    public Slice<UserByListDto> findAll(Long userId, UserFilter filter, Pageable pageable, TotalMode total) {
+        if (total == TotalMode.EXACT) {
+            return findAll(userId, filter, pageable);
+        }
+        String countKey = "users:" + userId + ":" + filter.toCacheKey();
+        if (readModel) {
+            Specification<UserSearch> spec = searchSpecification(userId, filter);
+            Slice<UserSearch> rows = userSearchRepository.findSlice(spec, pageable);
+            Slice<UserByListDto> slice = rows.map(searchRowConverter(rows.getContent()));
+            return total == TotalMode.NONE ? slice : countCache.page(slice, countKey, () -> userSearchRepository.count(spec));
+        }
+        return findSlice(usersSpecification(userId, filter), pageable, total, countKey);
+    }
+
+    /**
+     * Поиск пользователей по фильтрам с постраничным выводом по ключу (surname, name, id).
+     * Не выполняет запрос COUNT и не использует OFFSET
+     *
+     * @param userId идентификатор пользователя от лица которого осуществляется поиск
+     * @param filter набор условий
+     * @param cursor токен продолжения, null для первой страницы
+     * @param size размер страницы
+     * @return страница пользователей с токеном следующей страницы
+     */
+    @Transactional(readOnly = true)
+    @Timed("sn.service")
+    public CursorPageDto<UserByListDto> findAll(Long userId, UserFilter filter, String cursor, int size) {
+        if (readModel) {
+            return findSearchAfter(searchSpecification(userId, filter), UserCursor.decode(cursor), size);
+        }
+        return findAfter(usersSpecification(userId, filter), UserCursor.decode(cursor), UserCursor.BY_FIO, size);
+    }
+
+    /**
+     * Получение списка друзей пользователя с постраничным выводом по ключу id.
+     * Не выполняет запрос COUNT и не использует OFFSET
+     *
+     * @param id пользователя
+     * @param filter фильтры
+     * @param cursor токен продолжения, null для первой страницы
+     * @param size размер страницы
+     * @return страница друзей с токеном следующей страницы
+     */
+    @Transactional(readOnly = true)
+    @Timed("sn.service")
+    public CursorPageDto<UserByListDto> getFriends(Long id, FriendFilter filter, String cursor, int size) {
+        return findAfter(friendsSpecification(id, filter), UserCursor.decode(cursor), UserCursor.BY_ID, size);
+    }
+
+    /**
+     * Получение общих друзей двух пользователей с помощью фильтра
+     *
+     * @param id пользователя
+     * @param otherId второго пользователя
+     * @param filter фильтры
+     * @param pageable настройки пагинации
+     * @param total способ подсчета общего количества
+     * @return страница или срез общих друзей
+     */
+    @Transactional(readOnly = true)
+    @Timed("sn.service")
+    public Slice<UserByListDto> getMutualFriends(Long id, Long otherId, FriendFilter filter,
+                                                 Pageable pageable, TotalMode total) {
+        Specification<User> spec = mutualFriendsSpecification(id, otherId, filter);
+        if (total == TotalMode.EXACT) {
+            return findPage(spec, pageable);
+        }
+        return findSlice(spec, pageable, total, "mutual:" + id + ":" + otherId + ":" + filter.toCacheKey());
+    }
+
+    /**
+     * Количество общих друзей пользователя с каждым из других пользователей.
+     * Считается пересечением списков друзей из графа дружбы, без графа - одним запросом к friendship
+     *
+     * @param id пользователя
+     * @param otherIds идентификаторы других пользователей
+     * @return идентификатор -> количество общих друзей в порядке otherIds
+     */
+    @Transactional(readOnly = true)
+    @Timed("sn.service")
+    public Map<Long, Integer> countMutualFriends(Long id, Collection<Long> otherIds) {
+        if (!userRepository.existsById(id)) {
+            throw new RuntimeException("User not found");
+        }
+        Map<Long, Integer> counts = friendshipGraph.mutualFriendCounts(id, otherIds);
+        if (counts != null) {
+            return counts;
+        }
+        counts = new LinkedHashMap<>();
+        for (Long otherId : otherIds) {
+            counts.put(otherId, 0);
+        }
+        if (!otherIds.isEmpty()) {
+            for (Object[] row : userRepository.countMutualFriends(id, otherIds)) {
+                counts.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Спецификация поиска общих друзей двух пользователей по фильтрам.
+     * Если граф дружбы загружен и у одного из пользователей немного друзей, общие друзья
+     * подставляются списком идентификаторов - пересечением отсортированных списков друзей,
+     * иначе проверяются двумя подзапросами EXISTS к friendship
+     *
+     * @param id пользователя
+     * @param otherId второго пользователя
+     * @param filter фильтры
+     * @return спецификация
+     */
+    @Transactional(readOnly = true)
+    public Specification<User> mutualFriendsSpecification(Long id, Long otherId, FriendFilter filter) {
+        List<User> users = userRepository.findAllById(List.of(id, otherId));
+        User user = users.stream().filter(u -> u.getId().equals(id)).findFirst()
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        User other = users.stream().filter(u -> u.getId().equals(otherId)).findFirst()
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        filter.setUser(user);
+        filter.setMutualUser(other);
+        if (hasSmallDegree(user) || hasSmallDegree(other)) {
+            filter.setFriendIds(friendshipGraph.mutualFriendIds(id, otherId));
+        }
+        filter.setFioCandidateIds(nameIndex.candidatesOfVariants(filter.getFioVariants()));
+        return filter.toSpecification();
+    }
+
+    /**
+     * Спецификация поиска пользователей по фильтрам от лица пользователя с userId:
+     * фильтр дополняется исключаемыми друзьями из графа дружбы и кандидатами из индекса имен
+     *
+     * @param userId идентификатор пользователя от лица которого осуществляется поиск
+     * @param filter набор условий
+     * @return спецификация
+     */
+    @Transactional(readOnly = true)
+    public Specification<User> usersSpecification(Long userId, UserFilter filter) {
+        prepareUserFilter(userId, filter);
+        return filter.toSpecification();
+    }
+
+    /**
+     * Спецификация поиска пользователей по фильтрам для таблицы поиска user_search,
+     * фильтр дополняется так же, как в {@link #usersSpecification(Long, UserFilter)}
+     *
+     * @param userId идентификатор пользователя от лица которого осуществляется поиск
+     * @param filter набор условий
+     * @return спецификация
+     */
+    @Transactional(readOnly = true)
+    public Specification<UserSearch> searchSpecification(Long userId, UserFilter filter) {
+        prepareUserFilter(userId, filter);
+        return filter.toSearchSpecification();
+    }
+
+    private void prepareUserFilter(Long userId, UserFilter filter) {
+        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        filter.setUser(user);
+        filter.setExcludedIds(exclusionIdList(user));
+        filter.setFioCandidateIds(nameIndex.candidatesOfVariants(filter.getFioVariants()));
+    }
+
+    /**
+     * Спецификация поиска друзей пользователя по фильтрам:
+     * фильтр дополняется друзьями из графа дружбы и кандидатами из индекса имен
+     *
+     * @param id пользователя
+     * @param filter фильтры
+     * @return спецификация
+     */
+    @Transactional(readOnly = true)
+    public Specification<User> friendsSpecification(Long id, FriendFilter filter) {
+        User user = userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
         filter.setUser(user);
-        return userRepository
-                .findAll(filter.toSpecification(), pageable)
-                .map(this::convertToUserByListDto);
+        filter.setFriendIds(friendIdList(user));
+        filter.setFioCandidateIds(nameIndex.candidatesOfVariants(filter.getFioVariants()));
+        return filter.toSpecification();
+    }
+
+    /**
+     * Страница с точным количеством. Строки выбираются проекцией без загрузки сущностей User,
+     * запрос COUNT не выполняется, если количество известно по самой странице
+     *
+     * @param spec спецификация фильтра
+     * @param pageable настройки пагинации
+     * @return страница
+     */
+    private Page<UserByListDto> findPage(Specification<User> spec, Pageable pageable) {
+        List<UserByListDto> content = userRepository.findSliceAsListDto(spec, pageable).getContent();
+        return PageableExecutionUtils.getPage(content, pageable, () -> userRepository.count(spec));
+    }
+
+    /**
+     * Срез без запроса COUNT, в режиме APPROXIMATE дополненный количеством из кэша
+     *
+     * @param spec спецификация фильтра
+     * @param pageable настройки пагинации
+     * @param total способ подсчета общего количества
+     * @param countKey ключ кэша количества
+     * @return срез или страница
+     */
+    private Slice<UserByListDto> findSlice(Specification<User> spec, Pageable pageable, TotalMode total, String countKey) {
+        Slice<UserByListDto> slice = userRepository.findSliceAsListDto(spec, pageable);
+        return total == TotalMode.NONE ? slice : countCache.page(slice, countKey, () -> userRepository.count(spec));
+    }
+
+    /**
+     * Выбирает size строк, следующих за курсором, проекцией без загрузки сущностей User
+     *
+     * @param spec спецификация фильтра
+     * @param cursor курсор последней отданной строки
+     * @param sort сортировка, согласованная с ключом курсора
+     * @param size размер страницы
+     * @return страница с токеном следующей страницы
+     */
+    private CursorPageDto<UserByListDto> findAfter(Specification<User> spec, UserCursor cursor, Sort sort, int size) {
+        boolean byFio = sort == UserCursor.BY_FIO;
+        if (size < 1 || (cursor != null && cursor.isByFio() != byFio)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return userRepository.findCursorPageAsListDto(
+                Specification.where(spec).and(BaseSpecification.after(cursor)), sort, size);
+    }
+
+    /**
+     * Выбирает size строк таблицы поиска, следующих за курсором по ключу (surname, name, id)
+     *
+     * @param spec спецификация фильтра
+     * @param cursor курсор последней отданной строки
+     * @param size размер страницы
+     * @return страница с токеном следующей страницы
+     */
+    private CursorPageDto<UserByListDto> findSearchAfter(Specification<UserSearch> spec, UserCursor cursor, int size) {
+        if (size < 1 || (cursor != null && !cursor.isByFio())) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        List<UserSearch> users = userSearchRepository.findAll(
+                Specification.where(spec).and(BaseSpecification.after(cursor)), UserCursor.BY_FIO, size + 1);
+
+        boolean hasNext = users.size() > size;
+        String nextCursor = null;
+        if (hasNext) {
+            users = users.subList(0, size);
+            nextCursor = UserCursor.byFio(users.get(size - 1)).encode();
+        }
+        return new CursorPageDto<>(
+                users.stream().map(searchRowConverter(users)).collect(Collectors.toList()),
+                nextCursor,
+                hasNext);
     }
 
     /**
@@ -147,7 +659,8 @@ public class UserService {
 
     /**
      * Конвертирует сущность {@link User} в сущность DTO {@link UserPageDto}
-     * для отображения на странице пользователя
+     * для отображения на странице пользователя. Друзья не заполняются:
+     * ленивые коллекции друзей не загружаются
      *
      * @param user
      * @return UserPageDto
@@ -161,14 +674,8 @@ public class UserService {
                 .age(user.getDateOfBirth())
                 .interests(user.getInterests())
                 .city(cityService.convertToCityDto(user.getCity()))
-                .friends(Stream.concat(
-                        user.getMyFriends().stream(),
-                        user.getFriendsOfMine().stream()
-                )
-                        .collect(Collectors.toList())
-                        .stream()
-                        .map(this::convertToUserByListDto)
-                        .collect(Collectors.toList()))
+                .friends(new ArrayList<>())
+                .friendsCount(user.getFriendsCount() == null ? 0L : user.getFriendsCount().longValue())
                 .build();
     }
 
@@ -185,6 +692,45 @@ public class UserService {
                 .fio(String.format("%s %s", user.getName(), user.getSurname()))
                 .gender(user.getGender())
                 .age(user.getDateOfBirth())
+                .friendsCount(user.getFriendsCount())
+                .build();
+    }
+
+    /**
+     * Конвертер строк таблицы поиска одной страницы в {@link UserByListDto}.
+     * Количества друзей в таблице поиска нет: оно берется из графа дружбы, а если граф не загружен -
+     * из счетчиков users.friends_count одним запросом по первичному ключу для всех строк страницы
+     *
+     * @param rows строки таблицы поиска страницы
+     * @return конвертер строки
+     */
+    private Function<UserSearch, UserByListDto> searchRowConverter(List<UserSearch> rows) {
+        FriendshipGraph.Snapshot graph = friendshipGraph.snapshot();
+        if (graph != null) {
+            return user -> convertToUserByListDto(user, graph.degree(user.getId().intValue()));
+        }
+        Map<Long, Integer> counts = new HashMap<>();
+        if (!rows.isEmpty()) {
+            List<Long> ids = rows.stream().map(UserSearch::getId).collect(Collectors.toList());
+            userRepository.findFriendsCounts(ids).forEach(row -> counts.put((Long) row[0], (Integer) row[1]));
+        }
+        return user -> convertToUserByListDto(user, counts.getOrDefault(user.getId(), 0));
+    }
+
+    /**
+     * Конвертирует строку таблицы поиска {@link UserSearch} в {@link UserByListDto}
+     *
+     * @param user строка таблицы поиска
+     * @param friendsCount количество друзей
+     * @return UserByListDto
+     */
+    public UserByListDto convertToUserByListDto(UserSearch user, int friendsCount){
+        return UserByListDto.builder()
+                .id(user.getId())
+                .fio(String.format("%s %s", user.getName(), user.getSurname()))
+                .gender(user.getGender())
+                .age(user.getDateOfBirth())
+                .friendsCount(friendsCount)
                 .build();
     }
-}
\ No newline at end of file
+}
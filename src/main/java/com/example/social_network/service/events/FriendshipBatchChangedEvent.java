@@ -0,0 +1,26 @@
+package com.example.social_network.service.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+
+/**
+ * Событие пакетного изменения друзей пользователя
+ */
+@Getter
+@AllArgsConstructor
+public class FriendshipBatchChangedEvent {
+
+    private final Long userId;
+
+    /**
+     * Пользователи, с которыми добавлена дружба
+     */
+    private final Collection<Long> addedIds;
+
+    /**
+     * Пользователи, с которыми удалена дружба
+     */
+    private final Collection<Long> removedIds;
+}
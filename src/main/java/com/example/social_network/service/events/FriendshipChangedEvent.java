@@ -0,0 +1,21 @@
+package com.example.social_network.service.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Событие изменения дружбы двух пользователей
+ */
+@Getter
+@AllArgsConstructor
+public class FriendshipChangedEvent {
+
+    private final Long userId;
+
+    private final Long friendId;
+
+    /**
+     * true - дружба добавлена, false - удалена
+     */
+    private final boolean added;
+}
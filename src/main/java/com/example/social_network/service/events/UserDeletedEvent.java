@@ -0,0 +1,25 @@
+package com.example.social_network.service.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+
+/**
+ * Событие удаления пользователя
+ */
+@Getter
+@AllArgsConstructor
+public class UserDeletedEvent {
+
+    private final Long userId;
+
+    /**
+     * Друзья пользователя на момент удаления или null, если они неизвестны
+     */
+    private final Collection<Long> friendIds;
+
+    public UserDeletedEvent(Long userId) {
+        this(userId, null);
+    }
+}
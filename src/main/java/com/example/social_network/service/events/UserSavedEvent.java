@@ -0,0 +1,18 @@
+package com.example.social_network.service.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Событие создания или изменения пользователя
+ */
+@Getter
+@AllArgsConstructor
+public class UserSavedEvent {
+
+    private final Long userId;
+
+    private final String name;
+
+    private final String surname;
+}
@@ -0,0 +1,60 @@
+package com.example.social_network.service.exporting;
+
+import com.example.social_network.dto.UserByListDto;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Писатель CSV (RFC 4180): заголовок id,fio,gender,age, значения с запятыми,
+ * кавычками и переводами строк заключаются в двойные кавычки
+ */
+class CsvUserRowWriter implements UserRowWriter {
+
+    private final Writer out;
+
+    private boolean header;
+
+    CsvUserRowWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(UserByListDto user) throws IOException {
+        writeHeader();
+        out.write(String.valueOf(user.getId()));
+        out.write(',');
+        writeValue(user.getFio());
+        out.write(',');
+        if (user.getGender() != null) { out.write(user.getGender().name()); }
+        out.write(',');
+        if (user.getAge() != null) { out.write(String.valueOf(user.getAge())); }
+        out.write("\r\n");
+    }
+
+    /**
+     * Заголовок пишется и для пустой выгрузки
+     */
+    private void writeHeader() throws IOException {
+        if (!header) {
+            out.write("id,fio,gender,age\r\n");
+            header = true;
+        }
+    }
+
+    private void writeValue(String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeHeader();
+        out.flush();
+    }
+}
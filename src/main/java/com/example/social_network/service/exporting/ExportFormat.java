@@ -0,0 +1,59 @@
+package com.example.social_network.service.exporting;
+
+import java.io.Writer;
+
+/**
+ * Формат выгрузки пользователей
+ */
+public enum ExportFormat {
+
+    /**
+     * Один JSON объект {@link com.example.social_network.dto.UserByListDto} на строку
+     */
+    NDJSON("application/x-ndjson"),
+
+    /**
+     * CSV с заголовком id,fio,gender,age
+     */
+    CSV("text/csv");
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Тип содержимого ответа без кодировки
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Определяет формат по имени
+     *
+     * @param name имя формата, null или пустая строка - NDJSON
+     * @return формат
+     */
+    public static ExportFormat of(String name) {
+        if (name == null || name.isEmpty()) {
+            return NDJSON;
+        }
+        try {
+            return valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format: " + name);
+        }
+    }
+
+    /**
+     * Создает писатель строк выгрузки этого формата
+     *
+     * @param out поток символов ответа
+     * @return писатель
+     */
+    UserRowWriter writer(Writer out) {
+        return this == CSV ? new CsvUserRowWriter(out) : new NdjsonUserRowWriter(out);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.social_network.service.exporting;
+
+import com.example.social_network.dto.UserByListDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Писатель NDJSON: один объект на строку
+ */
+class NdjsonUserRowWriter implements UserRowWriter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final JsonGenerator out;
+
+    NdjsonUserRowWriter(Writer out) {
+        try {
+            this.out = MAPPER.getFactory().createGenerator(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.out.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(UserByListDto user) throws IOException {
+        MAPPER.writeValue(out, user);
+        out.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.social_network.service.exporting;
+
+import com.example.social_network.domain.User;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.repository.UserRepository;
+import com.example.social_network.service.UserService;
+import com.example.social_network.service.filters.FriendFilter;
+import com.example.social_network.service.filters.UserFilter;
+import com.example.social_network.service.pagination.UserCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка всех пользователей, подходящих под фильтр, без постраничного вывода.
+ *
+ * Фильтр проверяется и дополняется в потоке запроса, поэтому ошибки (например, несуществующий
+ * пользователь) возвращаются обычным ответом. Сам запрос выполняется при записи ответа:
+ * строки читаются из серверного курсора порциями по sn.export.fetch-size и отправляются
+ * клиенту каждые sn.export.flush-rows строк, память не зависит от размера результата.
+ * Если клиент отключился, запись в ответ завершается ошибкой, курсор закрывается и чтение
+ * результата прекращается
+ */
+@Slf4j
+@Service
+public class UserExportService {
+
+    private final UserService userService;
+
+    private final UserRepository userRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int fetchSize;
+
+    private final int flushRows;
+
+    public UserExportService(UserService userService,
+                             UserRepository userRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${sn.export.fetch-size:1000}") int fetchSize,
+                             @Value("${sn.export.flush-rows:1000}") int flushRows) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.flushRows = flushRows;
+    }
+
+    /**
+     * Выгрузка пользователей по фильтрам в порядке (surname, name, id)
+     *
+     * @param userId идентификатор пользователя от лица которого осуществляется поиск
+     * @param filter набор условий
+     * @param format формат выгрузки
+     * @return тело ответа, которое выполняет запрос при записи
+     */
+    public StreamingResponseBody exportUsers(Long userId, UserFilter filter, ExportFormat format) {
+        return export(userService.usersSpecification(userId, filter), UserCursor.BY_FIO, format);
+    }
+
+    /**
+     * Выгрузка друзей пользователя по фильтрам в порядке id
+     *
+     * @param id пользователя
+     * @param filter фильтры
+     * @param format формат выгрузки
+     * @return тело ответа, которое выполняет запрос при записи
+     */
+    public StreamingResponseBody exportFriends(Long id, FriendFilter filter, ExportFormat format) {
+        return export(userService.friendsSpecification(id, filter), UserCursor.BY_ID, format);
+    }
+
+    private StreamingResponseBody export(Specification<User> spec, Sort sort, ExportFormat format) {
+        return out -> {
+            long start = System.currentTimeMillis();
+            UserRowWriter writer = format.writer(
+                    new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+            long[] rows = new long[1];
+            try {
+                // курсор PostgreSQL работает только внутри транзакции
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<UserByListDto> users = userRepository.streamAsListDto(spec, sort, fetchSize)) {
+                        for (Iterator<UserByListDto> it = users.iterator(); it.hasNext(); ) {
+                            writer.write(it.next());
+                            if (++rows[0] % flushRows == 0) {
+                                writer.flush();
+                            }
+                        }
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                log.info("Export cancelled after {} rows: {}", rows[0], e.getCause().getMessage());
+                return;
+            }
+            log.info("Exported {} users in {} ms", rows[0], System.currentTimeMillis() - start);
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.social_network.service.exporting;
+
+import com.example.social_network.dto.UserByListDto;
+
+import java.io.IOException;
+
+/**
+ * Построчная запись пользователей в поток ответа
+ */
+interface UserRowWriter {
+
+    /**
+     * Записывает одного пользователя
+     *
+     * @param user пользователь
+     */
+    void write(UserByListDto user) throws IOException;
+
+    /**
+     * Отправляет записанное клиенту
+     */
+    void flush() throws IOException;
+}
@@ -1,5 +1,6 @@
 package com.example.social_network.service.filters;
 import com.example.social_network.domain.User;
+import com.example.social_network.domain.UserSearch;
 import com.example.social_network.service.Specification.BaseSpecification;
 import com.example.social_network.utils.Genders;
 import com.example.social_network.utils.KeyboardConverter;
@@ -7,6 +8,10 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
 /**
  *  Общий фильтр пользователей по полям-критериям
  */
@@ -41,6 +46,13 @@ public class BaseFilter {
      */
     private Genders gender;
 
+    /**
+     * Идентификаторы пользователей из триграммного индекса имен, среди которых
+     * могут быть подходящие под строку fio. Если заданы, условия LIKE проверяются только
+     * для этих строк. Заполняется сервисом
+     */
+    private Collection<Long> fioCandidateIds;
+
     /**
      * Составляет спецификацию по всем фильтрам
      *
@@ -48,7 +60,8 @@ public class BaseFilter {
      */
     public Specification<User> toSpecification() {
 
-        return Specification.where(getSpecificationByFio(fio))
+        return Specification.where(BaseSpecification.<User>in("id", fioCandidateIds))
+                    .and(getSpecificationByFio(fio))
                     .and(BaseSpecification.like("city", "name", city))
                     .and(BaseSpecification.gt("date_of_birth", minAge))
                     .and(BaseSpecification.lt("date_of_birth", maxAge))
@@ -56,27 +69,96 @@ public class BaseFilter {
     }
 
     /**
-     * Получает спецификацию для поисковой строки fio
+     * Составляет спецификацию по всем фильтрам для таблицы поиска user_search.
+     * Условия те же, что у {@link #toSpecification()}, но проверяются по одной таблице:
+     * город - по названию в строке поиска, без соединения с cities, слова fio - по колонке fio,
+     * где имя и фамилия уже в нижнем регистре
+     *
+     * @return спецификацию по всем фильтрам
+     */
+    public Specification<UserSearch> toSearchSpecification() {
+
+        return Specification.where(BaseSpecification.<UserSearch>in("id", fioCandidateIds))
+                    .and(getSearchSpecificationByFio(fio))
+                    .and(BaseSpecification.contains("cityName", city))
+                    .and(BaseSpecification.gt("date_of_birth", minAge))
+                    .and(BaseSpecification.lt("date_of_birth", maxAge))
+                    .and(BaseSpecification.equal("gender", gender));
+    }
+
+    /**
+     * Спецификация для поисковой строки fio по таблице поиска: каждое слово в любом
+     * из вариантов раскладки должно входить в fio. Слова не содержат пробелов, поэтому
+     * вхождение в fio равносильно вхождению в имя или фамилию
+     *
+     * @param fio поисковая строка
+     * @return спецификация
+     */
+    public Specification<UserSearch> getSearchSpecificationByFio(String fio) {
+
+        String[][] variants = fioVariants(fio);
+        if (variants == null || variants.length == 0) { return null; }
+        Specification<UserSearch> specification = Specification.where(null);
+        for (String[] word : variants) {
+            Specification<UserSearch> anyVariant = Specification.where(null);
+            for (String variant : word) {
+                anyVariant = anyVariant.or(BaseSpecification.contains("fio", variant));
+            }
+            specification = specification.and(anyVariant);
+        }
+        return specification;
+    }
+
+    /**
+     * Получает спецификацию для поисковой строки fio.
+     * Каждое слово ищется и в исходном виде, и в другой раскладке клавиатуры
      *
      * @param fio поисковая строка
      * @return спецификация
      */
     public Specification<User> getSpecificationByFio(String fio){
 
-        if(fio != null) {
-            fio = KeyboardConverter.convert(fio);
-            String[] fioPartly = fio.split(" ");
-            return appendSpecifications(fioPartly);
-        } else { return null; }
+        String[][] variants = fioVariants(fio);
+        if (variants == null || variants.length == 0) { return null; }
+        return appendSpecifications(variants);
+    }
+
+    /**
+     * Слова поисковой строки fio с вариантами в другой раскладке
+     *
+     * @return для каждого слова - само слово и, если оно набрано в одной раскладке,
+     * слово в другой раскладке; null, если строка не задана
+     */
+    public String[][] getFioVariants() {
+        return fioVariants(fio);
+    }
+
+    /**
+     * Нормализованное представление условий фильтра для ключей кэша:
+     * одинаковые по смыслу фильтры (регистр, лишние пробелы, раскладка) дают одинаковый ключ
+     *
+     * @return строка с условиями фильтра
+     */
+    public String toCacheKey() {
+        String[][] variants = getFioVariants();
+        return String.join("|",
+                variants == null ? "" : Arrays.stream(variants)
+                        .map(word -> Arrays.stream(word).map(String::toLowerCase).sorted()
+                                .collect(Collectors.joining("/")))
+                        .collect(Collectors.joining(" ")),
+                city == null ? "" : city.trim().toLowerCase(),
+                String.valueOf(minAge),
+                String.valueOf(maxAge),
+                String.valueOf(gender));
     }
 
     /**
      * Составляет единую спецификацию для всех слов из поля fio
      *
-     * @param fio массив токенов на которые разбито поле fio
+     * @param fio варианты написания для каждого слова из поля fio
      * @return единую спецификацию
      */
-    public Specification<User> appendSpecifications(String[] fio) {
+    public Specification<User> appendSpecifications(String[][] fio) {
 
         Specification<User> specification = Specification.where(createBaseSpecification(fio[0]));
         for (int i = 1; i < fio.length; i++) {
@@ -87,13 +169,39 @@ public class BaseFilter {
 
     /**
      * Составляет базовую спецификацию для одного слова из строки fio.
-     * Базовая спецификация проверяет присутствие слова в имени или фамилии пользователя.
+     * Базовая спецификация проверяет присутствие любого из вариантов слова в имени или фамилии
+     * пользователя. Все варианты объединяются через OR в одном условии, поэтому на PostgreSQL
+     * триграммные индексы по lower(name) и lower(surname) проверяют их за один проход по таблице
      *
-     * @param fioPart токен из строки fio
+     * @param fioPart варианты написания токена из строки fio
      * @return базовую спецификацию для токена из строки fio
      */
-    public Specification<User> createBaseSpecification(String fioPart) {
-        return Specification.where(BaseSpecification.<User>like("name", fioPart))
-                .or(BaseSpecification.<User>like("surname", fioPart));
+    public Specification<User> createBaseSpecification(String[] fioPart) {
+        Specification<User> specification = Specification.where(null);
+        for (String variant : fioPart) {
+            specification = specification
+                    .or(BaseSpecification.<User>like("name", variant))
+                    .or(BaseSpecification.<User>like("surname", variant));
+        }
+        return specification;
+    }
+
+    /**
+     * Разбивает поисковую строку на слова и добавляет к каждому вариант в другой раскладке
+     *
+     * @param fio поисковая строка
+     * @return варианты слов или null, если строка не задана
+     */
+    private static String[][] fioVariants(String fio) {
+        if (fio == null) { return null; }
+        return Arrays.stream(fio.split(" "))
+                .filter(token -> !token.isEmpty())
+                .map(token -> {
+                    String switched = KeyboardConverter.switchLayout(token);
+                    return switched == token || switched.equals(token.toLowerCase())
+                            ? new String[]{token}
+                            : new String[]{token, switched};
+                })
+                .toArray(String[][]::new);
     }
 }
@@ -1,22 +1,61 @@
 package com.example.social_network.service.filters;
 import com.example.social_network.domain.User;
+import com.example.social_network.domain.UserSearch;
 import com.example.social_network.service.Specification.BaseSpecification;
-import lombok.AllArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Collection;
+
 /**
  * Фильтр друзей конкретного пользователя по полям-критериям
  */
 
 @Setter
-@AllArgsConstructor
 public class FriendFilter extends BaseFilter {
 
     private User user;
 
+    /**
+     * Идентификаторы друзей из графа дружбы. Если заданы, используются вместо подзапросов
+     * к таблице friendship. Заполняется сервисом
+     */
+    private Collection<Long> friendIds;
+
+    /**
+     * Второй пользователь для поиска общих друзей: друг должен быть и у него.
+     * Не используется, если заданы friendIds - тогда это уже общие друзья. Заполняется сервисом
+     */
+    private User mutualUser;
+
+    public FriendFilter(User user) {
+        this.user = user;
+    }
+
     @Override
     public Specification<User> toSpecification() {
-        return Specification.where(BaseSpecification.isFriend(user)).and(super.toSpecification());
+        Specification<User> friends;
+        if (friendIds != null) {
+            friends = BaseSpecification.in("id", friendIds);
+        } else if (mutualUser != null) {
+            friends = Specification.where(BaseSpecification.isFriend(user)).and(BaseSpecification.isFriend(mutualUser));
+        } else {
+            friends = BaseSpecification.isFriend(user);
+        }
+        return Specification.where(friends).and(super.toSpecification());
+    }
+
+    @Override
+    public Specification<UserSearch> toSearchSpecification() {
+        Specification<UserSearch> friends;
+        if (friendIds != null) {
+            friends = BaseSpecification.in("id", friendIds);
+        } else if (mutualUser != null) {
+            friends = Specification.where(BaseSpecification.<UserSearch>isFriend(user.getId()))
+                    .and(BaseSpecification.isFriend(mutualUser.getId()));
+        } else {
+            friends = BaseSpecification.isFriend(user.getId());
+        }
+        return Specification.where(friends).and(super.toSearchSpecification());
     }
 }
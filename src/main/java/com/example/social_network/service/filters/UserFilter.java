@@ -1,10 +1,13 @@
 package com.example.social_network.service.filters;
 
 import com.example.social_network.domain.User;
+import com.example.social_network.domain.UserSearch;
 import com.example.social_network.service.Specification.BaseSpecification;
 import lombok.Setter;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Collection;
+
 /**
  * Получает всех пользователей, кроме самого пользователя и его друзей
  */
@@ -16,12 +19,29 @@ public class UserFilter extends BaseFilter {
      */
     private User user;
 
+    /**
+     * Идентификаторы друзей пользователя и его самого из графа дружбы. Если заданы,
+     * используются вместо подзапросов к таблице friendship. Заполняется сервисом
+     */
+    private Collection<Long> excludedIds;
+
     /**
      * Спецификация
      * @return
      */
     @Override
     public Specification<User> toSpecification() {
-        return BaseSpecification.notFriend(user).and(super.toSpecification());
+        Specification<User> notFriends = excludedIds != null
+                ? BaseSpecification.notIn("id", excludedIds)
+                : BaseSpecification.notFriend(user);
+        return Specification.where(notFriends).and(super.toSpecification());
+    }
+
+    @Override
+    public Specification<UserSearch> toSearchSpecification() {
+        Specification<UserSearch> notFriends = excludedIds != null
+                ? BaseSpecification.notIn("id", excludedIds)
+                : BaseSpecification.notFriend(user.getId());
+        return Specification.where(notFriends).and(super.toSearchSpecification());
     }
 }
@@ -0,0 +1,80 @@
+package com.example.social_network.service.generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Генератор графа дружбы по модели предпочтительного присоединения (Барабаши - Альберт).
+ *
+ * Первые edgesPerNode + 1 вершин связаны все со всеми, каждая следующая вершина дружит
+ * с edgesPerNode разными предыдущими, выбранными с вероятностью, пропорциональной их степени.
+ * Степени вершин распределены по степенному закону: у большинства немного друзей,
+ * у небольшого числа вершин - тысячи, как в реальных социальных сетях.
+ *
+ * Выбор пропорционально степени - случайный элемент массива концов уже созданных ребер,
+ * тот же массив является результатом
+ */
+public class FriendGraphGenerator {
+
+    /**
+     * Число попыток выбрать новую вершину пропорционально степени, после которого
+     * оставшиеся друзья выбираются равномерно. Нужно только для очень маленьких графов
+     */
+    private static final int MAX_ATTEMPTS_PER_EDGE = 16;
+
+    private FriendGraphGenerator() {
+    }
+
+    /**
+     * Строит граф
+     *
+     * @param nodes число вершин
+     * @param edgesPerNode число друзей, которых добавляет каждая новая вершина;
+     *                     средняя степень вершины получается около 2 * edgesPerNode
+     * @param random источник случайных чисел, определяет весь граф
+     * @return ребра парами номеров вершин: edges[2k], edges[2k + 1], каждое ребро один раз
+     */
+    public static int[] preferentialAttachment(int nodes, int edgesPerNode, SplittableRandom random) {
+        int m = Math.min(edgesPerNode, nodes - 1);
+        if (m <= 0) {
+            return new int[0];
+        }
+        long edgeCount = (long) m * (m + 1) / 2 + (long) (nodes - m - 1) * m;
+        if (edgeCount * 2 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Graph is too large: " + edgeCount + " edges");
+        }
+        int[] edges = new int[(int) edgeCount * 2];
+        int size = 0;
+        for (int a = 0; a <= m; a++) {
+            for (int b = a + 1; b <= m; b++) {
+                edges[size++] = a;
+                edges[size++] = b;
+            }
+        }
+
+        int[] targets = new int[m];
+        for (int node = m + 1; node < nodes; node++) {
+            int chosen = 0;
+            int attempts = 0;
+            // концы ребер, добавленных этой вершиной, в выборе не участвуют
+            int ends = size;
+            while (chosen < m) {
+                int target = attempts++ < MAX_ATTEMPTS_PER_EDGE * m
+                        ? edges[random.nextInt(ends)]
+                        : random.nextInt(node);
+                if (!contains(targets, chosen, target)) {
+                    targets[chosen++] = target;
+                    edges[size++] = node;
+                    edges[size++] = target;
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) { return true; }
+        }
+        return false;
+    }
+}
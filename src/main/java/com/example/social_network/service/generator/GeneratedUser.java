@@ -0,0 +1,26 @@
+package com.example.social_network.service.generator;
+
+import com.example.social_network.utils.Genders;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Сгенерированный пользователь до вставки в БД
+ */
+@Value
+public class GeneratedUser {
+
+    String name;
+
+    String surname;
+
+    /**
+     * Дата рождения, может быть не указана
+     */
+    LocalDate dateOfBirth;
+
+    Genders gender;
+
+    Long cityId;
+}
@@ -0,0 +1,93 @@
+package com.example.social_network.service.generator;
+
+import com.example.social_network.utils.Genders;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Словари имен и фамилий генератора: русские и латинские, отдельно мужские и женские имена.
+ * Порядок в списках - от более частых к более редким, частоты задаются распределением Ципфа.
+ * Женские русские фамилии образуются из мужских (Иванов - Иванова, Островский - Островская)
+ */
+final class NamePools {
+
+    private static final List<String> RU_MALE = List.of(
+            "Александр", "Сергей", "Дмитрий", "Андрей", "Алексей", "Максим", "Евгений", "Иван",
+            "Михаил", "Артём", "Николай", "Владимир", "Денис", "Павел", "Роман", "Олег", "Игорь",
+            "Никита", "Кирилл", "Антон", "Илья", "Юрий", "Виктор", "Константин", "Егор", "Вячеслав",
+            "Степан", "Тимур", "Григорий", "Фёдор", "Матвей", "Лев", "Борис", "Глеб", "Пётр");
+
+    private static final List<String> RU_FEMALE = List.of(
+            "Елена", "Ольга", "Наталья", "Татьяна", "Анна", "Мария", "Ирина", "Екатерина", "Светлана",
+            "Юлия", "Анастасия", "Дарья", "Марина", "Людмила", "Валентина", "Галина", "Ксения", "Алина",
+            "Виктория", "Полина", "Софья", "Надежда", "Вера", "Любовь", "Елизавета", "Александра",
+            "Кристина", "Оксана", "Алёна", "Варвара", "Ульяна", "Василиса", "Лариса", "Нина", "Зоя");
+
+    private static final List<String> RU_SURNAMES = List.of(
+            "Иванов", "Смирнов", "Кузнецов", "Попов", "Васильев", "Петров", "Соколов", "Михайлов",
+            "Новиков", "Фёдоров", "Морозов", "Волков", "Алексеев", "Лебедев", "Семёнов", "Егоров",
+            "Павлов", "Козлов", "Степанов", "Николаев", "Орлов", "Андреев", "Макаров", "Никитин",
+            "Захаров", "Зайцев", "Соловьёв", "Борисов", "Яковлев", "Григорьев", "Романов", "Воробьёв",
+            "Сергеев", "Кузьмин", "Фролов", "Александров", "Дмитриев", "Королёв", "Гусев", "Киселёв",
+            "Ильин", "Максимов", "Поляков", "Сорокин", "Виноградов", "Ковалёв", "Белов", "Медведев",
+            "Антонов", "Тарасов", "Жуков", "Баранов", "Филиппов", "Комаров", "Давыдов", "Беляев",
+            "Герасимов", "Богданов", "Осипов", "Сидоров", "Матвеев", "Титов", "Марков", "Миронов",
+            "Крылов", "Куликов", "Карпов", "Власов", "Мельников", "Денисов", "Гаврилов", "Тихонов",
+            "Казаков", "Афанасьев", "Данилов", "Савельев", "Тимофеев", "Фомин", "Чернов", "Абрамов",
+            "Островский", "Покровский", "Никольский", "Вишневский", "Высоцкий", "Черных", "Седых");
+
+    private static final List<String> LATIN_MALE = List.of(
+            "James", "John", "Robert", "Michael", "David", "William", "Thomas", "Daniel", "Mark",
+            "Paul", "Peter", "Alex", "Max", "Leon", "Lucas", "Noah", "Oliver", "Jan", "Luca", "Hugo");
+
+    private static final List<String> LATIN_FEMALE = List.of(
+            "Mary", "Anna", "Emma", "Olivia", "Sophia", "Emily", "Laura", "Julia", "Sarah", "Maria",
+            "Eva", "Lisa", "Kate", "Helen", "Alice", "Mia", "Chloe", "Lena", "Clara", "Giulia");
+
+    private static final List<String> LATIN_SURNAMES = List.of(
+            "Smith", "Johnson", "Brown", "Miller", "Wilson", "Taylor", "Anderson", "Moore", "Martin",
+            "Schmidt", "Schneider", "Fischer", "Weber", "Garcia", "Martinez", "Lopez", "Rossi",
+            "Bianchi", "Dubois", "Lefebvre", "Novak", "Horvat", "Jensen", "Nielsen", "Lee", "Kim");
+
+    private final WeightedPool<String> ruMale = new WeightedPool<>(RU_MALE, 1.0);
+
+    private final WeightedPool<String> ruFemale = new WeightedPool<>(RU_FEMALE, 1.0);
+
+    private final WeightedPool<String> ruSurnames = new WeightedPool<>(RU_SURNAMES, 0.8);
+
+    private final WeightedPool<String> latinMale = new WeightedPool<>(LATIN_MALE, 1.0);
+
+    private final WeightedPool<String> latinFemale = new WeightedPool<>(LATIN_FEMALE, 1.0);
+
+    private final WeightedPool<String> latinSurnames = new WeightedPool<>(LATIN_SURNAMES, 0.8);
+
+    String name(Genders gender, boolean latin, SplittableRandom random) {
+        if (latin) {
+            return (gender == Genders.F ? latinFemale : latinMale).next(random);
+        }
+        return (gender == Genders.F ? ruFemale : ruMale).next(random);
+    }
+
+    String surname(Genders gender, boolean latin, SplittableRandom random) {
+        if (latin) {
+            return latinSurnames.next(random);
+        }
+        String surname = ruSurnames.next(random);
+        return gender == Genders.F ? feminine(surname) : surname;
+    }
+
+    /**
+     * Женская форма русской фамилии. Несклоняемые фамилии (Черных) не меняются
+     */
+    static String feminine(String surname) {
+        if (surname.endsWith("ий")) {
+            return surname.substring(0, surname.length() - 2) + "ая";
+        }
+        if (surname.endsWith("ов") || surname.endsWith("ев") || surname.endsWith("ёв")
+                || surname.endsWith("ин") || surname.endsWith("ын")) {
+            return surname + "а";
+        }
+        return surname;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.social_network.service.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Генерация синтетической социальной сети для нагрузочных тестов и бенчмарков.
+ *
+ * Пользователи и граф дружбы строятся детерминированно по spec.seed: при одинаковых
+ * параметрах и пустой БД получаются одинаковые данные. Запись идет порциями по
+ * sn.generator.chunk-size строк, каждая порция в своей транзакции.
+ *
+ * Граф дружбы и индексы в памяти не получают событий о сгенерированных данных:
+ * после генерации в работающем приложении их нужно перезагрузить. {@link ScaleDataRunner}
+ * выполняется до ApplicationReadyEvent, поэтому при запуске с профилем scale они строятся уже по новым данным
+ */
+@Slf4j
+@Service
+public class ScaleDataGenerator {
+
+    private final ScaleDataLoader loader;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    public ScaleDataGenerator(ScaleDataLoader loader,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${sn.generator.chunk-size:10000}") int chunkSize) {
+        this.loader = loader;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Генерирует и записывает пользователей и дружбу между ними
+     *
+     * @param spec параметры генерации
+     * @return идентификаторы созданных пользователей по номерам вершин графа
+     */
+    public long[] generate(ScaleDataSpec spec) {
+        long start = System.currentTimeMillis();
+        SplittableRandom root = new SplittableRandom(spec.getSeed());
+        SplittableRandom userRandom = root.split();
+        SplittableRandom graphRandom = root.split();
+
+        List<Long> cityIds = transactionTemplate.execute(status -> {
+            if (loader.cityIds().isEmpty() && spec.getCities() > 0) {
+                loader.insertCities(spec.getCities());
+            }
+            return loader.cityIds();
+        });
+        UserGenerator users = new UserGenerator(cityIds, spec.getLatinShare(), userRandom);
+        long[] ids = new long[spec.getUsers()];
+        for (int from = 0; from < ids.length; from += chunkSize) {
+            int offset = from;
+            List<GeneratedUser> chunk = new ArrayList<>(Math.min(chunkSize, ids.length - from));
+            for (int i = from; i < Math.min(from + chunkSize, ids.length); i++) {
+                chunk.add(users.next());
+            }
+            transactionTemplate.executeWithoutResult(status -> loader.insertUsers(chunk, ids, offset));
+        }
+        log.info("Generated {} users in {} ms", ids.length, System.currentTimeMillis() - start);
+
+        int[] edges = FriendGraphGenerator.preferentialAttachment(
+                ids.length, Math.max(1, spec.getAverageFriends() / 2), graphRandom);
+        int edgeCount = edges.length / 2;
+        for (int from = 0; from < edgeCount; from += chunkSize) {
+            int to = Math.min(from + chunkSize, edgeCount);
+            int first = from;
+            transactionTemplate.executeWithoutResult(status -> loader.insertFriendships(ids, edges, first, to));
+        }
+        for (int from = 0; from < ids.length; from += chunkSize) {
+            long[] chunk = Arrays.copyOfRange(ids, from, Math.min(from + chunkSize, ids.length));
+            long fromId = Arrays.stream(chunk).min().getAsLong();
+            long toId = Arrays.stream(chunk).max().getAsLong();
+            transactionTemplate.executeWithoutResult(status -> loader.updateFriendsCounts(fromId, toId));
+        }
+        log.info("Generated {} users and {} friendships in {} ms",
+                ids.length, edgeCount, System.currentTimeMillis() - start);
+        return ids;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.social_network.service.generator;
+
+import com.example.social_network.service.search.UserSearchWriter;
+import com.example.social_network.utils.DatabaseDialect;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Пакетная запись сгенерированных данных в обход Hibernate.
+ *
+ * В PostgreSQL пользователи и дружба передаются командой COPY, идентификаторы пользователей
+ * заранее выбираются из последовательности. В H2 используются многострочные INSERT
+ * по {@value #INSERT_ROWS} строк (пользователи - с возвратом ключей).
+ * Значения берутся из словарей генератора и не содержат спецсимволов COPY, поэтому не экранируются.
+ * Методы вызываются внутри транзакции, соединение берется из нее
+ */
+@Component
+public class ScaleDataLoader {
+
+    private static final int INSERT_ROWS = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final UserSearchWriter userSearchWriter;
+
+    private volatile Boolean postgres;
+
+    public ScaleDataLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userSearchWriter = new UserSearchWriter(jdbcTemplate);
+    }
+
+    /**
+     * Число пользователей в БД
+     */
+    public long countUsers() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+
+    /**
+     * Идентификаторы городов справочника
+     */
+    public List<Long> cityIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM cities ORDER BY id", Long.class);
+    }
+
+    /**
+     * Создает города "Город N", распределенные по регионам справочника по кругу.
+     * Нужен, если справочник городов не заполнен
+     *
+     * @param count число городов
+     */
+    public void insertCities(int count) {
+        List<Long> regions = jdbcTemplate.queryForList("SELECT id FROM regions ORDER BY id", Long.class);
+        jdbcTemplate.batchUpdate("INSERT INTO cities (name, region_id) VALUES (?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, "Город " + (i + 1));
+                        if (regions.isEmpty()) {
+                            ps.setNull(2, Types.INTEGER);
+                        } else {
+                            ps.setLong(2, regions.get(i % regions.size()));
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return count;
+                    }
+                });
+    }
+
+    /**
+     * Вставляет пользователей и их строки в таблицу поиска user_search
+     *
+     * @param users пользователи
+     * @param ids массив для идентификаторов, заполняется с позиции offset в порядке пользователей
+     * @param offset позиция первого пользователя в ids
+     */
+    public void insertUsers(List<GeneratedUser> users, long[] ids, int offset) {
+        if (users.isEmpty()) { return; }
+        if (isPostgres()) {
+            copyUsers(users, ids, offset);
+        } else {
+            insertUserRows(users, ids, offset);
+        }
+        long fromId = Long.MAX_VALUE;
+        long toId = Long.MIN_VALUE;
+        for (int i = offset; i < offset + users.size(); i++) {
+            fromId = Math.min(fromId, ids[i]);
+            toId = Math.max(toId, ids[i]);
+        }
+        userSearchWriter.refreshRange(fromId, toId);
+    }
+
+    /**
+     * Вставляет дружбу в обоих направлениях
+     *
+     * @param ids идентификаторы пользователей по номерам вершин графа
+     * @param edges ребра графа парами номеров вершин
+     * @param from номер первого ребра
+     * @param to номер ребра после последнего
+     */
+    public void insertFriendships(long[] ids, int[] edges, int from, int to) {
+        if (from >= to) { return; }
+        if (isPostgres()) {
+            StringBuilder data = new StringBuilder((to - from) * 32);
+            for (int edge = from; edge < to; edge++) {
+                long a = ids[edges[2 * edge]];
+                long b = ids[edges[2 * edge + 1]];
+                data.append(a).append('\t').append(b).append('\n');
+                data.append(b).append('\t').append(a).append('\n');
+            }
+            copy("COPY friendship (id_user, id_friend) FROM STDIN", data);
+            return;
+        }
+        for (int start = from; start < to; start += INSERT_ROWS) {
+            int first = start;
+            int count = Math.min(INSERT_ROWS, to - start);
+            StringBuilder sql = new StringBuilder("INSERT INTO friendship (id_user, id_friend) VALUES ");
+            for (int i = 0; i < count * 2; i++) {
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            }
+            jdbcTemplate.update(sql.toString(), ps -> {
+                for (int i = 0; i < count; i++) {
+                    long a = ids[edges[2 * (first + i)]];
+                    long b = ids[edges[2 * (first + i) + 1]];
+                    ps.setLong(4 * i + 1, a);
+                    ps.setLong(4 * i + 2, b);
+                    ps.setLong(4 * i + 3, b);
+                    ps.setLong(4 * i + 4, a);
+                }
+            });
+        }
+    }
+
+    /**
+     * Пересчитывает количество друзей пользователей с id в диапазоне [fromId, toId]
+     *
+     * @param fromId первый идентификатор
+     * @param toId последний идентификатор
+     */
+    public void updateFriendsCounts(long fromId, long toId) {
+        jdbcTemplate.update("UPDATE users SET friends_count = "
+                + "(SELECT COUNT(*) FROM friendship f WHERE f.id_user = users.id) WHERE id BETWEEN ? AND ?", fromId, toId);
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = DatabaseDialect.isPostgres(jdbcTemplate);
+        }
+        return postgres;
+    }
+
+    private void copyUsers(List<GeneratedUser> users, long[] ids, int offset) {
+        List<Long> generated = jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('users', 'id')) FROM generate_series(1, ?)",
+                Long.class, users.size());
+        StringBuilder data = new StringBuilder(users.size() * 64);
+        for (int i = 0; i < users.size(); i++) {
+            GeneratedUser user = users.get(i);
+            ids[offset + i] = generated.get(i);
+            data.append(generated.get(i)).append('\t')
+                    .append(user.getName()).append('\t')
+                    .append(user.getSurname()).append('\t')
+                    .append(user.getDateOfBirth() == null ? "\\N" : user.getDateOfBirth().toString()).append('\t')
+                    .append(user.getGender()).append('\t')
+                    .append(user.getCityId() == null ? "\\N" : user.getCityId().toString()).append('\n');
+        }
+        copy("COPY users (id, name, surname, date_of_birth, gender, city_id) FROM STDIN", data);
+    }
+
+    private void copy(String sql, StringBuilder data) {
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(sql, new StringReader(data.toString()));
+            } catch (IOException e) {
+                throw new SQLException("COPY failed", e);
+            }
+        });
+    }
+
+    private void insertUserRows(List<GeneratedUser> users, long[] ids, int offset) {
+        for (int from = 0; from < users.size(); from += INSERT_ROWS) {
+            List<GeneratedUser> part = users.subList(from, Math.min(from + INSERT_ROWS, users.size()));
+            int position = offset + from;
+            StringBuilder sql = new StringBuilder(
+                    "INSERT INTO users (name, surname, date_of_birth, gender, city_id) VALUES ");
+            for (int i = 0; i < part.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+            }
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = 0; i < part.size(); i++) {
+                        GeneratedUser user = part.get(i);
+                        ps.setString(5 * i + 1, user.getName());
+                        ps.setString(5 * i + 2, user.getSurname());
+                        ps.setDate(5 * i + 3, user.getDateOfBirth() == null ? null : Date.valueOf(user.getDateOfBirth()));
+                        ps.setString(5 * i + 4, user.getGender().name());
+                        if (user.getCityId() == null) {
+                            ps.setNull(5 * i + 5, Types.INTEGER);
+                        } else {
+                            ps.setLong(5 * i + 5, user.getCityId());
+                        }
+                    }
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        int i = position;
+                        while (keys.next()) {
+                            ids[i++] = keys.getLong(1);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.social_network.service.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Генерация данных при запуске приложения, включается профилем scale или явно:
+ *
+ * java -jar social_network.jar --sn.generator.users=1000000 [--sn.generator.seed=42]
+ *      [--sn.generator.avg-friends=20] [--sn.generator.latin-share=0.1]
+ *
+ * Если в БД уже есть не меньше sn.generator.users пользователей, генерация пропускается,
+ * поэтому повторные запуски на той же БД переиспользуют данные
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("sn.generator.users")
+public class ScaleDataRunner implements ApplicationRunner {
+
+    private final ScaleDataGenerator generator;
+
+    private final ScaleDataLoader loader;
+
+    private final ScaleDataSpec spec;
+
+    public ScaleDataRunner(ScaleDataGenerator generator,
+                           ScaleDataLoader loader,
+                           @Value("${sn.generator.users}") int users,
+                           @Value("${sn.generator.seed:42}") long seed,
+                           @Value("${sn.generator.avg-friends:20}") int averageFriends,
+                           @Value("${sn.generator.latin-share:0.1}") double latinShare,
+                           @Value("${sn.generator.cities:200}") int cities) {
+        this.generator = generator;
+        this.loader = loader;
+        this.spec = ScaleDataSpec.builder()
+                .users(users)
+                .seed(seed)
+                .averageFriends(averageFriends)
+                .latinShare(latinShare)
+                .cities(cities)
+                .build();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long existing = loader.countUsers();
+        if (existing >= spec.getUsers()) {
+            log.info("Data generation skipped: {} users already present", existing);
+            return;
+        }
+        log.info("Generate data: {}", spec);
+        generator.generate(spec);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.social_network.service.generator;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Параметры генерации данных
+ */
+@Value
+@Builder
+public class ScaleDataSpec {
+
+    /**
+     * Число пользователей
+     */
+    int users;
+
+    /**
+     * Начальное значение генератора случайных чисел: одинаковые параметры дают одинаковые данные
+     */
+    @Builder.Default
+    long seed = 42;
+
+    /**
+     * Среднее число друзей пользователя
+     */
+    @Builder.Default
+    int averageFriends = 20;
+
+    /**
+     * Доля пользователей с латинскими именами
+     */
+    @Builder.Default
+    double latinShare = 0.1;
+
+    /**
+     * Число городов, которые создаются, если справочник городов пуст
+     */
+    @Builder.Default
+    int cities = 200;
+}
@@ -0,0 +1,65 @@
+package com.example.social_network.service.generator;
+
+import com.example.social_network.utils.Genders;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор анкет пользователей. При одинаковом начальном состоянии random
+ * и одинаковом списке городов выдает одну и ту же последовательность пользователей.
+ *
+ * Имена и фамилии берутся из словарей с частотами по Ципфу, доля латинских имен задается
+ * параметром. Города распределены по Ципфу в порядке списка: первые города самые крупные.
+ * Годы рождения сосредоточены около середины диапазона, у части пользователей дата не указана
+ */
+public class UserGenerator {
+
+    private static final int FIRST_BIRTH_YEAR = 1945;
+
+    private static final int LAST_BIRTH_YEAR = 2008;
+
+    private static final double FEMALE_SHARE = 0.53;
+
+    private static final double NO_BIRTH_DATE_SHARE = 0.05;
+
+    private final NamePools names = new NamePools();
+
+    private final WeightedPool<Long> cities;
+
+    private final double latinShare;
+
+    private final SplittableRandom random;
+
+    /**
+     * @param cityIds идентификаторы городов от самого крупного к самому мелкому
+     * @param latinShare доля пользователей с латинскими именами, от 0 до 1
+     * @param random источник случайных чисел, определяет всю последовательность
+     */
+    public UserGenerator(List<Long> cityIds, double latinShare, SplittableRandom random) {
+        this.cities = cityIds.isEmpty() ? null : new WeightedPool<>(cityIds, 1.0);
+        this.latinShare = latinShare;
+        this.random = random;
+    }
+
+    public GeneratedUser next() {
+        Genders gender = random.nextDouble() < FEMALE_SHARE ? Genders.F : Genders.M;
+        boolean latin = random.nextDouble() < latinShare;
+        String name = names.name(gender, latin, random);
+        String surname = names.surname(gender, latin, random);
+        LocalDate dateOfBirth = random.nextDouble() < NO_BIRTH_DATE_SHARE ? null : dateOfBirth();
+        Long cityId = cities == null ? null : cities.next(random);
+        return new GeneratedUser(name, surname, dateOfBirth, gender, cityId);
+    }
+
+    /**
+     * Среднее трех равномерных величин: колоколообразное распределение по годам рождения
+     */
+    private LocalDate dateOfBirth() {
+        double position = (random.nextDouble() + random.nextDouble() + random.nextDouble()) / 3;
+        int year = FIRST_BIRTH_YEAR + (int) (position * (LAST_BIRTH_YEAR - FIRST_BIRTH_YEAR + 1));
+        LocalDate first = LocalDate.of(year, 1, 1);
+        return first.plusDays(random.nextInt(first.lengthOfYear()));
+    }
+}
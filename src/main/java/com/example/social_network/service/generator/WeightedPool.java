@@ -0,0 +1,36 @@
+package com.example.social_network.service.generator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Набор значений с распределением Ципфа: вес значения с номером k пропорционален 1 / k^exponent.
+ * Значения перечисляются от самого частого к самому редкому, как имена и фамилии
+ * в статистике или города по численности населения
+ */
+final class WeightedPool<T> {
+
+    private final List<T> values;
+
+    private final double[] cumulative;
+
+    WeightedPool(List<T> values, double exponent) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Pool is empty");
+        }
+        this.values = values;
+        this.cumulative = new double[values.size()];
+        double sum = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+    }
+
+    T next(SplittableRandom random) {
+        double point = random.nextDouble() * cumulative[cumulative.length - 1];
+        int i = Arrays.binarySearch(cumulative, point);
+        return values.get(i >= 0 ? i : Math.min(-i - 1, cumulative.length - 1));
+    }
+}
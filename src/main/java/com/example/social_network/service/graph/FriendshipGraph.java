@@ -0,0 +1,362 @@
+package com.example.social_network.service.graph;
+
+import java.util.Arrays;
+
+/**
+ * Граф дружбы пользователей в памяти.
+ *
+ * Хранится в формате CSR (compressed sparse row): массив смещений offsets и общий массив
+ * идентификаторов друзей targets, где друзья вершины v занимают отрезок
+ * [offsets[v], offsets[v + 1]) и отсортированы по возрастанию. Дружба симметрична,
+ * поэтому каждое ребро хранится в строках обеих вершин. Идентификатор вершины совпадает
+ * с id пользователя (SERIAL в БД помещается в int), упакованные Long/User не используются.
+ *
+ * Модель конкурентности: все данные лежат в неизменяемом {@link Snapshot}, ссылка на который
+ * публикуется через volatile поле. Читатели не берут блокировок и работают с одним снимком
+ * от начала до конца операции. Писатели сериализуются блокировкой: строки двух затронутых
+ * вершин копируются и кладутся в небольшую таблицу изменений снимка (copy-on-write),
+ * после чего публикуется новый снимок. Когда таблица изменений превышает порог,
+ * граф уплотняется в новый CSR.
+ *
+ * Объем памяти: 4 байта на вершину в offsets и 8 байт на дружбу (две записи в targets).
+ * Для 10M дружб и 1M пользователей это ~80 МБ + ~4 МБ, для 10M пользователей ~80 МБ + ~40 МБ.
+ * Во время загрузки и уплотнения временно требуется еще столько же.
+ * Для сравнения, Map&lt;Long, Set&lt;Long&gt;&gt; на тех же данных занимает порядка 1.5-2 ГБ.
+ */
+public class FriendshipGraph {
+
+    private final int compactionThreshold;
+
+    private final Object writeLock = new Object();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * @param compactionThreshold количество измененных строк, после которого граф уплотняется
+     */
+    public FriendshipGraph(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Текущий снимок графа. Для операций, читающих несколько вершин,
+     * следует брать снимок один раз и работать только с ним
+     *
+     * @return неизменяемый снимок
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Заменяет граф построенным по списку ребер
+     *
+     * @param from массив первых вершин ребер
+     * @param to массив вторых вершин ребер
+     * @param count количество ребер в массивах
+     */
+    public void load(int[] from, int[] to, int count) {
+        Snapshot loaded = Snapshot.build(from, to, count);
+        synchronized (writeLock) {
+            snapshot = loaded;
+        }
+    }
+
+    /**
+     * Друзья пользователя
+     *
+     * @param id идентификатор пользователя
+     * @return отсортированный список друзей
+     */
+    public Neighbours neighbours(int id) {
+        return snapshot.neighbours(id);
+    }
+
+    /**
+     * Проверяет, являются ли пользователи друзьями
+     */
+    public boolean areFriends(int a, int b) {
+        return snapshot.neighbours(a).contains(b);
+    }
+
+    /**
+     * Добавляет дружбу
+     *
+     * @return true, если граф изменился
+     */
+    public boolean addEdge(int a, int b) {
+        if (a == b) { return false; }
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Neighbours rowA = current.neighbours(a);
+            if (rowA.contains(b)) { return false; }
+            IntArrayMap changes = current.changes.copy(2);
+            changes.put(a, insert(rowA, b));
+            changes.put(b, insert(current.neighbours(b), a));
+            publish(current, changes, current.edgeCount + 1);
+            return true;
+        }
+    }
+
+    /**
+     * Удаляет дружбу
+     *
+     * @return true, если граф изменился
+     */
+    public boolean removeEdge(int a, int b) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Neighbours rowA = current.neighbours(a);
+            if (!rowA.contains(b)) { return false; }
+            IntArrayMap changes = current.changes.copy(2);
+            changes.put(a, remove(rowA, b));
+            changes.put(b, remove(current.neighbours(b), a));
+            publish(current, changes, current.edgeCount - 1);
+            return true;
+        }
+    }
+
+    /**
+     * Добавляет дружбы пользователя a со всеми пользователями others одним изменением снимка
+     *
+     * @return количество добавленных дружб
+     */
+    public int addEdges(int a, int[] others) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Neighbours rowA = current.neighbours(a);
+            int[] added = Arrays.stream(others)
+                    .filter(b -> b != a && !rowA.contains(b))
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            if (added.length == 0) { return 0; }
+            IntArrayMap changes = current.changes.copy(added.length + 1);
+            changes.put(a, merge(rowA, added));
+            for (int b : added) {
+                changes.put(b, insert(current.neighbours(b), a));
+            }
+            publish(current, changes, current.edgeCount + added.length);
+            return added.length;
+        }
+    }
+
+    /**
+     * Удаляет дружбы пользователя a со всеми пользователями others одним изменением снимка
+     *
+     * @return количество удаленных дружб
+     */
+    public int removeEdges(int a, int[] others) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Neighbours rowA = current.neighbours(a);
+            int[] removed = Arrays.stream(others)
+                    .filter(rowA::contains)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            if (removed.length == 0) { return 0; }
+            IntArrayMap changes = current.changes.copy(removed.length + 1);
+            int[] row = new int[rowA.size() - removed.length];
+            int j = 0;
+            for (int i = 0; i < rowA.size(); i++) {
+                if (Arrays.binarySearch(removed, rowA.get(i)) < 0) {
+                    row[j++] = rowA.get(i);
+                }
+            }
+            changes.put(a, row);
+            for (int b : removed) {
+                changes.put(b, remove(current.neighbours(b), a));
+            }
+            publish(current, changes, current.edgeCount - removed.length);
+            return removed.length;
+        }
+    }
+
+    /**
+     * Удаляет все дружбы пользователя (например, при удалении пользователя)
+     *
+     * @param id идентификатор пользователя
+     */
+    public void removeVertex(int id) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Neighbours row = current.neighbours(id);
+            if (row.size() == 0) { return; }
+            IntArrayMap changes = current.changes.copy(row.size() + 1);
+            for (int i = 0; i < row.size(); i++) {
+                int friend = row.get(i);
+                changes.put(friend, remove(current.neighbours(friend), id));
+            }
+            changes.put(id, new int[0]);
+            publish(current, changes, current.edgeCount - row.size());
+        }
+    }
+
+    private void publish(Snapshot current, IntArrayMap changes, long edgeCount) {
+        Snapshot next = new Snapshot(current.offsets, current.targets, changes, edgeCount);
+        snapshot = changes.size() > compactionThreshold ? next.compact() : next;
+    }
+
+    private static int[] insert(Neighbours row, int id) {
+        int[] result = new int[row.size() + 1];
+        int i = 0;
+        for (; i < row.size() && row.get(i) < id; i++) {
+            result[i] = row.get(i);
+        }
+        result[i] = id;
+        for (; i < row.size(); i++) {
+            result[i + 1] = row.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Слияние отсортированной строки с отсортированным массивом новых идентификаторов
+     */
+    private static int[] merge(Neighbours row, int[] ids) {
+        int[] result = new int[row.size() + ids.length];
+        int i = 0, j = 0, k = 0;
+        while (i < row.size() || j < ids.length) {
+            if (j == ids.length || (i < row.size() && row.get(i) < ids[j])) {
+                result[k++] = row.get(i++);
+            } else {
+                result[k++] = ids[j++];
+            }
+        }
+        return result;
+    }
+
+    private static int[] remove(Neighbours row, int id) {
+        int[] result = new int[row.size() - 1];
+        int j = 0;
+        for (int i = 0; i < row.size(); i++) {
+            if (row.get(i) != id) {
+                result[j++] = row.get(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Неизменяемый снимок графа: CSR и таблица строк, измененных после последнего уплотнения
+     */
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new int[1], new int[0], IntArrayMap.EMPTY, 0);
+
+        private final int[] offsets;
+        private final int[] targets;
+        private final IntArrayMap changes;
+        private final long edgeCount;
+
+        private Snapshot(int[] offsets, int[] targets, IntArrayMap changes, long edgeCount) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.changes = changes;
+            this.edgeCount = edgeCount;
+        }
+
+        /**
+         * Друзья пользователя
+         *
+         * @param id идентификатор пользователя
+         * @return отсортированный список друзей
+         */
+        public Neighbours neighbours(int id) {
+            if (id < 0) { return Neighbours.EMPTY; }
+            int[] changed = changes.get(id);
+            if (changed != null) {
+                return new Neighbours(changed, 0, changed.length);
+            }
+            if (id + 1 >= offsets.length) { return Neighbours.EMPTY; }
+            return new Neighbours(targets, offsets[id], offsets[id + 1]);
+        }
+
+        /**
+         * Количество друзей пользователя
+         */
+        public int degree(int id) {
+            return neighbours(id).size();
+        }
+
+        /**
+         * Количество дружб в графе
+         */
+        public long edgeCount() {
+            return edgeCount;
+        }
+
+        /**
+         * Верхняя граница идентификаторов вершин (не включительно)
+         */
+        public int vertexBound() {
+            return Math.max(offsets.length - 1, changes.maxKey() + 1);
+        }
+
+        /**
+         * Переносит измененные строки в новый CSR
+         */
+        Snapshot compact() {
+            int n = vertexBound();
+            int[] newOffsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                newOffsets[v + 1] = newOffsets[v] + degree(v);
+            }
+            int[] newTargets = new int[newOffsets[n]];
+            for (int v = 0; v < n; v++) {
+                Neighbours row = neighbours(v);
+                for (int i = 0; i < row.size(); i++) {
+                    newTargets[newOffsets[v] + i] = row.get(i);
+                }
+            }
+            return new Snapshot(newOffsets, newTargets, IntArrayMap.EMPTY, edgeCount);
+        }
+
+        /**
+         * Строит CSR по списку ребер. Петли отбрасываются, повторы (в том числе одна дружба,
+         * записанная в обоих направлениях) схлопываются
+         */
+        static Snapshot build(int[] from, int[] to, int count) {
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                n = Math.max(n, Math.max(from[i], to[i]) + 1);
+            }
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < count; i++) {
+                if (from[i] != to[i]) {
+                    offsets[from[i] + 1]++;
+                    offsets[to[i] + 1]++;
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] targets = new int[offsets[n]];
+            int[] position = Arrays.copyOf(offsets, n);
+            for (int i = 0; i < count; i++) {
+                if (from[i] != to[i]) {
+                    targets[position[from[i]]++] = to[i];
+                    targets[position[to[i]]++] = from[i];
+                }
+            }
+
+            // сортировка строк и удаление повторов на месте
+            int written = 0;
+            for (int v = 0; v < n; v++) {
+                int start = offsets[v];
+                int end = offsets[v + 1];
+                offsets[v] = written;
+                Arrays.sort(targets, start, end);
+                for (int i = start; i < end; i++) {
+                    if (i == start || targets[i] != targets[i - 1]) {
+                        targets[written++] = targets[i];
+                    }
+                }
+            }
+            offsets[n] = written;
+            return new Snapshot(offsets, written == targets.length ? targets : Arrays.copyOf(targets, written),
+                    IntArrayMap.EMPTY, written / 2);
+        }
+    }
+}
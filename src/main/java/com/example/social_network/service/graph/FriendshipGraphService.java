@@ -0,0 +1,286 @@
+package com.example.social_network.service.graph;
+
+import com.example.social_network.datasource.ReadReplicaDataSource;
+import com.example.social_network.service.events.FriendshipBatchChangedEvent;
+import com.example.social_network.service.events.FriendshipChangedEvent;
+import com.example.social_network.service.events.UserDeletedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис графа дружбы в памяти. Загружает таблицу friendship при старте приложения
+ * и поддерживает граф в актуальном состоянии по событиям изменения дружбы,
+ * которые применяются после фиксации транзакции.
+ *
+ * События приходят только от этого экземпляра приложения. Дружба, записанная другим экземпляром
+ * или в обход сервиса (загрузка данных, ручные правки), попадает в граф при полной перезагрузке
+ * каждые sn.graph.reload-interval (ноль - только при старте), до нее списки друзей из графа
+ * могут ее не содержать. Если такое отставание недопустимо, граф выключается sn.graph.enabled=false
+ *
+ * Пока граф не загружен (или выключен настройкой sn.graph.enabled), методы чтения
+ * возвращают null и вызывающий код использует запросы к БД
+ */
+@Slf4j
+@Service
+public class FriendshipGraphService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final FriendshipGraph graph;
+
+    private final boolean enabled;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Изменения, пришедшие во время загрузки графа. Применяются к загруженному графу повторно,
+     * операции идемпотентны, поэтому двойное применение безопасно
+     */
+    private final List<Runnable> pending = new ArrayList<>();
+
+    private boolean loading;
+
+    private volatile boolean ready;
+
+    public FriendshipGraphService(DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${sn.graph.enabled:true}") boolean enabled,
+                                  @Value("${sn.graph.compaction-threshold:8192}") int compactionThreshold,
+                                  @Value("${sn.graph.reload-interval:10m}") Duration reloadInterval) {
+        // потоковое чтение таблицы без загрузки всего результата в память драйвера
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.graph = new FriendshipGraph(compactionThreshold);
+        if (!enabled || reloadInterval.isZero() || reloadInterval.isNegative()) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "friendship-graph-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = reloadInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::reloadLogged, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Загрузка графа при старте приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Полностью перечитывает таблицу friendship с основной БД. Дружба хранится в обоих направлениях,
+     * граф строится по одной записи из пары. Читатели до конца загрузки работают с прежним графом
+     */
+    public synchronized void reload() {
+        synchronized (pending) {
+            loading = true;
+            pending.clear();
+        }
+        long start = System.currentTimeMillis();
+        boolean loaded = false;
+        try {
+            EdgeBuffer edges = new EdgeBuffer();
+            // с основной БД: строки, которых нет на отстающей реплике, событиями уже не придут
+            ReadReplicaDataSource.onPrimary(() -> transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.query("SELECT id_user, id_friend FROM friendship WHERE id_user < id_friend",
+                            rs -> { edges.add(rs.getInt(1), rs.getInt(2)); })));
+            graph.load(edges.from, edges.to, edges.size);
+            loaded = true;
+        } finally {
+            synchronized (pending) {
+                pending.forEach(Runnable::run);
+                pending.clear();
+                loading = false;
+                ready = ready || loaded;
+            }
+        }
+        log.info("Friendship graph loaded: {} friendships in {} ms",
+                graph.snapshot().edgeCount(), System.currentTimeMillis() - start);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void reloadLogged() {
+        try {
+            reload();
+        } catch (RuntimeException ex) {
+            log.error("Friendship graph reload failed", ex);
+        }
+    }
+
+    /**
+     * Признак того, что граф загружен и может использоваться вместо запросов к БД
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Текущий снимок графа
+     *
+     * @return снимок или null, если граф не загружен
+     */
+    public FriendshipGraph.Snapshot snapshot() {
+        return ready ? graph.snapshot() : null;
+    }
+
+    /**
+     * Идентификаторы друзей пользователя
+     *
+     * @param userId идентификатор пользователя
+     * @return идентификаторы друзей или null, если граф не загружен
+     */
+    public List<Long> friendIds(Long userId) {
+        if (!ready) { return null; }
+        return toLongs(graph.neighbours(userId.intValue()), null);
+    }
+
+    /**
+     * Идентификаторы пользователей, которых нужно исключить из поиска от лица пользователя:
+     * его друзья и он сам
+     *
+     * @param userId идентификатор пользователя
+     * @return идентификаторы или null, если граф не загружен
+     */
+    public List<Long> exclusionIds(Long userId) {
+        if (!ready) { return null; }
+        return toLongs(graph.neighbours(userId.intValue()), userId);
+    }
+
+    /**
+     * Общие друзья двух пользователей
+     *
+     * @param userId идентификатор пользователя
+     * @param otherId идентификатор другого пользователя
+     * @return идентификаторы общих друзей по возрастанию или null, если граф не загружен
+     */
+    public List<Long> mutualFriendIds(Long userId, Long otherId) {
+        if (!ready) { return null; }
+        FriendshipGraph.Snapshot snapshot = graph.snapshot();
+        int[] common = snapshot.neighbours(userId.intValue()).intersect(snapshot.neighbours(otherId.intValue()));
+        List<Long> ids = new ArrayList<>(common.length);
+        for (int id : common) {
+            ids.add((long) id);
+        }
+        return ids;
+    }
+
+    /**
+     * Количество общих друзей пользователя с каждым из других пользователей
+     *
+     * @param userId идентификатор пользователя
+     * @param otherIds идентификаторы других пользователей
+     * @return идентификатор -> количество общих друзей или null, если граф не загружен
+     */
+    public Map<Long, Integer> mutualFriendCounts(Long userId, Collection<Long> otherIds) {
+        if (!ready) { return null; }
+        FriendshipGraph.Snapshot snapshot = graph.snapshot();
+        Neighbours friends = snapshot.neighbours(userId.intValue());
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        for (Long otherId : otherIds) {
+            counts.put(otherId, friends.intersectionSize(snapshot.neighbours(otherId.intValue())));
+        }
+        return counts;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        int a = event.getUserId().intValue();
+        int b = event.getFriendId().intValue();
+        apply(event.isAdded() ? () -> graph.addEdge(a, b) : () -> graph.removeEdge(a, b));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipBatchChanged(FriendshipBatchChangedEvent event) {
+        int a = event.getUserId().intValue();
+        int[] removed = event.getRemovedIds().stream().mapToInt(Long::intValue).toArray();
+        int[] added = event.getAddedIds().stream().mapToInt(Long::intValue).toArray();
+        apply(() -> {
+            graph.removeEdges(a, removed);
+            graph.addEdges(a, added);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        int id = event.getUserId().intValue();
+        apply(() -> graph.removeVertex(id));
+    }
+
+    private void apply(Runnable change) {
+        synchronized (pending) {
+            if (loading) {
+                pending.add(change);
+                return;
+            }
+        }
+        change.run();
+    }
+
+    private static List<Long> toLongs(Neighbours neighbours, Long extra) {
+        List<Long> ids = new ArrayList<>(neighbours.size() + 1);
+        for (int i = 0; i < neighbours.size(); i++) {
+            ids.add((long) neighbours.get(i));
+        }
+        if (extra != null) {
+            ids.add(extra);
+        }
+        return ids;
+    }
+
+    /**
+     * Растущий буфер ребер на примитивных массивах
+     */
+    private static class EdgeBuffer {
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        int size;
+
+        void add(int a, int b) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+            }
+            from[size] = a;
+            to[size] = b;
+            size++;
+        }
+    }
+}
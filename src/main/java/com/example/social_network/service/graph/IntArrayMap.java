@@ -0,0 +1,100 @@
+package com.example.social_network.service.graph;
+
+import java.util.Arrays;
+
+/**
+ * Хэш-таблица с открытой адресацией: int ключ -> int[] значение.
+ * Не хранит упакованных ключей. Используется графом дружбы как набор строк смежности,
+ * измененных после последнего уплотнения. После публикации экземпляр не изменяется,
+ * запись выполняется в копию (copy-on-write)
+ */
+final class IntArrayMap {
+
+    private static final int FREE = Integer.MIN_VALUE;
+
+    static final IntArrayMap EMPTY = new IntArrayMap(4);
+
+    private final int[] keys;
+    private final int[][] values;
+    private int size;
+
+    private IntArrayMap(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity][];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * Значение по ключу
+     *
+     * @param key ключ
+     * @return значение или null, если ключа нет
+     */
+    int[] get(int key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) { return values[i]; }
+            if (k == FREE) { return null; }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Создает копию таблицы с запасом под extra новых ключей
+     *
+     * @param extra количество ключей, которые будут добавлены в копию
+     * @return изменяемая копия, которую можно наполнять через {@link #put} до публикации
+     */
+    IntArrayMap copy(int extra) {
+        int capacity = keys.length;
+        while ((size + extra) * 2 > capacity) {
+            capacity <<= 1;
+        }
+        IntArrayMap copy = new IntArrayMap(capacity);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                copy.put(keys[i], values[i]);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Добавляет или заменяет значение. Допустимо только для копии, еще не переданной другим потокам
+     */
+    void put(int key, int[] value) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            if (keys[i] == FREE) {
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Максимальный ключ таблицы
+     */
+    int maxKey() {
+        int max = -1;
+        for (int key : keys) {
+            if (key != FREE && key > max) { max = key; }
+        }
+        return max;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.social_network.service.graph;
+
+import java.util.Arrays;
+
+/**
+ * Хэш-таблица с открытой адресацией: int ключ -> int значение (например, счетчик).
+ * Используется для обхода графа без упаковки идентификаторов в Integer/Long
+ */
+public final class IntIntMap {
+
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * @param expectedSize ожидаемое количество ключей
+     */
+    public IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * Значение по ключу
+     *
+     * @return значение или defaultValue, если ключа нет
+     */
+    public int get(int key, int defaultValue) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) { return values[i]; }
+            if (keys[i] == FREE) { return defaultValue; }
+        }
+    }
+
+    /**
+     * Проверяет наличие ключа
+     */
+    public boolean containsKey(int key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) { return true; }
+            if (keys[i] == FREE) { return false; }
+        }
+    }
+
+    /**
+     * Добавляет значение, если ключа еще нет
+     *
+     * @return true, если ключ добавлен
+     */
+    public boolean putIfAbsent(int key, int value) {
+        int i = slot(key);
+        if (keys[i] == key) { return false; }
+        insert(i, key, value);
+        return true;
+    }
+
+    /**
+     * Увеличивает значение по ключу на delta, отсутствующий ключ считается равным 0
+     *
+     * @return новое значение
+     */
+    public int add(int key, int delta) {
+        int i = slot(key);
+        if (keys[i] == key) {
+            return values[i] += delta;
+        }
+        insert(i, key, delta);
+        return delta;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Обход всех пар ключ-значение
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != FREE && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void insert(int slot, int key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                insert(slot(oldKeys[i]), oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Обработчик пары ключ-значение
+     */
+    public interface Visitor {
+        void visit(int key, int value);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.social_network.service.graph;
+
+import java.util.Arrays;
+
+/**
+ * Отсортированный по возрастанию список друзей вершины графа.
+ * Является представлением части массива снимка графа, данные не копируются
+ */
+public final class Neighbours {
+
+    static final Neighbours EMPTY = new Neighbours(new int[0], 0, 0);
+
+    /**
+     * Во сколько раз длинный список должен превышать короткий, чтобы пересечение
+     * искалось бинарным поиском вместо слияния
+     */
+    private static final int GALLOP_RATIO = 32;
+
+    private final int[] ids;
+    private final int from;
+    private final int to;
+
+    Neighbours(int[] ids, int from, int to) {
+        this.ids = ids;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Количество друзей
+     */
+    public int size() {
+        return to - from;
+    }
+
+    /**
+     * Идентификатор друга по порядковому номеру
+     *
+     * @param index номер в отсортированном списке
+     * @return идентификатор друга
+     */
+    public int get(int index) {
+        return ids[from + index];
+    }
+
+    /**
+     * Проверяет наличие друга бинарным поиском
+     *
+     * @param id идентификатор пользователя
+     * @return true, если пользователь есть в списке
+     */
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, from, to, id) >= 0;
+    }
+
+    /**
+     * Общие друзья двух вершин. Если один список много длиннее другого, элементы короткого
+     * ищутся в длинном бинарным поиском, иначе списки сливаются за один проход.
+     * Результат занимает не больше памяти, чем короткий список
+     *
+     * @param other друзья другой вершины
+     * @return отсортированный массив общих друзей
+     */
+    public int[] intersect(Neighbours other) {
+        Neighbours small = size() <= other.size() ? this : other;
+        Neighbours large = small == this ? other : this;
+        int[] common = new int[small.size()];
+        int count = 0;
+        if (gallops(small, large)) {
+            int from = large.from;
+            for (int i = small.from; i < small.to; i++) {
+                int found = Arrays.binarySearch(large.ids, from, large.to, small.ids[i]);
+                if (found >= 0) {
+                    common[count++] = small.ids[i];
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+        } else {
+            int i = small.from;
+            int j = large.from;
+            while (i < small.to && j < large.to) {
+                int a = small.ids[i];
+                int b = large.ids[j];
+                if (a == b) {
+                    common[count++] = a;
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+        return count == common.length ? common : Arrays.copyOf(common, count);
+    }
+
+    /**
+     * Количество общих друзей двух вершин без построения их списка
+     *
+     * @param other друзья другой вершины
+     * @return количество общих друзей
+     */
+    public int intersectionSize(Neighbours other) {
+        Neighbours small = size() <= other.size() ? this : other;
+        Neighbours large = small == this ? other : this;
+        int count = 0;
+        if (gallops(small, large)) {
+            int from = large.from;
+            for (int i = small.from; i < small.to; i++) {
+                int found = Arrays.binarySearch(large.ids, from, large.to, small.ids[i]);
+                if (found >= 0) {
+                    count++;
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            return count;
+        }
+        int i = small.from;
+        int j = large.from;
+        while (i < small.to && j < large.to) {
+            int a = small.ids[i];
+            int b = large.ids[j];
+            if (a == b) {
+                count++;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Бинарный поиск выгоднее слияния, когда log2(large) * small меньше small + large
+     */
+    private static boolean gallops(Neighbours small, Neighbours large) {
+        return small.size() * GALLOP_RATIO < large.size();
+    }
+
+    /**
+     * Копия списка друзей
+     *
+     * @return новый отсортированный массив
+     */
+    public int[] toArray() {
+        return Arrays.copyOfRange(ids, from, to);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.social_network.service.graph;
+
+import java.util.Arrays;
+
+/**
+ * Кратчайший путь дружбы между двумя пользователями двунаправленным поиском в ширину.
+ *
+ * Поиск идет одновременно от обоих пользователей слоями. На каждом шаге расширяется
+ * меньший фронт - тот, у вершин которого меньше друзей в сумме, поэтому хаб на одной стороне
+ * не раскрывается, пока другая сторона дешевле. Посещенные вершины каждой стороны хранятся
+ * в {@link IntIntMap} (вершина -> предок на пути), слой раскрывается целиком, и из встреч
+ * на нем выбирается кратчайшая.
+ *
+ * Поиск ограничен глубиной maxDepth (суммарная длина пути) и бюджетом просмотренных друзей
+ * nodeBudget: когда бюджет исчерпан, поиск прекращается без ответа, а не обходит граф целиком
+ */
+public final class ShortestPath {
+
+    private static final int NO_PARENT = -1;
+
+    private final FriendshipGraph.Snapshot graph;
+    private final int maxDepth;
+    private final int nodeBudget;
+    private int scanned;
+
+    private ShortestPath(FriendshipGraph.Snapshot graph, int maxDepth, int nodeBudget) {
+        this.graph = graph;
+        this.maxDepth = maxDepth;
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Ищет кратчайший путь дружбы
+     *
+     * @param graph снимок графа дружбы
+     * @param from идентификатор первого пользователя
+     * @param to идентификатор второго пользователя
+     * @param maxDepth наибольшая длина пути
+     * @param nodeBudget наибольшее количество просмотренных друзей за весь поиск
+     * @return результат поиска
+     */
+    public static Result find(FriendshipGraph.Snapshot graph, int from, int to, int maxDepth, int nodeBudget) {
+        return new ShortestPath(graph, maxDepth, nodeBudget).search(from, to);
+    }
+
+    private Result search(int from, int to) {
+        if (from == to) {
+            return new Result(new int[]{from}, false, 0);
+        }
+        int expected = Math.min(nodeBudget, 1024);
+        IntIntMap forward = new IntIntMap(expected);
+        IntIntMap backward = new IntIntMap(expected);
+        forward.putIfAbsent(from, NO_PARENT);
+        backward.putIfAbsent(to, NO_PARENT);
+        int[] forwardFrontier = {from};
+        int[] backwardFrontier = {to};
+        int depth = 0;
+
+        while (depth < maxDepth && forwardFrontier.length > 0 && backwardFrontier.length > 0) {
+            boolean expandForward = cost(forwardFrontier) <= cost(backwardFrontier);
+            IntIntMap own = expandForward ? forward : backward;
+            IntIntMap other = expandForward ? backward : forward;
+            Layer layer = expand(expandForward ? forwardFrontier : backwardFrontier, own, other);
+            if (layer == null) {
+                return new Result(null, true, scanned);
+            }
+            depth++;
+            if (layer.meeting != NO_PARENT) {
+                return new Result(path(layer.meeting, forward, backward), false, scanned);
+            }
+            if (expandForward) {
+                forwardFrontier = layer.frontier;
+            } else {
+                backwardFrontier = layer.frontier;
+            }
+        }
+        return new Result(null, false, scanned);
+    }
+
+    /**
+     * Раскрывает слой: все еще не посещенные друзья вершин фронта становятся следующим фронтом
+     *
+     * @return следующий слой или null, если исчерпан бюджет
+     */
+    private Layer expand(int[] frontier, IntIntMap own, IntIntMap other) {
+        int[] next = new int[Math.max(16, frontier.length)];
+        int size = 0;
+        int meeting = NO_PARENT;
+        int meetingLength = Integer.MAX_VALUE;
+        for (int u : frontier) {
+            Neighbours friends = graph.neighbours(u);
+            for (int i = 0; i < friends.size(); i++) {
+                if (++scanned > nodeBudget) {
+                    return null;
+                }
+                int v = friends.get(i);
+                if (!own.putIfAbsent(v, u)) {
+                    continue;
+                }
+                if (other.containsKey(v)) {
+                    int length = length(v, other);
+                    if (length < meetingLength) {
+                        meeting = v;
+                        meetingLength = length;
+                    }
+                    continue;
+                }
+                if (size == next.length) {
+                    next = Arrays.copyOf(next, size * 2);
+                }
+                next[size++] = v;
+            }
+        }
+        return new Layer(Arrays.copyOf(next, size), meeting);
+    }
+
+    /**
+     * Количество друзей у вершин фронта - сколько просмотров стоит его раскрытие
+     */
+    private long cost(int[] frontier) {
+        long cost = 0;
+        for (int v : frontier) {
+            cost += graph.degree(v);
+        }
+        return cost;
+    }
+
+    /**
+     * Расстояние от вершины до начала ее стороны по цепочке предков
+     */
+    private static int length(int v, IntIntMap parents) {
+        int length = 0;
+        for (int p = parents.get(v, NO_PARENT); p != NO_PARENT; p = parents.get(p, NO_PARENT)) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Собирает путь через точку встречи: предки по прямой стороне в обратном порядке,
+     * затем предки по обратной стороне
+     */
+    private static int[] path(int meeting, IntIntMap forward, IntIntMap backward) {
+        int head = length(meeting, forward);
+        int[] path = new int[head + 1 + length(meeting, backward)];
+        int v = meeting;
+        for (int i = head; i >= 0; i--) {
+            path[i] = v;
+            v = forward.get(v, NO_PARENT);
+        }
+        v = backward.get(meeting, NO_PARENT);
+        for (int i = head + 1; i < path.length; i++) {
+            path[i] = v;
+            v = backward.get(v, NO_PARENT);
+        }
+        return path;
+    }
+
+    private static final class Layer {
+        final int[] frontier;
+        final int meeting;
+
+        Layer(int[] frontier, int meeting) {
+            this.frontier = frontier;
+            this.meeting = meeting;
+        }
+    }
+
+    /**
+     * Результат поиска
+     */
+    public static final class Result {
+
+        private final int[] path;
+        private final boolean exhausted;
+        private final int scanned;
+
+        Result(int[] path, boolean exhausted, int scanned) {
+            this.path = path;
+            this.exhausted = exhausted;
+            this.scanned = scanned;
+        }
+
+        /**
+         * Путь от первого пользователя ко второму включительно
+         *
+         * @return идентификаторы пользователей или null, если путь не найден
+         */
+        public int[] getPath() {
+            return path;
+        }
+
+        /**
+         * Поиск остановлен бюджетом, отсутствие пути не доказано
+         */
+        public boolean isExhausted() {
+            return exhausted;
+        }
+
+        /**
+         * Количество просмотренных друзей
+         */
+        public int getScanned() {
+            return scanned;
+        }
+    }
+}
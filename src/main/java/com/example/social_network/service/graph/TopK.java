@@ -0,0 +1,101 @@
+package com.example.social_network.service.graph;
+
+import java.util.Arrays;
+
+/**
+ * Отбор k лучших элементов по целочисленной оценке с помощью min-кучи на массиве long.
+ * Оценка и идентификатор упаковываются в одно значение, при равной оценке
+ * выше ставится меньший идентификатор
+ */
+public final class TopK {
+
+    private final long[] heap;
+    private int size;
+
+    public TopK(int k) {
+        heap = new long[Math.max(k, 0)];
+    }
+
+    /**
+     * Предлагает элемент. Если куча заполнена, элемент вытесняет худший только если он лучше
+     *
+     * @param id идентификатор (неотрицательный)
+     * @param score оценка (неотрицательная)
+     */
+    public void offer(int id, int score) {
+        if (heap.length == 0) { return; }
+        long packed = ((long) score << 32) | (Integer.MAX_VALUE - id);
+        if (size < heap.length) {
+            heap[size] = packed;
+            siftUp(size++);
+        } else if (packed > heap[0]) {
+            heap[0] = packed;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Идентификаторы в порядке убывания оценки
+     */
+    public int[] ids() {
+        long[] sorted = sortedDescending();
+        int[] ids = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ids[i] = Integer.MAX_VALUE - (int) sorted[i];
+        }
+        return ids;
+    }
+
+    /**
+     * Оценки в том же порядке, что и {@link #ids()}
+     */
+    public int[] scores() {
+        long[] sorted = sortedDescending();
+        int[] scores = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            scores[i] = (int) (sorted[i] >>> 32);
+        }
+        return scores;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private long[] sortedDescending() {
+        long[] sorted = Arrays.copyOf(heap, size);
+        Arrays.sort(sorted);
+        for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+            long tmp = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = tmp;
+        }
+        return sorted;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= heap[i]) { return; }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) { return; }
+            int smallest = left + 1 < size && heap[left + 1] < heap[left] ? left + 1 : left;
+            if (heap[i] <= heap[smallest]) { return; }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.social_network.service.importing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Читатель CSV (RFC 4180): разделитель запятая, значения в двойных кавычках
+ * могут содержать запятые, переводы строк и удвоенные кавычки.
+ * Первая запись - заголовок с колонками name, surname и необязательной id
+ */
+class CsvRowReader implements ImportRowReader {
+
+    private final BufferedReader in;
+
+    private long line = 1;
+
+    private int idColumn = -1;
+
+    private int nameColumn = -1;
+
+    private int surnameColumn = -1;
+
+    private int columns;
+
+    CsvRowReader(Reader in) {
+        this.in = new BufferedReader(in);
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        if (columns == 0) {
+            readHeader();
+        }
+        List<String> record;
+        long start;
+        do {
+            start = line;
+            record = readRecord();
+            if (record == null) { return null; }
+        } while (record.size() == 1 && record.get(0).isEmpty());
+
+        if (record.size() != columns) {
+            return ImportRow.malformed(start, String.format("Expected %d columns, got %d", columns, record.size()));
+        }
+        return ImportRow.parsed(start,
+                idColumn < 0 ? null : emptyToNull(record.get(idColumn)),
+                emptyToNull(record.get(nameColumn)),
+                emptyToNull(record.get(surnameColumn)));
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header is missing");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            switch (header.get(i).trim().toLowerCase()) {
+                case "id": idColumn = i; break;
+                case "name": nameColumn = i; break;
+                case "surname": surnameColumn = i; break;
+                default: break;
+            }
+        }
+        if (nameColumn < 0 || surnameColumn < 0) {
+            throw new IllegalArgumentException("CSV header must contain name and surname columns");
+        }
+        columns = header.size();
+    }
+
+    /**
+     * Читает одну запись, которая может занимать несколько строк файла
+     *
+     * @return значения колонок или null, если файл закончился
+     */
+    private List<String> readRecord() throws IOException {
+        int c = in.read();
+        if (c < 0) { return null; }
+        List<String> values = new ArrayList<>(Math.max(columns, 4));
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (c >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        in.reset();
+                    }
+                } else {
+                    if (c == '\n') { line++; }
+                    value.append((char) c);
+                }
+            } else if (c == '"' && value.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    in.mark(1);
+                    if (in.read() != '\n') { in.reset(); }
+                }
+                line++;
+                break;
+            } else {
+                value.append((char) c);
+            }
+            c = in.read();
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
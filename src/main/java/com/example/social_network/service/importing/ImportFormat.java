@@ -0,0 +1,47 @@
+package com.example.social_network.service.importing;
+
+import java.io.Reader;
+
+/**
+ * Формат файла импорта пользователей
+ */
+public enum ImportFormat {
+
+    /**
+     * Один JSON объект на строку: {"id": "...", "name": "...", "surname": "..."}
+     */
+    NDJSON,
+
+    /**
+     * CSV с заголовком, обязательные колонки name и surname, необязательная id
+     */
+    CSV;
+
+    /**
+     * Определяет формат по явно заданному имени или по типу содержимого
+     *
+     * @param name имя формата, может быть null
+     * @param contentType тип содержимого запроса или расширение файла, может быть null
+     * @return формат, по умолчанию NDJSON
+     */
+    public static ImportFormat of(String name, String contentType) {
+        if (name != null && !name.isEmpty()) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown import format: " + name);
+            }
+        }
+        return contentType != null && contentType.toLowerCase().contains("csv") ? CSV : NDJSON;
+    }
+
+    /**
+     * Создает построчный читатель записей этого формата
+     *
+     * @param in входной поток символов
+     * @return читатель
+     */
+    ImportRowReader reader(Reader in) {
+        return this == CSV ? new CsvRowReader(in) : new NdjsonRowReader(in);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.social_network.service.importing;
+
+import com.example.social_network.dto.UserRegisterDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Запись файла импорта
+ */
+@Getter
+@AllArgsConstructor
+public class ImportRow {
+
+    /**
+     * Номер строки файла, с которой начинается запись
+     */
+    private final long line;
+
+    /**
+     * Идентификатор пользователя в исходной системе, может отсутствовать
+     */
+    private final String externalId;
+
+    /**
+     * Данные пользователя или null, если запись не разобрана
+     */
+    private final UserRegisterDto user;
+
+    /**
+     * Ошибка разбора записи
+     */
+    private final String error;
+
+    static ImportRow parsed(long line, String externalId, String name, String surname) {
+        return new ImportRow(line, externalId, new UserRegisterDto(name, surname), null);
+    }
+
+    static ImportRow malformed(long line, String error) {
+        return new ImportRow(line, null, null, error);
+    }
+}
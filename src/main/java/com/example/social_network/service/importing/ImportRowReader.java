@@ -0,0 +1,18 @@
+package com.example.social_network.service.importing;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Потоковый читатель записей файла импорта. Записи читаются по одной,
+ * файл целиком в память не загружается
+ */
+interface ImportRowReader extends Closeable {
+
+    /**
+     * Следующая запись
+     *
+     * @return запись или null, если файл закончился
+     */
+    ImportRow next() throws IOException;
+}
@@ -0,0 +1,57 @@
+package com.example.social_network.service.importing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Читатель NDJSON: каждая непустая строка - JSON объект с полями id, name, surname.
+ * Некорректная строка становится ошибочной записью и не прерывает чтение
+ */
+class NdjsonRowReader implements ImportRowReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final BufferedReader in;
+
+    private long line;
+
+    NdjsonRowReader(Reader in) {
+        this.in = new BufferedReader(in);
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String text;
+        do {
+            text = in.readLine();
+            line++;
+            if (text == null) { return null; }
+        } while (text.isBlank());
+
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(text);
+        } catch (JsonProcessingException e) {
+            return ImportRow.malformed(line, "Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            return ImportRow.malformed(line, "JSON object expected");
+        }
+        return ImportRow.parsed(line, text(node, "id"), text(node, "name"), text(node, "surname"));
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
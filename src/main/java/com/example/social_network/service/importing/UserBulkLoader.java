@@ -0,0 +1,122 @@
+package com.example.social_network.service.importing;
+
+import com.example.social_network.dto.UserRegisterDto;
+import com.example.social_network.utils.DatabaseDialect;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Пакетная вставка пользователей в обход Hibernate.
+ *
+ * В PostgreSQL идентификаторы заранее выбираются из последовательности users.id одним запросом,
+ * затем строки передаются командой COPY. В H2 используются многострочные INSERT
+ * по {@value #INSERT_ROWS} строк с возвратом сгенерированных ключей.
+ * Методы вызываются внутри транзакции, соединение берется из нее
+ */
+@Component
+public class UserBulkLoader {
+
+    private static final int INSERT_ROWS = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    public UserBulkLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Вставляет пользователей
+     *
+     * @param users проверенные данные пользователей
+     * @return идентификаторы в порядке пользователей
+     */
+    public List<Long> insert(List<UserRegisterDto> users) {
+        if (users.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (postgres == null) {
+            postgres = DatabaseDialect.isPostgres(jdbcTemplate);
+        }
+        return postgres ? copy(users) : insertRows(users);
+    }
+
+    private List<Long> copy(List<UserRegisterDto> users) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('users', 'id')) FROM generate_series(1, ?)",
+                Long.class, users.size());
+        StringBuilder data = new StringBuilder(users.size() * 32);
+        for (int i = 0; i < users.size(); i++) {
+            data.append(ids.get(i)).append('\t');
+            appendCopyValue(data, users.get(i).getName());
+            data.append('\t');
+            appendCopyValue(data, users.get(i).getSurname());
+            data.append('\n');
+        }
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("COPY users (id, name, surname) FROM STDIN", new StringReader(data.toString()));
+            } catch (IOException e) {
+                throw new SQLException("COPY failed", e);
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Экранирование значения для текстового формата COPY
+     */
+    private static void appendCopyValue(StringBuilder data, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': data.append("\\\\"); break;
+                case '\t': data.append("\\t"); break;
+                case '\n': data.append("\\n"); break;
+                case '\r': data.append("\\r"); break;
+                default: data.append(c);
+            }
+        }
+    }
+
+    private List<Long> insertRows(List<UserRegisterDto> users) {
+        List<Long> ids = new ArrayList<>(users.size());
+        for (int from = 0; from < users.size(); from += INSERT_ROWS) {
+            List<UserRegisterDto> part = users.subList(from, Math.min(from + INSERT_ROWS, users.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO users (name, surname) VALUES ");
+            for (int i = 0; i < part.size(); i++) {
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            }
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = 0; i < part.size(); i++) {
+                        ps.setString(2 * i + 1, part.get(i).getName());
+                        ps.setString(2 * i + 2, part.get(i).getSurname());
+                    }
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            ids.add(keys.getLong(1));
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.social_network.service.importing;
+
+import com.example.social_network.dto.ImportSummaryDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Импорт пользователей из файла при запуске приложения, без HTTP:
+ *
+ * java -jar social_network.jar --spring.main.web-application-type=none
+ *      --sn.import.file=users.csv [--sn.import.format=csv] [--sn.import.report=users.report.ndjson]
+ *
+ * Формат по умолчанию определяется по расширению файла, отчет по умолчанию пишется рядом с файлом
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("sn.import.file")
+public class UserImportRunner implements ApplicationRunner {
+
+    private final UserImportService userImportService;
+
+    private final Path file;
+
+    private final String format;
+
+    private final Path report;
+
+    public UserImportRunner(UserImportService userImportService,
+                            @Value("${sn.import.file}") String file,
+                            @Value("${sn.import.format:}") String format,
+                            @Value("${sn.import.report:}") String report) {
+        this.userImportService = userImportService;
+        this.file = Paths.get(file);
+        this.format = format;
+        this.report = Paths.get(report.isEmpty() ? file + ".report.ndjson" : report);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        log.info("Import users from {}, report to {}", file, report);
+        try (InputStream in = Files.newInputStream(file);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(report))) {
+            ImportSummaryDto summary = userImportService.importUsers(
+                    in, ImportFormat.of(format, file.getFileName().toString()), out);
+            log.info("Import finished: {} imported, {} rejected", summary.getImported(), summary.getRejected());
+        }
+    }
+}
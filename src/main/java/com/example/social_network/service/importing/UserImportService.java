@@ -0,0 +1,160 @@
+package com.example.social_network.service.importing;
+
+import com.example.social_network.dto.ImportRowResultDto;
+import com.example.social_network.dto.ImportSummaryDto;
+import com.example.social_network.dto.UserRegisterDto;
+import com.example.social_network.service.events.UserSavedEvent;
+import com.example.social_network.service.search.UserSearchWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Потоковый импорт пользователей из NDJSON или CSV.
+ *
+ * Записи читаются по одной и проверяются ограничениями {@link UserRegisterDto}.
+ * Корректные записи накапливаются в пачку размером sn.import.chunk-size, которая вставляется
+ * {@link UserBulkLoader} в отдельной транзакции вместе со строками таблицы поиска. Следующая пачка читается только после того,
+ * как отчет по предыдущей записан в выходной поток: если получатель отчета не успевает,
+ * чтение входного потока останавливается, память ограничена одной пачкой.
+ *
+ * Отчет - NDJSON: для каждой записи строка с номером строки файла, внешним id и новым id
+ * или ошибками проверки, последняя строка - итоги. При ошибке БД импорт прерывается,
+ * пачки из отчета уже зафиксированы, и импорт можно продолжить с первой незафиксированной записи
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final UserBulkLoader loader;
+
+    private final UserSearchWriter userSearchWriter;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int chunkSize;
+
+    public UserImportService(UserBulkLoader loader,
+                             UserSearchWriter userSearchWriter,
+                             Validator validator,
+                             PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${sn.import.chunk-size:5000}") int chunkSize) {
+        this.loader = loader;
+        this.userSearchWriter = userSearchWriter;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Импортирует пользователей из потока
+     *
+     * @param in входной поток в кодировке UTF-8
+     * @param format формат записей
+     * @param report поток для отчета по записям
+     * @return итоги импорта
+     */
+    public ImportSummaryDto importUsers(InputStream in, ImportFormat format, OutputStream report) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportSummaryDto summary = new ImportSummaryDto();
+        JsonGenerator out = MAPPER.getFactory().createGenerator(report);
+        out.setRootValueSeparator(null);
+        try (ImportRowReader reader = format.reader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            for (ImportRow row = reader.next(); row != null; row = reader.next()) {
+                Map<String, String> errors = validate(row);
+                if (!errors.isEmpty()) {
+                    write(out, ImportRowResultDto.builder()
+                            .line(row.getLine())
+                            .externalId(row.getExternalId())
+                            .errors(errors)
+                            .build());
+                    summary.setRejected(summary.getRejected() + 1);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    load(chunk, out, summary);
+                }
+            }
+            load(chunk, out, summary);
+        }
+        write(out, summary);
+        out.flush();
+        log.info("Imported {} users, rejected {} rows in {} ms",
+                summary.getImported(), summary.getRejected(), System.currentTimeMillis() - start);
+        return summary;
+    }
+
+    private Map<String, String> validate(ImportRow row) {
+        Map<String, String> errors = new TreeMap<>();
+        if (row.getUser() == null) {
+            errors.put("row", row.getError());
+            return errors;
+        }
+        Set<ConstraintViolation<UserRegisterDto>> violations = validator.validate(row.getUser());
+        for (ConstraintViolation<UserRegisterDto> violation : violations) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
+    /**
+     * Вставляет пачку в отдельной транзакции, пишет в отчет новые id и очищает пачку
+     */
+    private void load(List<ImportRow> chunk, JsonGenerator out, ImportSummaryDto summary) throws IOException {
+        if (chunk.isEmpty()) { return; }
+        List<UserRegisterDto> users = chunk.stream().map(ImportRow::getUser).collect(Collectors.toList());
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> inserted = loader.insert(users);
+            userSearchWriter.refresh(inserted);
+            for (int i = 0; i < users.size(); i++) {
+                eventPublisher.publishEvent(
+                        new UserSavedEvent(inserted.get(i), users.get(i).getName(), users.get(i).getSurname()));
+            }
+            return inserted;
+        });
+        for (int i = 0; i < chunk.size(); i++) {
+            write(out, ImportRowResultDto.builder()
+                    .line(chunk.get(i).getLine())
+                    .externalId(chunk.get(i).getExternalId())
+                    .id(ids.get(i))
+                    .build());
+        }
+        out.flush();
+        summary.setImported(summary.getImported() + chunk.size());
+        chunk.clear();
+    }
+
+    private static void write(JsonGenerator out, Object value) throws IOException {
+        MAPPER.writeValue(out, value);
+        out.writeRaw('\n');
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.social_network.service.pagination;
+
+import com.example.social_network.dto.ApproximatePage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш общего количества строк для режима {@link TotalMode#APPROXIMATE}.
+ *
+ * Ключ - нормализованный фильтр. Запрос COUNT выполняется при первом обращении по ключу,
+ * затем в течение sn.cache.count.ttl количество берется из кэша и помечается как приблизительное.
+ * Изменения данных кэш не отслеживает. На последней странице количество известно без COUNT
+ */
+@Component
+public class CountCache {
+
+    private final Cache<String, Long> cache;
+
+    public CountCache(@Value("${sn.cache.count.max-size:10000}") long maxSize,
+                      @Value("${sn.cache.count.ttl:30s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Дополняет срез общим количеством строк
+     *
+     * @param slice срез, полученный без COUNT
+     * @param key нормализованный фильтр
+     * @param count точный подсчет, выполняется, если количества нет в кэше
+     * @return страница с количеством
+     */
+    public <T> Page<T> page(Slice<T> slice, String key, LongSupplier count) {
+        long seen = slice.getPageable().isPaged()
+                ? slice.getPageable().getOffset() + slice.getNumberOfElements()
+                : slice.getNumberOfElements();
+        if (!slice.hasNext() && (slice.hasContent() || !slice.hasPrevious())) {
+            cache.put(key, seen);
+            return new ApproximatePage<>(slice.getContent(), slice.getPageable(), seen, false);
+        }
+        Long cached = cache.getIfPresent(key);
+        if (cached != null) {
+            // за время жизни записи строк могло стать больше, чем в кэше
+            long total = slice.hasNext() ? Math.max(cached, seen + 1) : cached;
+            return new ApproximatePage<>(slice.getContent(), slice.getPageable(), total, true);
+        }
+        long total = count.getAsLong();
+        cache.put(key, total);
+        return new ApproximatePage<>(slice.getContent(), slice.getPageable(), total, false);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.social_network.service.pagination;
+
+/**
+ * Способ получения общего количества строк для постраничного вывода
+ */
+public enum TotalMode {
+
+    /**
+     * Точное количество запросом COUNT для каждой страницы
+     */
+    EXACT,
+
+    /**
+     * Количество из кэша на короткое время, в ответе помечено как приблизительное
+     */
+    APPROXIMATE,
+
+    /**
+     * Без количества: только признак наличия следующей страницы
+     */
+    NONE;
+
+    /**
+     * Определяет способ по имени без учета регистра
+     *
+     * @param name имя, null или пустая строка - EXACT
+     * @return способ получения количества
+     */
+    public static TotalMode of(String name) {
+        if (name == null || name.isEmpty()) {
+            return EXACT;
+        }
+        try {
+            return valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown total mode: " + name);
+        }
+    }
+}
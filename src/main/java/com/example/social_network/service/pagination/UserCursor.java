@@ -0,0 +1,140 @@
+package com.example.social_network.service.pagination;
+
+import com.example.social_network.domain.User;
+import com.example.social_network.domain.UserSearch;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Токен продолжения для постраничного вывода по ключу (keyset / seek pagination).
+ * Хранит ключ сортировки последней отданной строки: (surname, name, id) для поиска
+ * пользователей или только id для списка друзей. Клиенту передается в виде
+ * непрозрачной строки
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class UserCursor {
+
+    /**
+     * Сортировка, согласованная с ключом (surname, name, id)
+     */
+    public static final Sort BY_FIO = Sort.by("surname", "name", "id");
+
+    /**
+     * Сортировка, согласованная с ключом id
+     */
+    public static final Sort BY_ID = Sort.by("id");
+
+    private static final char FIO = 'f';
+    private static final char ID = 'i';
+    private static final String SEPARATOR = "\u001F";
+
+    private final String surname;
+
+    private final String name;
+
+    private final Long id;
+
+    /**
+     * Курсор по ключу (surname, name, id)
+     *
+     * @param user последний пользователь на странице
+     * @return курсор
+     */
+    public static UserCursor byFio(User user) {
+        return byFio(user.getSurname(), user.getName(), user.getId());
+    }
+
+    /**
+     * Курсор по ключу (surname, name, id) из значений ключа, например из строки проекции
+     *
+     * @param surname фамилия последнего пользователя на странице
+     * @param name имя
+     * @param id идентификатор
+     * @return курсор
+     */
+    public static UserCursor byFio(String surname, String name, Long id) {
+        return new UserCursor(surname, name, id);
+    }
+
+    /**
+     * Курсор по ключу (surname, name, id) для строки таблицы поиска
+     *
+     * @param user последний пользователь на странице
+     * @return курсор
+     */
+    public static UserCursor byFio(UserSearch user) {
+        return byFio(user.getSurname(), user.getName(), user.getId());
+    }
+
+    /**
+     * Курсор по ключу id
+     *
+     * @param user последний пользователь на странице
+     * @return курсор
+     */
+    public static UserCursor byId(User user) {
+        return byId(user.getId());
+    }
+
+    /**
+     * Курсор по ключу id
+     *
+     * @param id идентификатор последнего пользователя на странице
+     * @return курсор
+     */
+    public static UserCursor byId(Long id) {
+        return new UserCursor(null, null, id);
+    }
+
+    /**
+     * Признак курсора по ключу (surname, name, id)
+     */
+    public boolean isByFio() {
+        return surname != null && name != null;
+    }
+
+    /**
+     * Кодирует курсор в непрозрачную строку
+     *
+     * @return токен продолжения
+     */
+    public String encode() {
+        String raw = isByFio()
+                ? FIO + SEPARATOR + id + SEPARATOR + surname + SEPARATOR + name
+                : ID + SEPARATOR + id;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Восстанавливает курсор из токена продолжения
+     *
+     * @param token токен, полученный от клиента
+     * @return курсор или null, если токен не передан
+     * @throws IllegalArgumentException если токен поврежден
+     */
+    public static UserCursor decode(String token) {
+        if (token == null || token.isEmpty()) { return null; }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            Long id = Long.valueOf(parts[1]);
+            if (parts[0].charAt(0) == FIO && parts.length == 4) {
+                return new UserCursor(parts[2], parts[3], id);
+            }
+            if (parts[0].charAt(0) == ID && parts.length == 2) {
+                return new UserCursor(null, null, id);
+            }
+        } catch (RuntimeException ignored) {
+            // некорректный base64 или id - обрабатывается ниже
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.social_network.service.search;
+
+import com.example.social_network.dto.CityDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Справочник городов в памяти приложения для автодополнения.
+ *
+ * Таблицы cities и regions - справочные данные, которые меняются только миграциями,
+ * поэтому они читаются один раз при старте в неизменяемый снимок:
+ * префиксное дерево по началам слов названия и триграммы для поиска по вхождению.
+ * Названия нормализуются (нижний регистр, ё -> е), dto городов создаются заранее,
+ * поиск не обращается к БД.
+ *
+ * Результаты упорядочены так: сначала города, у которых с поисковой строки начинается
+ * слово названия, затем остальные вхождения; внутри групп - по региону и названию.
+ * После миграций, меняющих справочник, снимок перестраивается методом {@link #reload()}
+ */
+@Slf4j
+@Component
+public class CityIndex {
+
+    /**
+     * Глубина префиксного дерева. Более длинные префиксы проверяются сравнением строк
+     * среди городов узла максимальной глубины
+     */
+    private static final int TRIE_DEPTH = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Snapshot snapshot;
+
+    public CityIndex(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Построение справочника при старте приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Перечитывает города и регионы из БД и заменяет снимок целиком.
+     * Поиски, начатые до замены, дорабатывают на старом снимке
+     */
+    public void reload() {
+        long start = System.currentTimeMillis();
+        List<Row> rows = jdbcTemplate.query(
+                "SELECT c.id, c.name, r.name FROM cities c LEFT JOIN regions r ON r.id = c.region_id",
+                (rs, rowNum) -> new Row(rs.getLong(1), rs.getString(2), rs.getString(3)));
+        snapshot = Snapshot.build(rows);
+        log.info("City index built: {} cities in {} ms", rows.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Признак того, что справочник загружен
+     */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Поиск городов по вхождению строки в название
+     *
+     * @param query поисковая строка, null или пустая строка - все города
+     * @return города в порядке ранжирования или null, если справочник не загружен
+     */
+    public List<CityDto> search(String query) {
+        Snapshot current = snapshot;
+        return current == null ? null : current.search(normalize(query));
+    }
+
+    /**
+     * Нижний регистр, ё -> е, пробелы по краям и повторные пробелы убираются
+     */
+    static String normalize(String text) {
+        if (text == null) { return ""; }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase().replace('ё', 'е');
+    }
+
+    private static boolean isWordStart(String name, int i) {
+        return i == 0 || !Character.isLetterOrDigit(name.charAt(i - 1));
+    }
+
+    /**
+     * Неизменяемый снимок справочника. Города пронумерованы в порядке (регион, название, id),
+     * поэтому отсортированный список номеров уже упорядочен по рангу
+     */
+    private static final class Snapshot {
+
+        private final CityDto[] cities;
+
+        private final String[] names;
+
+        private final Node trie;
+
+        private final Map<Long, int[]> trigrams;
+
+        private final int[] all;
+
+        private Snapshot(CityDto[] cities, String[] names, Node trie, Map<Long, int[]> trigrams) {
+            this.cities = cities;
+            this.names = names;
+            this.trie = trie;
+            this.trigrams = trigrams;
+            this.all = new int[cities.length];
+            Arrays.setAll(all, i -> i);
+        }
+
+        static Snapshot build(List<Row> rows) {
+            List<Row> sorted = new ArrayList<>(rows);
+            sorted.sort(Comparator.comparing((Row row) -> row.region, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(row -> row.name)
+                    .thenComparingLong(row -> row.id));
+
+            CityDto[] cities = new CityDto[sorted.size()];
+            String[] names = new String[sorted.size()];
+            NodeBuilder trie = new NodeBuilder();
+            Map<Long, Trigrams.IntBuffer> grams = new HashMap<>();
+            for (int pos = 0; pos < sorted.size(); pos++) {
+                Row row = sorted.get(pos);
+                cities[pos] = new CityDto(row.displayName, row.displayRegion);
+                String name = row.name;
+                names[pos] = name;
+                for (int i = 0; i < name.length(); i++) {
+                    if (isWordStart(name, i) && name.charAt(i) != ' ') {
+                        trie.insert(name, i, pos);
+                    }
+                }
+                for (long gram : Trigrams.of(name)) {
+                    grams.computeIfAbsent(gram, key -> new Trigrams.IntBuffer()).add(pos);
+                }
+            }
+            Map<Long, int[]> trigrams = new HashMap<>(grams.size() * 2);
+            grams.forEach((gram, ids) -> trigrams.put(gram, ids.toSortedArray()));
+            return new Snapshot(cities, names, trie.freeze(), trigrams);
+        }
+
+        List<CityDto> search(String query) {
+            if (query.isEmpty()) {
+                return view(all);
+            }
+            int[] prefix = prefixMatches(query);
+            int[] substring = substringMatches(query);
+            return view(concatExcluding(prefix, substring));
+        }
+
+        /**
+         * Города, у которых с query начинается какое-либо слово названия
+         */
+        private int[] prefixMatches(String query) {
+            Node node = trie;
+            int depth = Math.min(query.length(), TRIE_DEPTH);
+            for (int i = 0; i < depth && node != null; i++) {
+                node = node.child(query.charAt(i));
+            }
+            if (node == null) { return Trigrams.EMPTY; }
+            if (query.length() <= TRIE_DEPTH) { return node.ids; }
+
+            int[] result = new int[node.ids.length];
+            int count = 0;
+            for (int pos : node.ids) {
+                if (startsWord(names[pos], query)) {
+                    result[count++] = pos;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        /**
+         * Города, в названии которых есть вхождение query
+         */
+        private int[] substringMatches(String query) {
+            int[] candidates = all;
+            long[] grams = Trigrams.of(query);
+            if (grams.length > 0) {
+                int[][] lists = new int[grams.length][];
+                for (int i = 0; i < grams.length; i++) {
+                    lists[i] = trigrams.getOrDefault(grams[i], Trigrams.EMPTY);
+                }
+                Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+                candidates = lists[0];
+                for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+                    candidates = Trigrams.intersect(candidates, lists[i]);
+                }
+            }
+            int[] result = new int[candidates.length];
+            int count = 0;
+            for (int pos : candidates) {
+                if (names[pos].contains(query)) {
+                    result[count++] = pos;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private static boolean startsWord(String name, String query) {
+            for (int i = name.indexOf(query); i >= 0; i = name.indexOf(query, i + 1)) {
+                if (isWordStart(name, i)) { return true; }
+            }
+            return false;
+        }
+
+        /**
+         * Все элементы first, затем элементы second, которых нет в first. Оба массива отсортированы
+         */
+        private static int[] concatExcluding(int[] first, int[] second) {
+            int[] result = Arrays.copyOf(first, first.length + second.length);
+            int count = first.length;
+            int i = 0;
+            for (int pos : second) {
+                while (i < first.length && first[i] < pos) { i++; }
+                if (i == first.length || first[i] != pos) {
+                    result[count++] = pos;
+                }
+            }
+            return count == result.length ? result : Arrays.copyOf(result, count);
+        }
+
+        private List<CityDto> view(int[] positions) {
+            return new AbstractList<CityDto>() {
+                @Override
+                public CityDto get(int index) {
+                    return cities[positions[index]];
+                }
+
+                @Override
+                public int size() {
+                    return positions.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * Узел префиксного дерева: отсортированные символы переходов и номера городов,
+     * у которых слово названия начинается с префикса узла
+     */
+    private static final class Node {
+
+        private final char[] keys;
+
+        private final Node[] children;
+
+        private final int[] ids;
+
+        private Node(char[] keys, Node[] children, int[] ids) {
+            this.keys = keys;
+            this.children = children;
+            this.ids = ids;
+        }
+
+        Node child(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i < 0 ? null : children[i];
+        }
+    }
+
+    /**
+     * Изменяемый узел на время построения дерева
+     */
+    private static final class NodeBuilder {
+
+        private final TreeMap<Character, NodeBuilder> children = new TreeMap<>();
+
+        private final Trigrams.IntBuffer ids = new Trigrams.IntBuffer();
+
+        /**
+         * Добавляет город pos на пути по символам name начиная с from, не глубже TRIE_DEPTH.
+         * Номера городов добавляются по возрастанию, поэтому списки узлов остаются отсортированными
+         */
+        void insert(String name, int from, int pos) {
+            NodeBuilder node = this;
+            int to = Math.min(name.length(), from + TRIE_DEPTH);
+            for (int i = from; i < to; i++) {
+                node = node.children.computeIfAbsent(name.charAt(i), key -> new NodeBuilder());
+                node.ids.add(pos);
+            }
+        }
+
+        Node freeze() {
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, NodeBuilder> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i] = entry.getValue().freeze();
+                i++;
+            }
+            return new Node(keys, nodes, Arrays.copyOf(ids.ids, ids.size));
+        }
+    }
+
+    /**
+     * Строка справочника: нормализованные названия для поиска и исходные для отображения
+     */
+    private static final class Row {
+
+        private final long id;
+
+        private final String name;
+
+        private final String region;
+
+        private final String displayName;
+
+        private final String displayRegion;
+
+        Row(long id, String name, String region) {
+            this.id = id;
+            this.name = normalize(name);
+            this.region = region == null ? null : normalize(region);
+            this.displayName = name;
+            this.displayRegion = region;
+        }
+    }
+}
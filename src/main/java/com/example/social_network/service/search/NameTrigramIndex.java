@@ -0,0 +1,250 @@
+package com.example.social_network.service.search;
+
+import com.example.social_network.datasource.ReadReplicaDataSource;
+import com.example.social_network.service.events.UserDeletedEvent;
+import com.example.social_network.service.events.UserSavedEvent;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Триграммный индекс имен и фамилий пользователей в памяти приложения.
+ *
+ * Заменяет триграммные GIN индексы PostgreSQL (pg_trgm) для H2 и тестовых профилей.
+ * Для каждой триграммы хранится отсортированный список id пользователей, в имени или фамилии
+ * которых она встречается. Поиск по нескольким словам пересекает списки всех триграмм всех слов
+ * (для слова с вариантами в разных раскладках - объединение списков вариантов) и возвращает
+ * надмножество подходящих пользователей: строки затем проверяются условием LIKE,
+ * но БД читает только их по первичному ключу, без полного просмотра таблицы.
+ *
+ * Изменения пользователей после построения индекса хранятся отдельно и проверяются
+ * прямым сравнением строк. Когда их становится больше порога, индекс перестраивается в фоне
+ */
+@Slf4j
+@Component
+public class NameTrigramIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final int maxCandidates;
+
+    private final int rebuildThreshold;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "name-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Пользователи, измененные после построения индекса: id -> имя и фамилия в нижнем регистре
+     * (пустая строка для удаленных)
+     */
+    private final Map<Integer, Change> changes = new ConcurrentHashMap<>();
+
+    private volatile Map<Long, int[]> postings;
+
+    public NameTrigramIndex(DataSource dataSource,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${sn.search.name-index.enabled:false}") boolean enabled,
+                            @Value("${sn.search.name-index.max-candidates:10000}") int maxCandidates,
+                            @Value("${sn.search.name-index.rebuild-threshold:10000}") int rebuildThreshold) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+        this.rebuildThreshold = rebuildThreshold;
+    }
+
+    /**
+     * Построение индекса при старте приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Полностью перестраивает индекс по таблице users основной БД
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long startSequence = sequence.get();
+        Map<Long, Trigrams.IntBuffer> buffers = new HashMap<>();
+        // с основной БД: пользователи, которых нет на отстающей реплике, событиями уже не придут
+        ReadReplicaDataSource.onPrimary(() -> transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.query("SELECT id, name, surname FROM users", rs -> {
+                    int id = rs.getInt(1);
+                    for (long trigram : Trigrams.of(normalize(rs.getString(2), rs.getString(3)))) {
+                        buffers.computeIfAbsent(trigram, key -> new Trigrams.IntBuffer()).add(id);
+                    }
+                })));
+        Map<Long, int[]> built = new HashMap<>(buffers.size() * 2);
+        buffers.forEach((trigram, ids) -> built.put(trigram, ids.toSortedArray()));
+        postings = built;
+        // изменения, зафиксированные до начала чтения таблицы, уже вошли в индекс
+        changes.values().removeIf(change -> change.sequence <= startSequence);
+        log.info("Name trigram index built: {} trigrams in {} ms", built.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Признак того, что индекс построен
+     */
+    public boolean isReady() {
+        return postings != null;
+    }
+
+    /**
+     * Кандидаты для поиска по словам из строки fio. Каждое слово должно входить в имя или фамилию
+     *
+     * @param tokens слова поисковой строки
+     * @return надмножество id подходящих пользователей или null, если индекс не построен,
+     * слова слишком короткие для триграмм или кандидатов слишком много и индекс не поможет
+     */
+    public List<Long> candidates(String[] tokens) {
+        return tokens == null ? null : candidatesOfVariants(Arrays.stream(tokens)
+                .map(token -> new String[]{token})
+                .toArray(String[][]::new));
+    }
+
+    /**
+     * Кандидаты для поиска по словам из строки fio с вариантами написания.
+     * Для каждого слова в имя или фамилию должен входить хотя бы один из его вариантов
+     *
+     * @param words варианты написания каждого слова поисковой строки
+     * @return надмножество id подходящих пользователей или null, если индекс не построен,
+     * слова слишком короткие для триграмм или кандидатов слишком много и индекс не поможет
+     */
+    public List<Long> candidatesOfVariants(String[][] words) {
+        Map<Long, int[]> index = postings;
+        if (index == null || words == null) { return null; }
+
+        List<int[]> lists = new ArrayList<>(words.length);
+        for (String[] variants : words) {
+            int[] matches = wordMatches(index, variants);
+            if (matches != null) {
+                lists.add(matches);
+            }
+        }
+        if (lists.isEmpty()) { return null; }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = Trigrams.intersect(result, lists.get(i));
+        }
+        if (result.length + changes.size() > maxCandidates) { return null; }
+
+        List<Long> candidates = new ArrayList<>(result.length);
+        for (int id : result) {
+            if (!changes.containsKey(id)) {
+                candidates.add((long) id);
+            }
+        }
+        changes.forEach((id, change) -> {
+            if (containsAll(change.text, words)) {
+                candidates.add((long) id);
+            }
+        });
+        return candidates;
+    }
+
+    /**
+     * Пользователи, в имени или фамилии которых могут быть вхождения хотя бы одного варианта слова
+     *
+     * @return отсортированные id или null, если какой-то вариант короче триграммы и слово не сужает поиск
+     */
+    private static int[] wordMatches(Map<Long, int[]> index, String[] variants) {
+        int[] result = Trigrams.EMPTY;
+        for (String variant : variants) {
+            long[] grams = Arrays.stream(Trigrams.of(variant.toLowerCase())).distinct().toArray();
+            if (grams.length == 0) { return null; }
+            int[][] lists = new int[grams.length][];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = index.getOrDefault(grams[i], Trigrams.EMPTY);
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+            int[] matches = lists[0];
+            for (int i = 1; i < lists.length && matches.length > 0; i++) {
+                matches = Trigrams.intersect(matches, lists[i]);
+            }
+            result = Trigrams.union(result, matches);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSaved(UserSavedEvent event) {
+        record(event.getUserId(), normalize(event.getName(), event.getSurname()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        record(event.getUserId(), "");
+    }
+
+    private void record(Long userId, String text) {
+        if (!enabled) { return; }
+        changes.put(userId.intValue(), new Change(text, sequence.incrementAndGet()));
+        if (changes.size() > rebuildThreshold && rebuilding.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Name trigram index rebuild failed", e);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    private static boolean containsAll(String text, String[][] words) {
+        if (text.isEmpty()) { return false; }
+        for (String[] variants : words) {
+            if (Arrays.stream(variants).noneMatch(variant -> text.contains(variant.toLowerCase()))) { return false; }
+        }
+        return true;
+    }
+
+    private static String normalize(String name, String surname) {
+        return (name == null ? "" : name.toLowerCase()) + " " + (surname == null ? "" : surname.toLowerCase());
+    }
+
+    @AllArgsConstructor
+    private static class Change {
+        final String text;
+        final long sequence;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.social_network.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Общие операции триграммных индексов: разбиение строки на триграммы
+ * и пересечение и объединение отсортированных списков идентификаторов
+ */
+final class Trigrams {
+
+    static final int[] EMPTY = new int[0];
+
+    private Trigrams() {
+    }
+
+    /**
+     * Триграммы строки, упакованные в long. Пробел разделяет слова, триграммы через пробел не строятся
+     */
+    static long[] of(String text) {
+        long[] grams = new long[Math.max(text.length() - 2, 0)];
+        int count = 0;
+        for (int i = 0; i + 2 < text.length(); i++) {
+            char a = text.charAt(i);
+            char b = text.charAt(i + 1);
+            char c = text.charAt(i + 2);
+            if (a != ' ' && b != ' ' && c != ' ') {
+                grams[count++] = ((long) a << 32) | ((long) b << 16) | c;
+            }
+        }
+        return count == grams.length ? grams : Arrays.copyOf(grams, count);
+    }
+
+    /**
+     * Пересечение отсортированных массивов слиянием
+     */
+    static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Объединение отсортированных массивов слиянием, без повторов
+     */
+    static int[] union(int[] a, int[] b) {
+        if (a.length == 0) { return b; }
+        if (b.length == 0) { return a; }
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[k++] = a[i++];
+            } else if (i == a.length || a[i] > b[j]) {
+                result[k++] = b[j++];
+            } else {
+                result[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Растущий список id на примитивном массиве
+     */
+    static class IntBuffer {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) { return; }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int[] toSortedArray() {
+            int[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
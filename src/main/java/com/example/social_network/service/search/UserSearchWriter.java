@@ -0,0 +1,65 @@
+package com.example.social_network.service.search;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Запись строк таблицы поиска пользователей user_search (см. {@link com.example.social_network.domain.UserSearch}).
+ *
+ * Строка пользователя пересобирается целиком из users и cities: старая удаляется, новая вставляется
+ * запросом INSERT ... SELECT, поэтому нормализация (нижний регистр fio и названия города) выполняется
+ * в одном месте - в БД, той же функцией LOWER, что и у значений фильтров.
+ * Методы вызываются внутри транзакции, изменяющей пользователей, соединение берется из нее:
+ * строка поиска фиксируется вместе с пользователем. Удаление пользователя удаляет его строку
+ * внешним ключом ON DELETE CASCADE
+ */
+@Component
+public class UserSearchWriter {
+
+    private static final String DELETE = "DELETE FROM user_search WHERE ";
+
+    private static final String INSERT = "INSERT INTO user_search "
+            + "(user_id, name, surname, fio, city_name, region_id, date_of_birth, gender) "
+            + "SELECT u.id, u.name, u.surname, LOWER(u.name) || ' ' || LOWER(u.surname), LOWER(c.name), c.region_id, "
+            + "u.date_of_birth, u.gender "
+            + "FROM users u LEFT JOIN cities c ON c.id = u.city_id WHERE ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public UserSearchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Пересобирает строки поиска пользователей. Изменения пользователей в контексте
+     * персистентности Hibernate должны быть уже записаны в БД
+     *
+     * @param ids идентификаторы пользователей
+     * @return количество записанных строк
+     */
+    public int refresh(Collection<Long> ids) {
+        if (ids.isEmpty()) { return 0; }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        namedJdbcTemplate.update(DELETE + "user_id IN (:ids)", params);
+        return namedJdbcTemplate.update(INSERT + "u.id IN (:ids)", params);
+    }
+
+    /**
+     * Пересобирает строки поиска пользователей с id в диапазоне [fromId, toId]
+     *
+     * @param fromId первый идентификатор
+     * @param toId последний идентификатор
+     * @return количество записанных строк
+     */
+    public int refreshRange(long fromId, long toId) {
+        jdbcTemplate.update(DELETE + "user_id BETWEEN ? AND ?", fromId, toId);
+        return jdbcTemplate.update(INSERT + "u.id BETWEEN ? AND ?", fromId, toId);
+    }
+}
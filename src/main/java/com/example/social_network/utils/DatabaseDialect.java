@@ -0,0 +1,25 @@
+package com.example.social_network.utils;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Определение СУБД для запросов, которые различаются в PostgreSQL и H2
+ */
+public class DatabaseDialect {
+
+    private DatabaseDialect() {
+    }
+
+    /**
+     * Проверяет, что источник данных - PostgreSQL
+     *
+     * @param jdbcTemplate шаблон с источником данных
+     * @return true для PostgreSQL
+     */
+    public static boolean isPostgres(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.social_network.utils;
+
+/**
+ * Класс перечисление для результата изменения дружбы с одним пользователем
+ */
+public enum FriendshipStatus {
+    ADDED,
+    ALREADY_FRIENDS,
+    REMOVED,
+    NOT_FRIENDS,
+    USER_NOT_FOUND,
+    SELF;
+}
@@ -1,82 +1,115 @@
 package com.example.social_network.utils;
-import java.util.HashMap;
 
 /**
- *  Конвертирует строку, из одной раскладки клавиатуры в другую
+ *  Конвертирует строку, из одной раскладки клавиатуры в другую.
+ *
+ *  Соответствие клавиш хранится в двух таблицах char, индексированных кодом символа:
+ *  для ASCII и для строчной кириллицы. Конвертация не создает объектов, кроме результата,
+ *  а строка, которую конвертировать не нужно, возвращается без копирования
  */
 public class KeyboardConverter {
 
+    /**
+     * Клавиши английской раскладки и символы русской раскладки на тех же местах
+     */
+    private static final String EN_KEYS = "qwertyuiop[]asdfghjkl;'zxcvbnm,.`{}:\"<>~ ";
+
+    private static final String RU_KEYS = "йцукенгшщзхъфывапролджэячсмитьбюёхъжэбюё ";
+
+    /**
+     * Первый символ таблицы кириллицы: строчная 'а'
+     */
+    private static final char RU_FIRST = 'а';
+
+    /**
+     * Последний символ таблицы кириллицы: строчная 'ё'
+     */
+    private static final char RU_LAST = 'ё';
+
+    /**
+     * Английская клавиша -> русская, индекс - код ASCII символа, 0 - нет соответствия
+     */
+    private static final char[] EN_TO_RU = new char[128];
+
+    /**
+     * Русская клавиша -> английская, индекс - код символа минус RU_FIRST, 0 - нет соответствия.
+     * Пробел хранится отдельно, т.к. не попадает в диапазон кириллицы
+     */
+    private static final char[] RU_TO_EN = new char[RU_LAST - RU_FIRST + 1];
+
+    static {
+        for (int i = 0; i < EN_KEYS.length(); i++) {
+            char en = EN_KEYS.charAt(i);
+            char ru = RU_KEYS.charAt(i);
+            EN_TO_RU[en] = ru;
+            if (ru >= RU_FIRST && ru <= RU_LAST && RU_TO_EN[ru - RU_FIRST] == 0) {
+                RU_TO_EN[ru - RU_FIRST] = en;
+            }
+        }
+    }
+
     /**
      * Конвертирует строку из английской раскладки в русскую
      * Если исходная строка в русской раскладке - возвращает исходную строку
      *
-     * @param string
-     * @return сконвертированная строка
+     * @param string исходная строка
+     * @return сконвертированная строка в нижнем регистре или исходная строка,
+     * если в ней есть символы вне английской раскладки
      */
+    public static String convert(String string) {
+        return isLayout(string, true) ? translate(string, true) : string;
+    }
 
-    public static String convert(String string){
-        HashMap<Character, Character> keyboard = getKeyboard();
+    /**
+     * Конвертирует строку в другую раскладку: английскую в русскую, русскую в английскую.
+     * Используется для поиска, когда неизвестно, в какой раскладке набрана строка
+     *
+     * @param string исходная строка
+     * @return сконвертированная строка в нижнем регистре или исходная строка, если она
+     * не набрана целиком в одной раскладке (цифры, смешанные раскладки, другие алфавиты)
+     */
+    public static String switchLayout(String string) {
+        if (isLayout(string, true)) { return translate(string, true); }
+        if (isLayout(string, false)) { return translate(string, false); }
+        return string;
+    }
 
-        char[] chars = string.toCharArray();
-        char[] result = new char[chars.length];
-        for (int i = 0; i < chars.length; i++) {
-            Character letter = Character.toLowerCase(chars[i]);
-            if(keyboard.containsKey(letter)) {
-                result[i] = keyboard.get(letter);
-            }
-            else{
-                return string;
+    /**
+     * Проверяет, что все символы строки есть в таблице раскладки
+     *
+     * @param string строка
+     * @param english true - английская раскладка, false - русская
+     * @return true, если строку можно сконвертировать
+     */
+    private static boolean isLayout(String string, boolean english) {
+        for (int i = 0; i < string.length(); i++) {
+            if (map(Character.toLowerCase(string.charAt(i)), english) == 0) {
+                return false;
             }
         }
+        return true;
+    }
+
+    private static String translate(String string, boolean english) {
+        char[] result = new char[string.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = map(Character.toLowerCase(string.charAt(i)), english);
+        }
         return new String(result);
     }
 
     /**
-     * Словарь соответсвий английской и русской раскладки клавиатуры
+     * Символ на той же клавише в другой раскладке
      *
-     * @return словарь
+     * @param c символ в нижнем регистре
+     * @param english true - c из английской раскладки, false - из русской
+     * @return символ другой раскладки или 0, если соответствия нет
      */
-    public static HashMap<Character, Character> getKeyboard(){
-        HashMap<Character, Character> keyboard = new HashMap();
-        keyboard.put('q','й');
-        keyboard.put('w','ц');
-        keyboard.put('e','у');
-        keyboard.put('r','к');
-        keyboard.put('t','е');
-        keyboard.put('y','н');
-        keyboard.put('u','г');
-        keyboard.put('i','ш');
-        keyboard.put('o','щ');
-        keyboard.put('p','з');
-        keyboard.put('[','х');
-        keyboard.put(']','ъ');
-        keyboard.put('a','ф');
-        keyboard.put('s','ы');
-        keyboard.put('d','в');
-        keyboard.put('f','а');
-        keyboard.put('g','п');
-        keyboard.put('h','р');
-        keyboard.put('j','о');
-        keyboard.put('k','л');
-        keyboard.put('l','д');
-        keyboard.put(';','ж');
-        keyboard.put('\'', 'э');
-        keyboard.put('z','я');
-        keyboard.put('x','ч');
-        keyboard.put('c','с');
-        keyboard.put('v','м');
-        keyboard.put('b','и');
-        keyboard.put('n','т');
-        keyboard.put('m','ь');
-        keyboard.put(',','б');
-        keyboard.put('.','ю');
-        keyboard.put('{','х');
-        keyboard.put('}','ъ');
-        keyboard.put(':','ж');
-        keyboard.put('"','э');
-        keyboard.put('<','б');
-        keyboard.put('>','ю');
-        keyboard.put(' ', ' ');
-        return keyboard;
+    private static char map(char c, boolean english) {
+        if (english) {
+            return c < EN_TO_RU.length ? EN_TO_RU[c] : 0;
+        }
+        if (c == ' ') { return ' '; }
+        return c >= RU_FIRST && c <= RU_LAST ? RU_TO_EN[c - RU_FIRST] : 0;
     }
 }
@@ -0,0 +1,9 @@
+-- Триграммные индексы таблицы поиска пользователей (V12). Колонки уже в нижнем регистре,
+-- поэтому имя и фамилия проверяются одним индексом по fio, без выражений lower()
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS user_search_fio_trgm_idx
+    ON user_search USING gin (fio gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS user_search_city_trgm_idx
+    ON user_search USING gin (city_name gin_trgm_ops);
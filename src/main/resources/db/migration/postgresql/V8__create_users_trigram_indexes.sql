@@ -0,0 +1,9 @@
+-- Триграммные индексы для поиска по вхождению строки в имя и фамилию (lower(name) LIKE '%...%').
+-- Только для PostgreSQL: для других БД есть индекс в памяти приложения (sn.search.name-index.enabled)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS users_name_trgm_idx
+    ON users USING gin (lower(name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS users_surname_trgm_idx
+    ON users USING gin (lower(surname) gin_trgm_ops);
@@ -0,0 +1,6 @@
+-- Количество друзей пользователя. Поддерживается сервисом при добавлении и удалении друзей
+-- и сверяется с таблицей friendship фоновой проверкой. Дружба хранится в обоих направлениях,
+-- поэтому достаточно строк с id_user пользователя
+ALTER TABLE users ADD COLUMN IF NOT EXISTS friends_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE users SET friends_count = (SELECT COUNT(*) FROM friendship f WHERE f.id_user = users.id);
@@ -0,0 +1,13 @@
+-- Индексы для фильтров поиска пользователей (BaseFilter).
+-- Пол с диапазоном дат рождения (minAge/maxAge) - по (gender, date_of_birth),
+-- только диапазон дат рождения - по date_of_birth: у пола два значения, по одному полу выбирается половина таблицы
+CREATE INDEX IF NOT EXISTS users_gender_birth_idx
+    ON users (gender, date_of_birth);
+
+CREATE INDEX IF NOT EXISTS users_birth_idx
+    ON users (date_of_birth);
+
+-- Фильтр по городу: подходящие по названию города из небольшой таблицы cities,
+-- затем их пользователи по city_id
+CREATE INDEX IF NOT EXISTS users_city_idx
+    ON users (city_id);
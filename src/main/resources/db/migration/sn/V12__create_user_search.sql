@@ -0,0 +1,33 @@
+-- Таблица для поиска пользователей (read model): по одной узкой строке на пользователя
+-- со всеми полями фильтров BaseFilter, уже нормализованными. Поиск не соединяет users с cities
+-- и не вычисляет lower() по колонкам при каждом запросе.
+-- fio - имя и фамилия в нижнем регистре через пробел, city_name - название города в нижнем регистре,
+-- name и surname - как в users, для отображения и сортировки по ключу (surname, name, id).
+-- Строка пересобирается из users и cities при каждом изменении пользователя в той же транзакции
+-- и удаляется вместе с пользователем
+CREATE TABLE IF NOT EXISTS user_search
+(
+  user_id           INTEGER             PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+  name              VARCHAR(45)         NOT NULL,
+  surname           VARCHAR(45)         NOT NULL,
+  fio               VARCHAR(91)         NOT NULL,
+  city_name         VARCHAR(256)        ,
+  region_id         INTEGER             ,
+  date_of_birth     DATE                ,
+  gender            CHAR(1)
+);
+
+INSERT INTO user_search (user_id, name, surname, fio, city_name, region_id, date_of_birth, gender)
+SELECT u.id, u.name, u.surname, LOWER(u.name) || ' ' || LOWER(u.surname), LOWER(c.name), c.region_id,
+       u.date_of_birth, u.gender
+FROM users u LEFT JOIN cities c ON c.id = u.city_id;
+
+-- Постраничный вывод по ключу (surname, name, id) и фильтры пола и возраста, как у users (V7, V11)
+CREATE INDEX IF NOT EXISTS user_search_keyset_idx
+    ON user_search (surname, name, user_id);
+
+CREATE INDEX IF NOT EXISTS user_search_gender_birth_idx
+    ON user_search (gender, date_of_birth);
+
+CREATE INDEX IF NOT EXISTS user_search_birth_idx
+    ON user_search (date_of_birth);
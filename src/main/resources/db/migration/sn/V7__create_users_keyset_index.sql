@@ -0,0 +1,3 @@
+-- Индекс для постраничного вывода пользователей по ключу (surname, name, id)
+CREATE INDEX IF NOT EXISTS users_fio_keyset_idx
+    ON users (surname, name, id);
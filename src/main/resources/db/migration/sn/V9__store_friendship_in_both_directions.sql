@@ -0,0 +1,10 @@
+-- Дружба хранится в обоих направлениях: (a, b) и (b, a).
+-- Друзья пользователя выбираются по первичному ключу (id_user, id_friend) без OR по двум направлениям,
+-- обратный индекс (id_friend, id_user) покрывает поиск тех, у кого пользователь записан в друзьях
+INSERT INTO friendship (id_user, id_friend)
+SELECT f.id_friend, f.id_user
+FROM friendship f
+WHERE NOT EXISTS (SELECT 1 FROM friendship r WHERE r.id_user = f.id_friend AND r.id_friend = f.id_user);
+
+CREATE INDEX IF NOT EXISTS friendship_friend_user_idx
+    ON friendship (id_friend, id_user);
@@ -9,6 +9,6 @@ INSERT INTO users (name, surname, date_of_birth, gender, city_id) VALUES ('Ва
 INSERT INTO users (name, surname, date_of_birth, gender, city_id) VALUES ('Василий', 'Петров', '2010-02-22', 'M', 3);
 INSERT INTO users (name, surname, date_of_birth, gender, city_id) VALUES ('Иннокентий', 'Петров', '2009-01-22', 'M', 3);
 
-insert into friendship (id_user, id_friend) VALUES (1,2);
-insert into friendship (id_user, id_friend) VALUES (1,3);
-insert into friendship (id_user, id_friend) VALUES (4,1);
\ No newline at end of file
+insert into friendship (id_user, id_friend) VALUES (1,2), (2,1);
+insert into friendship (id_user, id_friend) VALUES (1,3), (3,1);
+insert into friendship (id_user, id_friend) VALUES (4,1), (1,4);
\ No newline at end of file
@@ -5,7 +5,9 @@ import com.example.social_network.dto.UserByListDto;
 import com.example.social_network.dto.UserEditDto;
 import com.example.social_network.dto.UserPageDto;
 import com.example.social_network.dto.UserRegisterDto;
+import com.example.social_network.service.UserPageCache;
 import com.example.social_network.service.UserService;
+import com.example.social_network.service.exporting.UserExportService;
 import com.example.social_network.service.filters.FriendFilter;
 import com.example.social_network.service.filters.BaseFilter;
 import org.junit.jupiter.api.Assertions;
@@ -30,12 +32,18 @@ class UserControllerUnitTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private UserPageCache userPageCache;
+
+    @Mock
+    private UserExportService userExportService;
+
     private UserController userController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
-        this.userController = new UserController(userService);
+        this.userController = new UserController(userService, userPageCache, userExportService);
     }
 
     @Test
@@ -83,13 +91,13 @@ class UserControllerUnitTest {
         UserPageDto userDto = UserPageDto.builder()
                 .fio("Test test")
                 .build();
-        Mockito.when(userService.getUser(Mockito.anyLong())).thenReturn(userDto);
+        Mockito.when(userPageCache.getUser(Mockito.anyLong())).thenReturn(userDto);
         ResponseEntity answer = userController.getPage(1L);
 
         Assertions.assertEquals(200, answer.getStatusCodeValue());
         Assertions.assertEquals(userDto, answer.getBody());
 
-        Mockito.verify(userService, Mockito.times(1)).getUser(Mockito.anyLong());
+        Mockito.verify(userPageCache, Mockito.times(1)).getUser(Mockito.anyLong());
         Mockito.verifyNoMoreInteractions(userService);
     }
 
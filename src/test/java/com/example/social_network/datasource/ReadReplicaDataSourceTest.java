@@ -0,0 +1,162 @@
+package com.example.social_network.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Юнит-тесты маршрутизации транзакций на реплики. Основная БД и реплики - разные базы H2,
+ * в каждой своя строка в таблице node, отставание реплики задается в таблице replica_status
+ */
+class ReadReplicaDataSourceTest {
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica0;
+
+    private EmbeddedDatabase replica1;
+
+    private ReadReplicaDataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    private TransactionTemplate readOnly;
+
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void init() {
+        primary = database("primary");
+        replica0 = database("replica-0");
+        replica1 = database("replica-1");
+    }
+
+    @AfterEach
+    void shutdown() {
+        dataSource.close();
+        primary.shutdown();
+        replica0.shutdown();
+        replica1.shutdown();
+    }
+
+    @Test
+    @DisplayName("Транзакции только для чтения идут на реплику, запись и запросы вне транзакций - на основную БД")
+    void route_ReadOnlyToReplica() {
+        create(replica0);
+
+        Assertions.assertEquals("replica-0", readOnly.execute(status -> node()));
+        Assertions.assertEquals("primary", readWrite.execute(status -> node()));
+        Assertions.assertEquals("primary", node());
+
+        readWrite.executeWithoutResult(status -> jdbc.update("INSERT INTO node (name) VALUES ('written')"));
+        Assertions.assertEquals(1, new JdbcTemplate(primary).queryForObject(
+                "SELECT COUNT(*) FROM node WHERE name = 'written'", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Транзакция только для чтения внутри транзакции записи остается на основной БД")
+    void route_NestedReadOnly_Primary() {
+        create(replica0);
+
+        Assertions.assertEquals("primary", readWrite.execute(status -> readOnly.execute(nested -> node())));
+    }
+
+    @Test
+    @DisplayName("Транзакция только для чтения внутри onPrimary идет на основную БД")
+    void route_OnPrimary_Primary() {
+        create(replica0);
+
+        Assertions.assertEquals("primary", ReadReplicaDataSource.onPrimary(() -> readOnly.execute(status -> node())));
+        Assertions.assertFalse(ReadReplicaDataSource.isPrimaryRequired());
+        Assertions.assertEquals("replica-0", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    @DisplayName("Чтение распределяется по исправным репликам")
+    void route_RoundRobin() {
+        create(replica0, replica1);
+
+        Set<String> nodes = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(readOnly.execute(status -> node()));
+        }
+        Assertions.assertEquals(Set.of("replica-0", "replica-1"), nodes);
+    }
+
+    @Test
+    @DisplayName("Отстающая реплика исключается из чтения и возвращается, когда догонит")
+    void check_Lagging_Excluded() {
+        create(replica0);
+
+        new JdbcTemplate(replica0).update("UPDATE replica_status SET lag = 30");
+        dataSource.checkReplicas();
+        Assertions.assertEquals(List.of(), dataSource.getHealthyReplicas());
+        Assertions.assertEquals("primary", readOnly.execute(status -> node()));
+
+        new JdbcTemplate(replica0).update("UPDATE replica_status SET lag = 1");
+        dataSource.checkReplicas();
+        Assertions.assertEquals(List.of("replica-0"), dataSource.getHealthyReplicas());
+        Assertions.assertEquals("replica-0", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    @DisplayName("Недоступная реплика исключается, чтение идет с другой реплики")
+    void check_Unavailable_Excluded() {
+        create(replica0, replica1);
+
+        new JdbcTemplate(replica0).execute("DROP TABLE replica_status");
+        dataSource.checkReplicas();
+
+        Assertions.assertEquals(List.of("replica-1"), dataSource.getHealthyReplicas());
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals("replica-1", readOnly.execute(status -> node()));
+        }
+    }
+
+    private void create(DataSource... replicas) {
+        Map<String, DataSource> named = new LinkedHashMap<>();
+        for (int i = 0; i < replicas.length; i++) {
+            named.put("replica-" + i, replicas[i]);
+        }
+        dataSource = new ReadReplicaDataSource(primary, named, Duration.ofSeconds(10),
+                "SELECT lag FROM replica_status", Duration.ZERO);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    private String node() {
+        return jdbc.queryForObject("SELECT name FROM node ORDER BY id LIMIT 1", String.class);
+    }
+
+    private static EmbeddedDatabase database(String node) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("CREATE TABLE node (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(20))");
+        jdbc.update("INSERT INTO node (name) VALUES (?)", node);
+        jdbc.execute("CREATE TABLE replica_status (lag INT)");
+        jdbc.update("INSERT INTO replica_status (lag) VALUES (0)");
+        return database;
+    }
+}
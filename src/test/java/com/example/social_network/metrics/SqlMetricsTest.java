@@ -0,0 +1,121 @@
+package com.example.social_network.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Юнит-тесты метрик SQL запросов
+ */
+class SqlMetricsTest {
+
+    private EmbeddedDatabase database;
+
+    private SimpleMeterRegistry registry;
+
+    private SqlMetrics sqlMetrics;
+
+    private MeteredDataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void init() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        registry = new SimpleMeterRegistry();
+        sqlMetrics = new SqlMetrics(registry);
+        dataSource = new MeteredDataSource(database,
+                new StaticListableBeanFactory(Map.of("sqlMetrics", sqlMetrics)).getBeanProvider(SqlMetrics.class));
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+    }
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("Каждое выполнение запроса записывается в таймер по типу запроса")
+    void record_ByType() {
+        jdbc.update("INSERT INTO users VALUES (?, ?)", 1L, "Иван");
+        jdbc.batchUpdate("INSERT INTO users VALUES (2, 'Петр')", "INSERT INTO users VALUES (3, 'Анна')");
+        jdbc.queryForList("SELECT name FROM users WHERE id > ?", String.class, 1L);
+        jdbc.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+
+        Assertions.assertEquals(1, timer("update").count());
+        Assertions.assertEquals(1, timer("batch").count());
+        Assertions.assertEquals(2, timer("query").count());
+        Assertions.assertTrue(timer("query").totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    @DisplayName("Запросы внутри HTTP запроса суммируются и записываются с его тегами")
+    void end_RecordsPerRequest() {
+        jdbc.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        Tags tags = Tags.of("uri", "/users/{userId}/users", "filters", "fio");
+
+        sqlMetrics.begin();
+        jdbc.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        jdbc.update("INSERT INTO users VALUES (1, 'Иван')");
+        sqlMetrics.end(tags);
+
+        DistributionSummary statements = registry.get("sn.sql.request.statements").tags(tags).summary();
+        Timer time = registry.get("sn.sql.request.time").tags(tags).timer();
+        Assertions.assertEquals(1, statements.count());
+        Assertions.assertEquals(2.0, statements.totalAmount());
+        Assertions.assertEquals(1, time.count());
+        Assertions.assertTrue(time.totalTime(TimeUnit.NANOSECONDS) > 0);
+
+        sqlMetrics.end(tags);
+        Assertions.assertEquals(1, statements.count());
+    }
+
+    @Test
+    @DisplayName("Обертка соединений не мешает транзакциям")
+    void transaction_SameConnection() {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        Assertions.assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            jdbc.update("INSERT INTO users VALUES (1, 'Иван')");
+            throw new IllegalStateException();
+        }));
+        Assertions.assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM users", Long.class));
+    }
+
+    @Test
+    @DisplayName("Тег filters перечисляет заданные фильтры без значений")
+    void filterTags() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        Assertions.assertEquals("none", FilterTags.of(request).getValue());
+
+        request.setParameter("gender", "F");
+        request.setParameter("fio", "Иван");
+        request.setParameter("city", " ");
+        request.setParameter("page", "2");
+        Assertions.assertEquals("fio,gender", FilterTags.of(request).getValue());
+    }
+
+    private Timer timer(String type) {
+        return registry.get("sn.sql.statements").tag("type", type).timer();
+    }
+}
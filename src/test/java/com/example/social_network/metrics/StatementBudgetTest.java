@@ -0,0 +1,91 @@
+package com.example.social_network.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Интеграционные тесты бюджета SQL запросов на HTTP запрос.
+ * Бюджет страницы пользователя уменьшен до одного запроса, страница выполняет два
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.locations=classpath:db/migration/sn",
+        "sn.graph.enabled=false",
+        "sn.sql.budget.mode=fail",
+        "sn.sql.budget.endpoints.get[/users/{id}]=1"})
+@AutoConfigureMockMvc
+@Sql(scripts = "/sql/user-page-seed.sql", config = @SqlConfig(encoding = "UTF-8"))
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class StatementBudgetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    StatementBudget budget;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    @DisplayName("Превышение бюджета в режиме fail - исключение с текстами запросов и счетчик")
+    void end_OverBudget_Fails() {
+        StatementBudgetExceededException ex = Assertions.assertThrows(StatementBudgetExceededException.class,
+                () -> rethrowCause(() -> mockMvc.perform(get("/users/1"))));
+
+        Assertions.assertTrue(ex.getMessage().contains("GET /users/{id} executed 2 statements, budget 1"), ex.getMessage());
+        Assertions.assertTrue(ex.getMessage().toLowerCase().contains("select"), ex.getMessage());
+        Assertions.assertEquals(1.0, registry.get("sn.sql.budget.exceeded")
+                .tag("method", "GET").tag("uri", "/users/{id}").counter().count());
+    }
+
+    @Test
+    @DisplayName("Эндпоинт в пределах бюджета выполняется без ошибок")
+    void end_WithinBudget_Passes() throws Exception {
+        mockMvc.perform(get("/users/1/friends")).andExpect(status().isOk());
+
+        Assertions.assertNull(registry.find("sn.sql.budget.exceeded").counter());
+    }
+
+    @Test
+    @DisplayName("Бюджет эндпоинта берется из sql-budget.properties, иначе - бюджет по умолчанию")
+    void limit_FromProperties() {
+        Assertions.assertEquals(1, budget.limit("GET", "/users/{id}"));
+        Assertions.assertEquals(4, budget.limit("GET", "/users/{userId}/friends"));
+        Assertions.assertEquals(-1, budget.limit("POST", "/users/import"));
+        Assertions.assertEquals(20, budget.limit("GET", "/unknown"));
+    }
+
+    @Test
+    @DisplayName("Запросы вне HTTP запроса не учитываются")
+    void inspect_OutsideRequest_Ignored() {
+        Assertions.assertEquals("select 1", budget.inspect("select 1"));
+        Assertions.assertEquals(-1, budget.end("GET", "/users/{id}"));
+    }
+
+    /**
+     * MockMvc оборачивает исключения фильтров в NestedServletException, тесту нужна причина
+     */
+    private static void rethrowCause(Request request) throws Throwable {
+        try {
+            request.run();
+        } catch (Exception ex) {
+            throw ex.getCause() != null ? ex.getCause() : ex;
+        }
+    }
+
+    private interface Request {
+        void run() throws Exception;
+    }
+}
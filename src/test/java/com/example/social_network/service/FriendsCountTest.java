@@ -0,0 +1,136 @@
+package com.example.social_network.service;
+
+import com.example.social_network.domain.User;
+import com.example.social_network.dto.FriendshipBatchDto;
+import com.example.social_network.repository.UserRepository;
+import com.example.social_network.service.filters.UserFilter;
+import com.example.social_network.service.graph.FriendshipGraphService;
+import com.example.social_network.support.CapturedStatements;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Интеграционные тесты счетчиков количества друзей users.friends_count
+ * и выбора способа исключения друзей по их количеству
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.locations=classpath:db/migration/sn",
+        "spring.datasource.url=jdbc:h2:mem:friends-count",
+        "sn.friends-count.repair-interval=0",
+        "sn.search.id-list-max-degree=10"})
+@Sql(scripts = "/sql/user-page-seed.sql", config = @SqlConfig(encoding = "UTF-8"))
+@Transactional
+class FriendsCountTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    FriendsCountRepair repair;
+
+    @Autowired
+    FriendshipGraphService friendshipGraph;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Test
+    @DisplayName("Добавление и удаление друга изменяют счетчики обоих пользователей")
+    void addDeleteFriend_Counters() {
+        userService.addFriend(2L, 3L);
+        Assertions.assertEquals(List.of(2, 2), counts(2L, 3L));
+
+        userService.addFriend(3L, 2L);
+        Assertions.assertEquals(List.of(2, 2), counts(2L, 3L));
+
+        userService.deleteFriend(3L, 2L);
+        userService.deleteFriend(3L, 2L);
+        Assertions.assertEquals(List.of(1, 1), counts(2L, 3L));
+    }
+
+    @Test
+    @DisplayName("Пакетное изменение учитывает только изменившиеся дружбы")
+    void updateFriends_Counters() {
+        FriendshipBatchDto batch = new FriendshipBatchDto();
+        batch.setAdd(List.of(2L, 5L, 6L, 999L));
+        batch.setRemove(List.of(3L, 7L));
+
+        userService.updateFriends(1L, batch);
+
+        Assertions.assertEquals(List.of(3, 1, 2, 2, 0, 1), counts(1L, 2L, 5L, 6L, 3L, 7L));
+        assertConsistent();
+    }
+
+    @Test
+    @DisplayName("Удаление пользователя уменьшает счетчики его друзей")
+    void delete_FriendsCounters() {
+        userService.delete(4L);
+        entityManager.flush();
+
+        Assertions.assertEquals(List.of(0, 0, 2), counts(5L, 44L, 1L));
+        assertConsistent();
+    }
+
+    @Test
+    @DisplayName("Сверка исправляет только расходящиеся счетчики")
+    void repair_FixesDrift() {
+        jdbcTemplate.update("UPDATE users SET friends_count = 7 WHERE id IN (1, 5)");
+        jdbcTemplate.update("INSERT INTO friendship (id_user, id_friend) VALUES (2, 3), (3, 2)");
+
+        Assertions.assertEquals(4, repair.repair());
+        Assertions.assertEquals(List.of(2, 1, 2, 2), counts(1L, 5L, 2L, 3L));
+        Assertions.assertEquals(0, repair.repair());
+    }
+
+    @Test
+    @DisplayName("Поиск: у пользователя с малым числом друзей - список NOT IN из графа, с большим - NOT EXISTS")
+    void usersSpecification_ByDegree() {
+        friendshipGraph.reload();
+
+        Assertions.assertEquals(41, search(1L));
+        Assertions.assertNull(CapturedStatements.last("friendship"), CapturedStatements.all().toString());
+
+        Assertions.assertEquals(3, search(4L));
+        Assertions.assertNotNull(CapturedStatements.last("friendship"), CapturedStatements.all().toString());
+    }
+
+    private long search(Long userId) {
+        entityManager.clear();
+        Specification<User> spec = userService.usersSpecification(userId, new UserFilter());
+        CapturedStatements.start();
+        return userRepository.count(spec);
+    }
+
+    private List<Integer> counts(Long... ids) {
+        entityManager.flush();
+        List<Integer> counts = new ArrayList<>();
+        for (Long id : ids) {
+            counts.add(jdbcTemplate.queryForObject("SELECT friends_count FROM users WHERE id = ?", Integer.class, id));
+        }
+        return counts;
+    }
+
+    private void assertConsistent() {
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users u WHERE u.friends_count <> "
+                + "(SELECT COUNT(*) FROM friendship f WHERE f.id_user = u.id)", Integer.class));
+    }
+}
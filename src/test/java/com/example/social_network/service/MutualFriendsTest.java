@@ -0,0 +1,114 @@
+package com.example.social_network.service;
+
+import com.example.social_network.service.graph.FriendshipGraphService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Интеграционные тесты общих друзей и степени связи: по графу дружбы и запросами к friendship.
+ * Бюджет SQL запросов проверяется в режиме fail
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.locations=classpath:db/migration/sn",
+        "spring.datasource.url=jdbc:h2:mem:mutual-friends",
+        "sn.graph.enabled=false",
+        "sn.sql.budget.mode=fail"})
+@AutoConfigureMockMvc
+@Sql(scripts = "/sql/user-page-seed.sql", config = @SqlConfig(encoding = "UTF-8"))
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class MutualFriendsTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    FriendshipGraphService friendshipGraph;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Общие друзья по фильтру - запросами к friendship без графа и пересечением списков из графа")
+    void getMutualFriends_SqlAndGraph() throws Exception {
+        jdbcTemplate.update("INSERT INTO friendship (id_user, id_friend) VALUES (1, 5), (5, 1), (1, 6), (6, 1), (1, 7), (7, 1)");
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/users/1/mutual/4").param("sort", "id"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[*].id", contains(5, 6, 7)))
+                    .andExpect(jsonPath("$.totalElements").value(3));
+            mockMvc.perform(get("/users/4/mutual/1").param("city", "Бийск"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[*].id", contains(6)));
+            friendshipGraph.reload();
+        }
+    }
+
+    @Test
+    @DisplayName("Количество общих друзей для нескольких пользователей - одинаково из графа и из БД")
+    void countMutualFriends_SqlAndGraph() throws Exception {
+        jdbcTemplate.update("INSERT INTO friendship (id_user, id_friend) VALUES (2, 4), (4, 2), (3, 5), (5, 3)");
+        Map<Long, Integer> expected = Map.of(2L, 0, 3L, 1, 1L, 1, 99L, 0);
+
+        Assertions.assertEquals(expected, userService.countMutualFriends(4L, List.of(2L, 3L, 1L, 99L)));
+        friendshipGraph.reload();
+        Assertions.assertEquals(expected, userService.countMutualFriends(4L, List.of(2L, 3L, 1L, 99L)));
+
+        mockMvc.perform(get("/users/1/mutual").param("ids", "2", "3", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['2']").value(0))
+                .andExpect(jsonPath("$['3']").value(0))
+                .andExpect(jsonPath("$['4']").value(1));
+    }
+
+    @Test
+    @DisplayName("Степень связи: без графа поиск неполный, с графом - путь через общего друга")
+    void getConnection_SqlAndGraph() throws Exception {
+        mockMvc.perform(get("/users/2/connection/3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.complete").value(false))
+                .andExpect(jsonPath("$.degree").doesNotExist());
+
+        friendshipGraph.reload();
+        mockMvc.perform(get("/users/2/connection/3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.complete").value(true))
+                .andExpect(jsonPath("$.degree").value(2))
+                .andExpect(jsonPath("$.path[*].id", contains(2, 1, 3)));
+        mockMvc.perform(get("/users/1/connection/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.complete").value(true))
+                .andExpect(jsonPath("$.degree").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Больше 100 идентификаторов в пакетном запросе - ошибка запроса")
+    void countMutualFriends_TooManyIds_BadRequest() throws Exception {
+        String[] ids = new String[101];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = String.valueOf(i + 1);
+        }
+        mockMvc.perform(get("/users/1/mutual").param("ids", ids))
+                .andExpect(status().isBadRequest());
+    }
+}
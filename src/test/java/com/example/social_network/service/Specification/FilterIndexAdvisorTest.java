@@ -0,0 +1,99 @@
+package com.example.social_network.service.Specification;
+
+import com.example.social_network.repository.UserRepository;
+import com.example.social_network.service.UserService;
+import com.example.social_network.service.filters.UserFilter;
+import com.example.social_network.service.generator.ScaleDataGenerator;
+import com.example.social_network.service.generator.ScaleDataSpec;
+import com.example.social_network.service.search.NameTrigramIndex;
+import com.example.social_network.support.CapturedStatements;
+import com.example.social_network.utils.Genders;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Советник по индексам для фильтров поиска пользователей: каждая комбинация полей {@link UserFilter}
+ * выполняется на сгенерированных данных, и план H2 (EXPLAIN) не должен просматривать таблицу users целиком.
+ *
+ * Строка fio ищется через индекс имен в памяти (на PostgreSQL - триграммные индексы), город -
+ * по вхождению в название, поэтому небольшую таблицу cities просматривать можно
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.locations=classpath:db/migration/sn",
+        "spring.datasource.url=jdbc:h2:mem:filter-index-advisor",
+        "sn.graph.enabled=false",
+        "sn.search.name-index.enabled=true",
+        "sn.friends-count.repair-interval=0"})
+class FilterIndexAdvisorTest {
+
+    private static final String[] FIELDS = {"fio", "city", "minAge", "maxAge", "gender"};
+
+    @Autowired
+    ScaleDataGenerator generator;
+
+    @Autowired
+    NameTrigramIndex nameIndex;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Ни одна комбинация полей фильтра не просматривает таблицу users целиком")
+    void everyFilterCombination_UsesIndex() {
+        long[] ids = generator.generate(ScaleDataSpec.builder().users(5000).averageFriends(10).cities(200).seed(23).build());
+        jdbcTemplate.execute("ANALYZE");
+        nameIndex.rebuild();
+        String city = jdbcTemplate.queryForObject("SELECT name FROM cities ORDER BY id LIMIT 1", String.class);
+        String surname = jdbcTemplate.queryForObject("SELECT surname FROM users WHERE id = ?", String.class, ids[100]);
+
+        List<String> scans = new ArrayList<>();
+        for (int mask = 1; mask < 1 << FIELDS.length; mask++) {
+            UserFilter filter = new UserFilter();
+            if ((mask & 1) != 0) { filter.setFio(surname); }
+            if ((mask & 2) != 0) { filter.setCity(city); }
+            if ((mask & 4) != 0) { filter.setMinAge(30); }
+            if ((mask & 8) != 0) { filter.setMaxAge(35); }
+            if ((mask & 16) != 0) { filter.setGender(Genders.F); }
+
+            CapturedStatements.start();
+            userRepository.count(userService.usersSpecification(ids[0], filter));
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + CapturedStatements.last(" users "), String.class);
+            if (scansUsers(plan)) {
+                scans.add(fields(mask) + ":\n" + plan);
+            }
+        }
+        Assertions.assertEquals(List.of(), scans);
+    }
+
+    /**
+     * Доступ к таблице users в плане H2 - комментарий после ее имени в секции FROM
+     */
+    private static boolean scansUsers(String plan) {
+        String users = plan.substring(plan.indexOf("\"PUBLIC\".\"USERS\""));
+        String access = users.substring(users.indexOf("/*"), users.indexOf("*/"));
+        return access.contains("tableScan");
+    }
+
+    private static String fields(int mask) {
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < FIELDS.length; i++) {
+            if ((mask & 1 << i) != 0) {
+                fields.add(FIELDS[i]);
+            }
+        }
+        return String.join("+", fields);
+    }
+}
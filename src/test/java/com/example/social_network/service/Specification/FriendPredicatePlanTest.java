@@ -0,0 +1,114 @@
+package com.example.social_network.service.Specification;
+
+import com.example.social_network.domain.User;
+import com.example.social_network.repository.UserRepository;
+import com.example.social_network.support.CapturedStatements;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Интеграционные тесты планов запросов с условиями дружбы: подзапрос к friendship
+ * должен выполняться по индексу, а не полным просмотром таблицы
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.locations=classpath:db/migration/sn",
+        "sn.graph.enabled=false"})
+@Sql(scripts = "/sql/user-page-seed.sql", config = @SqlConfig(encoding = "UTF-8"))
+@Transactional
+class FriendPredicatePlanTest {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void init() {
+        user = userRepository.findById(1L).get();
+        CapturedStatements.start();
+    }
+
+    @Test
+    @DisplayName("Друзья пользователя: EXISTS по первичному ключу friendship")
+    void isFriend_IndexLookup() {
+        List<User> friends = userRepository.findAll(BaseSpecification.isFriend(user));
+
+        Assertions.assertEquals(List.of(2L, 3L), ids(friends));
+        assertFriendshipByIndex(explain(CapturedStatements.last("friendship")));
+    }
+
+    @Test
+    @DisplayName("Не друзья пользователя: NOT EXISTS по первичному ключу friendship")
+    void notFriend_IndexLookup() {
+        List<User> others = userRepository.findAll(BaseSpecification.notFriend(user));
+
+        Assertions.assertEquals(41, others.size());
+        Assertions.assertFalse(ids(others).contains(1L));
+        Assertions.assertFalse(ids(others).contains(2L));
+        assertFriendshipByIndex(explain(CapturedStatements.last("friendship")));
+    }
+
+    @Test
+    @DisplayName("Миграция дописывает обратные записи дружбы и может выполняться повторно")
+    void migration_BackfillsReverseRows() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(database);
+            jdbc.execute("CREATE TABLE friendship (id_user INTEGER, id_friend INTEGER, PRIMARY KEY (id_user, id_friend))");
+            jdbc.update("INSERT INTO friendship VALUES (1, 2), (3, 1), (4, 5), (5, 4)");
+            ResourceDatabasePopulator migration = new ResourceDatabasePopulator(
+                    new ClassPathResource("db/migration/sn/V9__store_friendship_in_both_directions.sql"));
+            migration.execute(database);
+            migration.execute(database);
+
+            Assertions.assertEquals(
+                    List.of("1-2", "1-3", "2-1", "3-1", "4-5", "5-4"),
+                    jdbc.queryForList("SELECT id_user || '-' || id_friend FROM friendship ORDER BY 1", String.class));
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    /**
+     * План запроса H2. Все параметры запросов в тестах - идентификатор пользователя
+     */
+    private String explain(String sql) {
+        Object[] params = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        Arrays.fill(params, user.getId());
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, params);
+    }
+
+    private static void assertFriendshipByIndex(String plan) {
+        String friendship = plan.substring(plan.indexOf("\"PUBLIC\".\"FRIENDSHIP\""));
+        String access = friendship.substring(friendship.indexOf("/*"), friendship.indexOf("*/"));
+        Assertions.assertFalse(access.contains("tableScan"), plan);
+        Assertions.assertTrue(access.contains("ID_USER ="), plan);
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.social_network.service;
+
+import com.example.social_network.domain.City;
+import com.example.social_network.domain.User;
+import com.example.social_network.dto.SuggestionDto;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.repository.UserRepository;
+import com.example.social_network.service.graph.FriendshipGraph;
+import com.example.social_network.service.graph.FriendshipGraphService;
+import com.example.social_network.service.graph.IntIntMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Юнит-тесты рекомендаций "Возможно, вы знакомы"
+ */
+class SuggestionServiceTest {
+
+    @Mock
+    FriendshipGraphService friendshipGraph;
+
+    @Mock
+    UserRepository userRepository;
+
+    private SuggestionService suggestionService;
+    private FriendshipGraph graph;
+    private final City moscow = City.builder().id(34L).name("г Москва").build();
+
+    @BeforeEach
+    void init() {
+        MockitoAnnotations.initMocks(this);
+        suggestionService = new SuggestionService(friendshipGraph, userRepository, 100, 100, 100);
+
+        // 1 дружит с 2 и 3; 4 - общий друг 2 и 3; 5 и 6 - друзья только 2
+        graph = new FriendshipGraph(16);
+        graph.load(new int[]{1, 1, 2, 3, 2, 2}, new int[]{2, 3, 4, 4, 5, 6}, 6);
+        Mockito.when(friendshipGraph.snapshot()).thenReturn(graph.snapshot());
+        Mockito.when(userRepository.findAllAsListDto(Mockito.any(), Mockito.any(), Mockito.anyInt()))
+                .thenAnswer(invocation -> LongStream.rangeClosed(1, 50)
+                        .mapToObj(id -> UserByListDto.builder().id(id).fio("User " + id).build())
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Кандидаты ранжируются по общим друзьям, затем по городу")
+    void getSuggestions_RankedByMutualThenCity() {
+        User user = User.builder().id(1L).city(moscow).interests("books").build();
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findCityAndInterests(Mockito.anyCollection())).thenReturn(List.of(
+                new Object[]{4L, null, null},
+                new Object[]{5L, null, null},
+                new Object[]{6L, 34L, null}));
+
+        List<SuggestionDto> suggestions = suggestionService.getSuggestions(1L, 10);
+
+        Assertions.assertEquals(List.of(4L, 6L, 5L), suggestions.stream()
+                .map(s -> s.getUser().getId())
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(2, suggestions.get(0).getMutualFriends());
+        Assertions.assertTrue(suggestions.get(1).isSameCity());
+        Assertions.assertEquals("User 6", suggestions.get(1).getUser().getFio());
+    }
+
+    @Test
+    @DisplayName("Все кандидаты с равным последнему количеством общих друзей ранжируются по городу")
+    void getSuggestions_TiedWithCutOff_RankedByCity() {
+        int[] from = new int[22];
+        int[] to = new int[22];
+        from[0] = 1;
+        to[0] = 2;
+        for (int i = 1; i <= 21; i++) {
+            from[i] = 2;
+            to[i] = 9 + i;
+        }
+        graph.load(from, to, from.length);
+        Mockito.when(friendshipGraph.snapshot()).thenReturn(graph.snapshot());
+        User user = User.builder().id(1L).city(moscow).build();
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findCityAndInterests(Mockito.anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            invocation.<Collection<Long>>getArgument(0).forEach(id -> rows.add(
+                    new Object[]{id, id == 30L ? moscow.getId() : null, null}));
+            return rows;
+        });
+
+        // у всех 21 кандидата по одному общему другу, из Москвы - только кандидат с самым большим id
+        List<SuggestionDto> suggestions = suggestionService.getSuggestions(1L, 1);
+
+        Assertions.assertEquals(30L, suggestions.get(0).getUser().getId());
+        Assertions.assertTrue(suggestions.get(0).isSameCity());
+    }
+
+    @Test
+    @DisplayName("Равные последнему кандидаты сверх max-tied отбрасываются, лучшие остаются все")
+    void selectCandidates_TiedCapped() {
+        IntIntMap mutual = new IntIntMap(64);
+        mutual.add(40, 3);
+        for (int id = 10; id < 30; id++) {
+            mutual.add(id, 1);
+        }
+        SuggestionService capped = new SuggestionService(friendshipGraph, userRepository, 100, 100, 5);
+
+        Assertions.assertEquals(7, capped.selectCandidates(mutual, 2).size());
+        Assertions.assertEquals(21, suggestionService.selectCandidates(mutual, 2).size());
+        Assertions.assertEquals(1, suggestionService.selectCandidates(mutual, 1).size());
+    }
+
+    @Test
+    @DisplayName("Друзья и сам пользователь не попадают в кандидаты")
+    void countMutualFriends_ExcludesFriendsAndSelf() {
+        IntIntMap mutual = suggestionService.countMutualFriends(graph.snapshot(), 1);
+
+        Assertions.assertTrue(mutual.get(1, 0) < 0);
+        Assertions.assertTrue(mutual.get(2, 0) < 0);
+        Assertions.assertTrue(mutual.get(3, 0) < 0);
+        Assertions.assertEquals(2, mutual.get(4, 0));
+        Assertions.assertEquals(1, mutual.get(5, 0));
+    }
+
+    @Test
+    @DisplayName("Обход друзей друга-знаменитости ограничен")
+    void countMutualFriends_HubFanOutCapped() {
+        int[] from = new int[1001];
+        int[] to = new int[1001];
+        from[0] = 1;
+        to[0] = 2;
+        for (int i = 1; i <= 1000; i++) {
+            from[i] = 2;
+            to[i] = 100 + i;
+        }
+        graph.load(from, to, from.length);
+
+        SuggestionService capped = new SuggestionService(friendshipGraph, userRepository, 100, 3, 100);
+        IntIntMap mutual = capped.countMutualFriends(graph.snapshot(), 1);
+
+        // сам пользователь, друг-знаменитость и не более трех его друзей
+        Assertions.assertTrue(mutual.size() <= 2 + 3);
+    }
+}
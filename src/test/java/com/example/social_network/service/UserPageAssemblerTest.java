@@ -0,0 +1,135 @@
+package com.example.social_network.service;
+
+import com.example.social_network.datasource.ReadReplicaDataSource;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.dto.UserPageDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Юнит-тесты параллельной сборки страницы пользователя
+ */
+class UserPageAssemblerTest {
+
+    @Mock
+    UserService userService;
+
+    private UserPageAssembler assembler;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void init() {
+        MockitoAnnotations.initMocks(this);
+        assembler = new UserPageAssembler(userService, true, 4, 16, Duration.ofSeconds(5), Duration.ofMillis(200));
+        Mockito.when(userService.getProfile(1L))
+                .thenAnswer(invocation -> UserPageDto.builder().id(1L).fio("Name Surname").friendsCount(1L).build());
+        Mockito.when(userService.getFriendsPreview(1L)).thenReturn(List.of(UserByListDto.builder().id(2L).build()));
+    }
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        assembler.shutdown();
+    }
+
+    @Test
+    @DisplayName("Профиль с количеством друзей и первые друзья собираются в одну страницу")
+    void getUser_AllParts() {
+        UserPageDto page = assembler.getUser(1L);
+
+        Assertions.assertEquals("Name Surname", page.getFio());
+        Assertions.assertEquals(1, page.getFriends().size());
+        Assertions.assertEquals(1L, page.getFriendsCount());
+        Assertions.assertFalse(page.isPartial());
+        Mockito.verify(userService, Mockito.never()).getUser(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Части выполняются параллельно: медленные друзья не задерживают страницу дольше таймаута")
+    void getUser_SlowFriends_Partial() {
+        Mockito.when(userService.getFriendsPreview(1L)).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        long start = System.nanoTime();
+        UserPageDto page = assembler.getUser(1L);
+
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        Assertions.assertTrue(page.isPartial());
+        Assertions.assertTrue(page.getFriends().isEmpty());
+        Assertions.assertEquals(1L, page.getFriendsCount());
+    }
+
+    @Test
+    @DisplayName("Ошибка получения друзей - страница без друзей, но с их количеством")
+    void getUser_FailedFriends_Partial() {
+        Mockito.when(userService.getFriendsPreview(1L)).thenThrow(new IllegalStateException("db"));
+
+        UserPageDto page = assembler.getUser(1L);
+
+        Assertions.assertTrue(page.isPartial());
+        Assertions.assertTrue(page.getFriends().isEmpty());
+        Assertions.assertEquals(1L, page.getFriendsCount());
+    }
+
+    @Test
+    @DisplayName("Ошибка профиля пробрасывается как есть")
+    void getUser_ProfileNotFound_Throws() {
+        Mockito.when(userService.getProfile(1L)).thenThrow(new RuntimeException("User not found"));
+
+        RuntimeException ex = Assertions.assertThrows(RuntimeException.class, () -> assembler.getUser(1L));
+        Assertions.assertEquals("User not found", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Профиль не получен за таймаут - ошибка")
+    void getUser_SlowProfile_Throws() {
+        assembler = new UserPageAssembler(userService, true, 4, 16, Duration.ofMillis(100), Duration.ofMillis(100));
+        Mockito.when(userService.getProfile(1L)).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return UserPageDto.builder().id(1L).build();
+        });
+
+        Assertions.assertThrows(IllegalStateException.class, () -> assembler.getUser(1L));
+    }
+
+    @Test
+    @DisplayName("Страница, запрошенная с основной БД, читает ее во всех частях")
+    void getUser_OnPrimary_PartsOnPrimary() {
+        Mockito.when(userService.getProfile(1L)).thenAnswer(invocation -> UserPageDto.builder().id(1L)
+                .fio(String.valueOf(ReadReplicaDataSource.isPrimaryRequired())).build());
+        Mockito.when(userService.getFriendsPreview(1L)).thenAnswer(invocation -> List.of(UserByListDto.builder()
+                .fio(String.valueOf(ReadReplicaDataSource.isPrimaryRequired())).build()));
+
+        UserPageDto page = ReadReplicaDataSource.onPrimary(() -> assembler.getUser(1L));
+        Assertions.assertEquals("true", page.getFio());
+        Assertions.assertEquals("true", page.getFriends().get(0).getFio());
+
+        page = assembler.getUser(1L);
+        Assertions.assertEquals("false", page.getFio());
+        Assertions.assertEquals("false", page.getFriends().get(0).getFio());
+    }
+
+    @Test
+    @DisplayName("Режим выключен - страница собирается последовательно сервисом")
+    void getUser_Disabled_Sequential() {
+        assembler = new UserPageAssembler(userService, false, 4, 16, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        Mockito.when(userService.getUser(1L)).thenReturn(UserPageDto.builder().id(1L).build());
+
+        Assertions.assertEquals(1L, assembler.getUser(1L).getId());
+        Mockito.verify(userService, Mockito.never()).getProfile(Mockito.anyLong());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.social_network.service;
+
+import com.example.social_network.datasource.ReadReplicaDataSource;
+import com.example.social_network.dto.CacheStatsDto;
+import com.example.social_network.dto.UserPageDto;
+import com.example.social_network.service.events.FriendshipChangedEvent;
+import com.example.social_network.service.events.UserDeletedEvent;
+import com.example.social_network.service.events.UserSavedEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Юнит-тесты кэша страниц пользователей
+ */
+class UserPageCacheTest {
+
+    @Mock
+    UserPageAssembler pageAssembler;
+
+    private UserPageCache cache;
+
+    @BeforeEach
+    void init() {
+        MockitoAnnotations.initMocks(this);
+        cache = new UserPageCache(pageAssembler, 100, Duration.ofMinutes(1));
+        Mockito.when(pageAssembler.getUser(Mockito.anyLong()))
+                .thenAnswer(invocation -> page(invocation.getArgument(0), "Name Surname"));
+    }
+
+    @Test
+    @DisplayName("Повторное получение страницы не обращается к сервису, счетчики попаданий и промахов")
+    void getUser_Cached() {
+        cache.getUser(1L);
+        cache.getUser(1L);
+        cache.getUser(2L);
+
+        Mockito.verify(pageAssembler, Mockito.times(1)).getUser(1L);
+        CacheStatsDto stats = cache.getStats();
+        Assertions.assertEquals(1, stats.getHits());
+        Assertions.assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    @DisplayName("Изменение пользователя и дружбы удаляет страницы обоих пользователей")
+    void events_Invalidate() {
+        cache.getUser(1L);
+        cache.getUser(2L);
+        cache.getUser(3L);
+
+        cache.onUserSaved(new UserSavedEvent(1L, "Name", "Surname"));
+        cache.onFriendshipChanged(new FriendshipChangedEvent(2L, 3L, true));
+        cache.getUser(1L);
+        cache.getUser(2L);
+        cache.getUser(3L);
+
+        Mockito.verify(pageAssembler, Mockito.times(2)).getUser(1L);
+        Mockito.verify(pageAssembler, Mockito.times(2)).getUser(2L);
+        Mockito.verify(pageAssembler, Mockito.times(2)).getUser(3L);
+    }
+
+    @Test
+    @DisplayName("Удаление пользователя удаляет страницы его друзей, без списка друзей - весь кэш")
+    void userDeleted_InvalidateFriends() {
+        cache.getUser(1L);
+        cache.getUser(2L);
+        cache.getUser(3L);
+
+        cache.onUserDeleted(new UserDeletedEvent(1L, List.of(2L)));
+        cache.getUser(3L);
+        Mockito.verify(pageAssembler, Mockito.times(1)).getUser(3L);
+        cache.getUser(2L);
+        Mockito.verify(pageAssembler, Mockito.times(2)).getUser(2L);
+
+        cache.onUserDeleted(new UserDeletedEvent(4L));
+        cache.getUser(3L);
+        Mockito.verify(pageAssembler, Mockito.times(2)).getUser(3L);
+    }
+
+    @Test
+    @DisplayName("Страница, прочитанная до изменения, не попадает в кэш после удаления")
+    void concurrentUpdate_StalePageNotCached() {
+        Mockito.when(pageAssembler.getUser(1L)).thenAnswer(invocation -> {
+            // изменение зафиксировано, пока читалась старая страница
+            cache.onUserSaved(new UserSavedEvent(1L, "New", "Name"));
+            return page(1L, "Old Name");
+        }).thenAnswer(invocation -> page(1L, "New Name"));
+
+        Assertions.assertEquals("Old Name", cache.getUser(1L).getFio());
+        Assertions.assertEquals("New Name", cache.getUser(1L).getFio());
+        Assertions.assertEquals("New Name", cache.getUser(1L).getFio());
+        Mockito.verify(pageAssembler, Mockito.times(2)).getUser(1L);
+    }
+
+    @Test
+    @DisplayName("Страница без друзей (partial) не кэшируется")
+    void getUser_PartialNotCached() {
+        Mockito.when(pageAssembler.getUser(1L))
+                .thenAnswer(invocation -> UserPageDto.builder().id(1L).partial(true).build())
+                .thenAnswer(invocation -> page(1L, "Name Surname"));
+
+        Assertions.assertTrue(cache.getUser(1L).isPartial());
+        Assertions.assertFalse(cache.getUser(1L).isPartial());
+        cache.getUser(1L);
+        Mockito.verify(pageAssembler, Mockito.times(2)).getUser(1L);
+    }
+
+    @Test
+    @DisplayName("После изменения страница читается с основной БД, а не с отстающей реплики")
+    void getUser_LaggingReplica_FillFromPrimary() {
+        EmbeddedDatabase primary = database("Old Name");
+        EmbeddedDatabase replica = database("Old Name");
+        // отставание в пределах max-lag: реплика исправна, но изменение до нее еще не дошло
+        ReadReplicaDataSource dataSource = new ReadReplicaDataSource(primary, Map.of("replica-0", replica),
+                Duration.ofSeconds(10), "SELECT 1", Duration.ZERO);
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            readOnly.setReadOnly(true);
+            Mockito.when(pageAssembler.getUser(1L)).thenAnswer(invocation -> page(1L, readOnly.execute(status ->
+                    jdbc.queryForObject("SELECT fio FROM pages WHERE id = 1", String.class))));
+            Assertions.assertEquals("Old Name", cache.getUser(1L).getFio());
+
+            new JdbcTemplate(primary).update("UPDATE pages SET fio = 'New Name' WHERE id = 1");
+            cache.onUserSaved(new UserSavedEvent(1L, "New", "Name"));
+
+            Assertions.assertEquals("Old Name", pageAssembler.getUser(1L).getFio());
+            Assertions.assertEquals("New Name", cache.getUser(1L).getFio());
+            Assertions.assertEquals("New Name", cache.getUser(1L).getFio());
+        } finally {
+            dataSource.close();
+            primary.shutdown();
+            replica.shutdown();
+        }
+    }
+
+    private static EmbeddedDatabase database(String fio) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("CREATE TABLE pages (id BIGINT PRIMARY KEY, fio VARCHAR(50))");
+        jdbc.update("INSERT INTO pages (id, fio) VALUES (1, ?)", fio);
+        return database;
+    }
+
+    private static UserPageDto page(Long id, String fio) {
+        return UserPageDto.builder().id(id).fio(fio).build();
+    }
+}
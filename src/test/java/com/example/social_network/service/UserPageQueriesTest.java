@@ -0,0 +1,139 @@
+package com.example.social_network.service;
+
+import com.example.social_network.dto.CursorPageDto;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.dto.UserPageDto;
+import com.example.social_network.service.filters.FriendFilter;
+import com.example.social_network.service.filters.UserFilter;
+import com.example.social_network.service.pagination.TotalMode;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Интеграционные тесты количества запросов к БД при получении страницы пользователя и списков пользователей.
+ * Граф дружбы выключен, чтобы проверить вариант без него: количество друзей из счетчика users.friends_count,
+ * в том числе для строк таблицы поиска user_search
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.locations=classpath:db/migration/sn",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "sn.graph.enabled=false",
+        "sn.page.friends-preview-size=3"})
+@Sql(scripts = "/sql/user-page-seed.sql", config = @SqlConfig(encoding = "UTF-8"))
+@Transactional
+class UserPageQueriesTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Страница пользователя с двумя друзьями - два запроса, количество друзей из счетчика")
+    void getUser_FewFriends_FixedStatements() {
+        UserPageDto page = getUser(1L);
+
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(2L, page.getFriendsCount());
+        Assertions.assertEquals(List.of(2L, 3L), ids(page.getFriends()));
+        Assertions.assertEquals("Алтайский край", page.getCity().getRegionName());
+    }
+
+    @Test
+    @DisplayName("Страница пользователя с сорока друзьями - те же два запроса и ограниченный список друзей")
+    void getUser_ManyFriends_FixedStatements() {
+        UserPageDto page = getUser(4L);
+
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(40L, page.getFriendsCount());
+        Assertions.assertEquals(List.of(5L, 6L, 7L), ids(page.getFriends()));
+    }
+
+    @Test
+    @DisplayName("Список друзей с точным количеством - строки проекцией, из сущностей загружается только сам пользователь")
+    void getFriends_Exact_NoEntities() {
+        entityManager.clear();
+        statistics.clear();
+        Page<UserByListDto> page = (Page<UserByListDto>) userService.getFriends(
+                4L, new FriendFilter(null), PageRequest.of(1, 10), TotalMode.EXACT);
+
+        Assertions.assertEquals(40, page.getTotalElements());
+        Assertions.assertEquals(List.of(15L, 16L, 17L), ids(page.getContent()).subList(0, 3));
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("Список друзей по ключу - ключ следующей страницы из колонок проекции, без загрузки друзей")
+    void getFriends_Cursor_NoEntities() {
+        entityManager.clear();
+        statistics.clear();
+        CursorPageDto<UserByListDto> first = userService.getFriends(4L, new FriendFilter(null), null, 10);
+        CursorPageDto<UserByListDto> second = userService.getFriends(4L, new FriendFilter(null), first.getNextCursor(), 10);
+
+        Assertions.assertEquals(List.of(15L, 16L, 17L), ids(second.getContent()).subList(0, 3));
+        // пользователь выбирается один раз, во втором запросе страницы он уже в контексте персистентности
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("Поиск по таблице поиска без графа - количество друзей из счетчика одним запросом на страницу")
+    void findAll_ReadModel_FriendsCountFromCounter() {
+        UserFilter filter = new UserFilter();
+        filter.setFio("иванов");
+        entityManager.clear();
+        statistics.clear();
+        Slice<UserByListDto> slice = userService.findAll(1L, filter, PageRequest.of(0, 50), TotalMode.NONE);
+
+        Map<Long, Integer> friendsCounts = slice.getContent().stream()
+                .collect(Collectors.toMap(UserByListDto::getId, UserByListDto::getFriendsCount));
+        Assertions.assertEquals(40, friendsCounts.get(4L));
+        Assertions.assertEquals(1, friendsCounts.get(5L));
+        // пользователь, от лица которого ищем, строки поиска и счетчики друзей этих строк
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+
+        CursorPageDto<UserByListDto> page = userService.findAll(1L, filter, null, 7);
+        Assertions.assertTrue(page.getContent().stream().allMatch(user -> user.getFriendsCount() != null));
+    }
+
+    private UserPageDto getUser(Long id) {
+        entityManager.clear();
+        statistics.clear();
+        return userService.getUser(id);
+    }
+
+    private static List<Long> ids(List<UserByListDto> users) {
+        return users.stream().map(UserByListDto::getId).collect(Collectors.toList());
+    }
+}
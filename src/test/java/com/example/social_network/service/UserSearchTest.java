@@ -0,0 +1,161 @@
+package com.example.social_network.service;
+
+import com.example.social_network.domain.City;
+import com.example.social_network.domain.User;
+import com.example.social_network.domain.UserSearch;
+import com.example.social_network.dto.CursorPageDto;
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.dto.UserEditDto;
+import com.example.social_network.dto.UserRegisterDto;
+import com.example.social_network.repository.UserRepository;
+import com.example.social_network.repository.UserSearchRepository;
+import com.example.social_network.service.filters.UserFilter;
+import com.example.social_network.service.graph.FriendshipGraphService;
+import com.example.social_network.service.pagination.TotalMode;
+import com.example.social_network.service.pagination.UserCursor;
+import com.example.social_network.support.CapturedStatements;
+import com.example.social_network.utils.Genders;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Интеграционные тесты таблицы поиска пользователей user_search: синхронизация с users
+ * и поиск по фильтрам без соединения с users и cities
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.locations=classpath:db/migration/sn",
+        "spring.datasource.url=jdbc:h2:mem:user-search",
+        "sn.friends-count.repair-interval=0"})
+@Sql(scripts = "/sql/user-page-seed.sql", config = @SqlConfig(encoding = "UTF-8"))
+@Transactional
+class UserSearchTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserSearchRepository userSearchRepository;
+
+    @Autowired
+    FriendshipGraphService friendshipGraph;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Test
+    @DisplayName("Создание, изменение и удаление пользователя обновляют его строку поиска")
+    void saveUpdateDelete_SyncSearchRow() throws Exception {
+        Long id = userService.save(UserRegisterDto.builder().name("Пётр").surname("СИДОРОВ").build());
+        Assertions.assertEquals(Map.of("FIO", "пётр сидоров", "NAME", "Пётр", "SURNAME", "СИДОРОВ"),
+                jdbcTemplate.queryForMap("SELECT fio, name, surname FROM user_search WHERE user_id = ?", id));
+
+        userService.updateUser(UserEditDto.builder().name("Петр").surname("Сидоров")
+                .dateOfBirth(LocalDate.of(2000, 5, 5)).gender(Genders.M)
+                .city(City.builder().id(2L).build()).build(), id);
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT fio, city_name, region_id, date_of_birth, gender FROM user_search WHERE user_id = ?", id);
+        Assertions.assertEquals("петр сидоров", row.get("FIO"));
+        Assertions.assertEquals("г бийск", row.get("CITY_NAME"));
+        Assertions.assertEquals(1, ((Number) row.get("REGION_ID")).intValue());
+        Assertions.assertEquals("2000-05-05", row.get("DATE_OF_BIRTH").toString());
+        Assertions.assertEquals("M", row.get("GENDER"));
+
+        userService.delete(id);
+        entityManager.flush();
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_search WHERE user_id = ?", Integer.class, id));
+    }
+
+    @Test
+    @DisplayName("Поиск по таблице поиска находит тех же пользователей, что и по users, одним запросом к user_search")
+    void searchSpecification_SameAsUsers() {
+        List<Consumer<UserFilter>> filters = List.of(
+                filter -> { },
+                filter -> filter.setFio("иванова"),
+                filter -> filter.setFio("bdfy"),
+                filter -> filter.setFio("Друг1 ИВАНОВА"),
+                filter -> filter.setCity("Бийск"),
+                filter -> { filter.setCity("БАРНАУЛ"); filter.setGender(Genders.M); },
+                filter -> { filter.setMinAge(20); filter.setMaxAge(60); },
+                filter -> filter.setMaxAge(20));
+
+        for (Long userId : List.of(1L, 4L)) {
+            for (Consumer<UserFilter> setup : filters) {
+                UserFilter filter = new UserFilter();
+                setup.accept(filter);
+                List<Long> expected = userRepository.findAll(userService.usersSpecification(userId, filter)).stream()
+                        .map(User::getId).sorted().collect(Collectors.toList());
+
+                entityManager.clear();
+                UserFilter searchFilter = new UserFilter();
+                setup.accept(searchFilter);
+                Specification<UserSearch> spec = userService.searchSpecification(userId, searchFilter);
+                CapturedStatements.start();
+                List<Long> actual = userSearchRepository.findAll(spec).stream()
+                        .map(UserSearch::getId).sorted().collect(Collectors.toList());
+
+                Assertions.assertEquals(expected, actual, userId + " " + searchFilter.toCacheKey());
+                List<String> statements = CapturedStatements.all();
+                Assertions.assertEquals(1, statements.size(), statements.toString());
+                Assertions.assertFalse(statements.get(0).matches("(?s).*\\b(users|cities)\\b.*"), statements.get(0));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Страницы поиска: по ключу (surname, name, id) и со смещением, количество друзей из графа")
+    void findAll_ReadModelPages() {
+        friendshipGraph.reload();
+        UserFilter filter = new UserFilter();
+        filter.setFio("иванов");
+        List<Long> expected = userRepository.findAll(userService.usersSpecification(1L, filter), UserCursor.BY_FIO)
+                .stream().map(User::getId).collect(Collectors.toList());
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDto<UserByListDto> page = userService.findAll(1L, filter, cursor, 7);
+            page.getContent().forEach(user -> walked.add(user.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        Assertions.assertEquals(expected, walked);
+
+        Page<UserByListDto> page = (Page<UserByListDto>) userService.findAll(
+                1L, filter, PageRequest.of(1, 10, UserCursor.BY_FIO), TotalMode.EXACT);
+        Assertions.assertEquals(expected.size(), page.getTotalElements());
+        Assertions.assertEquals(expected.subList(10, 20),
+                page.getContent().stream().map(UserByListDto::getId).collect(Collectors.toList()));
+
+        Slice<UserByListDto> slice = userService.findAll(1L, filter, PageRequest.of(0, 50), TotalMode.NONE);
+        Map<Long, Integer> friendsCounts = slice.getContent().stream()
+                .collect(Collectors.toMap(UserByListDto::getId, UserByListDto::getFriendsCount));
+        Assertions.assertEquals(40, friendsCounts.get(4L));
+        Assertions.assertEquals(1, friendsCounts.get(5L));
+    }
+}
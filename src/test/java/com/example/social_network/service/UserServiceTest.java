@@ -4,8 +4,13 @@ import com.example.social_network.domain.City;
 import com.example.social_network.domain.User;
 import com.example.social_network.dto.*;
 import com.example.social_network.repository.UserRepository;
+import com.example.social_network.repository.UserSearchRepository;
 import com.example.social_network.service.filters.FriendFilter;
 import com.example.social_network.service.filters.BaseFilter;
+import com.example.social_network.service.graph.FriendshipGraphService;
+import com.example.social_network.service.pagination.CountCache;
+import com.example.social_network.service.search.NameTrigramIndex;
+import com.example.social_network.service.search.UserSearchWriter;
 import com.example.social_network.utils.Genders;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -32,6 +38,24 @@ class UserServiceTest {
     @Mock
     CityService cityService;
 
+    @Mock
+    FriendshipGraphService friendshipGraph;
+
+    @Mock
+    NameTrigramIndex nameIndex;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    CountCache countCache;
+
+    @Mock
+    UserSearchRepository userSearchRepository;
+
+    @Mock
+    UserSearchWriter userSearchWriter;
+
 
     private UserService userService;
     private User user;
@@ -40,7 +64,8 @@ class UserServiceTest {
     @BeforeEach
     void init() {
         MockitoAnnotations.initMocks(this);
-        this.userService = new UserService(userRepository, cityService);
+        this.userService = new UserService(userRepository, cityService, friendshipGraph, nameIndex, eventPublisher, countCache,
+                userSearchRepository, userSearchWriter);
 
         city =  City.builder()
                 .id(34L)
@@ -75,10 +100,13 @@ class UserServiceTest {
     void getUser_ReturnUserPageDto() {
         UserPageDto userDto = userService.convertToUserPageDto(user);
 
-        Mockito.when(userRepository.findById(Mockito.anyLong())).thenReturn(java.util.Optional.ofNullable(user));
+        userDto.setFriendsCount(0L);
+
+        Mockito.when(userRepository.findProfileById(Mockito.anyLong())).thenReturn(java.util.Optional.ofNullable(user));
+        Mockito.when(friendshipGraph.friendIds(Mockito.anyLong())).thenReturn(new ArrayList<>());
         Assertions.assertEquals(userDto, userService.getUser(1L));
 
-        Mockito.verify(userRepository, Mockito.times(1)).findById(Mockito.anyLong());
+        Mockito.verify(userRepository, Mockito.times(1)).findProfileById(Mockito.anyLong());
         Mockito.verifyNoMoreInteractions(userRepository);
     }
 
@@ -166,11 +194,24 @@ class UserServiceTest {
     @Test
     @DisplayName("Добавление друга пользователю с userId")
     void addFriend_Ok() {
-        Mockito.when(userRepository.addFriend(Mockito.anyLong(), Mockito.anyLong())).thenReturn(1);
+        Mockito.when(userRepository.addFriends(1L, List.of(2L))).thenReturn(new int[]{1});
+        userService.addFriend(1L, 2L);
+
+        Mockito.verify(userRepository, Mockito.times(1)).addFriends(1L, List.of(2L));
+        Mockito.verify(userRepository, Mockito.times(1)).adjustFriendsCount(List.of(1L, 2L), 1);
+        Mockito.verify(eventPublisher, Mockito.times(1)).publishEvent(Mockito.any(Object.class));
+        Mockito.verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Повторное добавление друга не меняет счетчики и не публикует событие")
+    void addFriend_AlreadyFriends() {
+        Mockito.when(userRepository.addFriends(1L, List.of(2L))).thenReturn(new int[]{0});
         userService.addFriend(1L, 2L);
 
-        Mockito.verify(userRepository, Mockito.times(1)).addFriend(Mockito.anyLong(), Mockito.anyLong());
+        Mockito.verify(userRepository, Mockito.times(1)).addFriends(1L, List.of(2L));
         Mockito.verifyNoMoreInteractions(userRepository);
+        Mockito.verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -0,0 +1,58 @@
+package com.example.social_network.service.exporting;
+
+import com.example.social_network.dto.UserByListDto;
+import com.example.social_network.utils.Genders;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Юнит-тесты записи выгрузки пользователей
+ */
+class UserRowWriterTest {
+
+    private static final List<UserByListDto> USERS = List.of(
+            new UserByListDto(1L, "Иван Иванов", Genders.M, 30),
+            new UserByListDto(2L, "Петр \"Петя\", Петров", null, null));
+
+    @Test
+    @DisplayName("NDJSON: один объект на строку")
+    void ndjson() throws IOException {
+        Assertions.assertEquals(
+                "{\"id\":1,\"fio\":\"Иван Иванов\",\"gender\":\"M\",\"age\":30}\n"
+                        + "{\"id\":2,\"fio\":\"Петр \\\"Петя\\\", Петров\",\"gender\":null,\"age\":null}\n",
+                write(ExportFormat.NDJSON, USERS));
+    }
+
+    @Test
+    @DisplayName("CSV: заголовок, кавычки вокруг значений с запятыми и кавычками, пустые значения")
+    void csv() throws IOException {
+        Assertions.assertEquals("id,fio,gender,age\r\n"
+                        + "1,Иван Иванов,M,30\r\n"
+                        + "2,\"Петр \"\"Петя\"\", Петров\",,\r\n",
+                write(ExportFormat.CSV, USERS));
+        Assertions.assertEquals("id,fio,gender,age\r\n", write(ExportFormat.CSV, List.of()));
+    }
+
+    @Test
+    @DisplayName("Формат по имени")
+    void format_Of() {
+        Assertions.assertEquals(ExportFormat.NDJSON, ExportFormat.of(null));
+        Assertions.assertEquals(ExportFormat.CSV, ExportFormat.of("csv"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ExportFormat.of("xml"));
+    }
+
+    private static String write(ExportFormat format, List<UserByListDto> users) throws IOException {
+        StringWriter out = new StringWriter();
+        UserRowWriter writer = format.writer(out);
+        for (UserByListDto user : users) {
+            writer.write(user);
+        }
+        writer.flush();
+        return out.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.social_network.service.generator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Юнит-тесты генератора синтетических данных
+ */
+class ScaleDataGeneratorTest {
+
+    private EmbeddedDatabase dataSource;
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void init() {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE regions (id SERIAL PRIMARY KEY, name VARCHAR(256))");
+        jdbc.execute("CREATE TABLE cities (id SERIAL PRIMARY KEY, name VARCHAR(256), region_id INTEGER)");
+        jdbc.execute("CREATE TABLE users (id SERIAL PRIMARY KEY, name VARCHAR(45) NOT NULL, "
+                + "surname VARCHAR(45) NOT NULL, date_of_birth DATE, gender CHAR(1), "
+                + "interests VARCHAR(512), city_id INTEGER REFERENCES cities (id), "
+                + "friends_count INTEGER NOT NULL DEFAULT 0)");
+        jdbc.execute("CREATE TABLE friendship (id_user INTEGER NOT NULL REFERENCES users (id), "
+                + "id_friend INTEGER NOT NULL REFERENCES users (id), PRIMARY KEY (id_user, id_friend))");
+        jdbc.execute("CREATE TABLE user_search (user_id INTEGER PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE, "
+                + "name VARCHAR(45) NOT NULL, surname VARCHAR(45) NOT NULL, fio VARCHAR(91) NOT NULL, "
+                + "city_name VARCHAR(256), region_id INTEGER, date_of_birth DATE, gender CHAR(1))");
+        jdbc.update("INSERT INTO regions (name) VALUES ('Алтайский край'), ('Приморский край')");
+    }
+
+    @AfterEach
+    void shutdown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    @DisplayName("Граф без петель и повторных ребер, число ребер соответствует модели")
+    void preferentialAttachment_Shape() {
+        int[] edges = FriendGraphGenerator.preferentialAttachment(1000, 5, new SplittableRandom(1));
+
+        Assertions.assertEquals(2 * (5 * 6 / 2 + 994 * 5), edges.length);
+        Set<Long> unique = new HashSet<>();
+        for (int i = 0; i < edges.length; i += 2) {
+            Assertions.assertNotEquals(edges[i], edges[i + 1]);
+            long a = Math.min(edges[i], edges[i + 1]);
+            long b = Math.max(edges[i], edges[i + 1]);
+            Assertions.assertTrue(unique.add(a << 32 | b));
+        }
+    }
+
+    @Test
+    @DisplayName("Степени вершин распределены с тяжелым хвостом: максимум много больше среднего")
+    void preferentialAttachment_PowerLaw() {
+        int nodes = 20_000;
+        int[] edges = FriendGraphGenerator.preferentialAttachment(nodes, 5, new SplittableRandom(7));
+        int[] degree = new int[nodes];
+        Arrays.stream(edges).forEach(node -> degree[node]++);
+
+        double average = (double) edges.length / nodes;
+        int max = Arrays.stream(degree).max().getAsInt();
+        Assertions.assertEquals(10.0, average, 0.1);
+        Assertions.assertTrue(max > 20 * average, "max degree " + max);
+        Assertions.assertTrue(Arrays.stream(degree).filter(d -> d <= average).count() > nodes / 2);
+    }
+
+    @Test
+    @DisplayName("Одинаковое начальное значение - одинаковые пользователи и граф")
+    void generators_Deterministic() {
+        List<Long> cities = List.of(1L, 2L, 3L);
+        Assertions.assertEquals(users(cities, 5), users(cities, 5));
+        Assertions.assertNotEquals(users(cities, 5), users(cities, 6));
+        Assertions.assertArrayEquals(
+                FriendGraphGenerator.preferentialAttachment(500, 3, new SplittableRandom(5)),
+                FriendGraphGenerator.preferentialAttachment(500, 3, new SplittableRandom(5)));
+    }
+
+    @Test
+    @DisplayName("Женские формы русских фамилий")
+    void feminine() {
+        Assertions.assertEquals("Иванова", NamePools.feminine("Иванов"));
+        Assertions.assertEquals("Ильина", NamePools.feminine("Ильин"));
+        Assertions.assertEquals("Островская", NamePools.feminine("Островский"));
+        Assertions.assertEquals("Черных", NamePools.feminine("Черных"));
+    }
+
+    @Test
+    @DisplayName("Генерация записывает пользователей, города, дружбу в обоих направлениях, количество друзей и строки поиска")
+    void generate_LoadsIntoDatabase() {
+        ScaleDataGenerator generator = new ScaleDataGenerator(
+                new ScaleDataLoader(jdbc), new DataSourceTransactionManager(dataSource), 300);
+
+        long[] ids = generator.generate(ScaleDataSpec.builder()
+                .users(1000).averageFriends(6).cities(10).build());
+
+        Assertions.assertEquals(1000, jdbc.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+        Assertions.assertEquals(10, jdbc.queryForObject("SELECT COUNT(*) FROM cities", Integer.class));
+        Assertions.assertEquals(2 * (3 * 4 / 2 + 996 * 3),
+                jdbc.queryForObject("SELECT COUNT(*) FROM friendship", Integer.class));
+        Assertions.assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM friendship f WHERE NOT EXISTS "
+                + "(SELECT 1 FROM friendship r WHERE r.id_user = f.id_friend AND r.id_friend = f.id_user)", Integer.class));
+        Assertions.assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM users u WHERE u.friends_count <> "
+                + "(SELECT COUNT(*) FROM friendship f WHERE f.id_user = u.id)", Integer.class));
+        Assertions.assertEquals(
+                jdbc.queryForList("SELECT id FROM users ORDER BY id", Long.class),
+                Arrays.stream(ids).boxed().collect(Collectors.toList()));
+        Assertions.assertEquals(0, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE city_id IS NULL OR gender NOT IN ('M', 'F')", Integer.class));
+        Assertions.assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM users u JOIN cities c ON c.id = u.city_id "
+                + "WHERE NOT EXISTS (SELECT 1 FROM user_search s WHERE s.user_id = u.id AND s.fio = LOWER(u.name) || ' ' || "
+                + "LOWER(u.surname) AND s.city_name = LOWER(c.name) AND s.gender = u.gender)", Integer.class));
+    }
+
+    private static List<GeneratedUser> users(List<Long> cities, long seed) {
+        UserGenerator generator = new UserGenerator(cities, 0.1, new SplittableRandom(seed));
+        return IntStream.range(0, 50).mapToObj(i -> generator.next()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.social_network.service.graph;
+
+import com.example.social_network.datasource.ReadReplicaDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Юнит-тесты загрузки графа дружбы из БД. Основная БД и реплика - разные базы H2
+ */
+class FriendshipGraphServiceTest {
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica;
+
+    @BeforeEach
+    void init() {
+        primary = database();
+        replica = database();
+    }
+
+    @AfterEach
+    void shutdown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    @DisplayName("Граф загружается с основной БД, а не с отстающей реплики")
+    void reload_LaggingReplica_FromPrimary() {
+        new JdbcTemplate(primary).update("INSERT INTO friendship VALUES (1, 2), (2, 1), (1, 3), (3, 1)");
+        // реплика исправна, но дружба 1-3 до нее еще не дошла
+        new JdbcTemplate(replica).update("INSERT INTO friendship VALUES (1, 2), (2, 1)");
+        ReadReplicaDataSource dataSource = new ReadReplicaDataSource(primary, Map.of("replica-0", replica),
+                Duration.ofSeconds(10), "SELECT 1", Duration.ZERO);
+        try {
+            FriendshipGraphService service = new FriendshipGraphService(dataSource,
+                    new DataSourceTransactionManager(dataSource), true, 16, Duration.ZERO);
+            service.reload();
+
+            Assertions.assertEquals(List.of(2L, 3L), service.friendIds(1L));
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Дружба, записанная в обход сервиса, попадает в граф при периодической перезагрузке")
+    void scheduledReload_PicksUpExternalWrites() throws InterruptedException {
+        JdbcTemplate jdbc = new JdbcTemplate(primary);
+        jdbc.update("INSERT INTO friendship VALUES (1, 2), (2, 1)");
+        FriendshipGraphService service = new FriendshipGraphService(primary,
+                new DataSourceTransactionManager(primary), true, 16, Duration.ofMillis(50));
+        try {
+            service.reload();
+            jdbc.update("INSERT INTO friendship VALUES (1, 3), (3, 1)");
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!List.of(2L, 3L).equals(service.friendIds(1L)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Assertions.assertEquals(List.of(2L, 3L), service.friendIds(1L));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static EmbeddedDatabase database() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        new JdbcTemplate(database).execute("CREATE TABLE friendship (id_user BIGINT, id_friend BIGINT)");
+        return database;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.social_network.service.graph;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Юнит-тесты графа дружбы в памяти
+ */
+class FriendshipGraphTest {
+
+    private FriendshipGraph graph;
+
+    @BeforeEach
+    void init() {
+        graph = new FriendshipGraph(4);
+        // дружба 1-2 записана в обоих направлениях, петля 5-5 отбрасывается
+        graph.load(new int[]{1, 1, 4, 2, 5}, new int[]{2, 3, 1, 1, 5}, 5);
+    }
+
+    @Test
+    @DisplayName("Загрузка строит симметричные отсортированные списки без повторов")
+    void load_SymmetricSortedUnique() {
+        Assertions.assertArrayEquals(new int[]{2, 3, 4}, graph.neighbours(1).toArray());
+        Assertions.assertArrayEquals(new int[]{1}, graph.neighbours(2).toArray());
+        Assertions.assertArrayEquals(new int[]{1}, graph.neighbours(4).toArray());
+        Assertions.assertEquals(0, graph.neighbours(5).size());
+        Assertions.assertEquals(0, graph.neighbours(100).size());
+        Assertions.assertEquals(3, graph.snapshot().edgeCount());
+    }
+
+    @Test
+    @DisplayName("Добавление и удаление дружбы видно с обеих сторон")
+    void addRemoveEdge_BothDirections() {
+        Assertions.assertTrue(graph.addEdge(3, 2));
+        Assertions.assertFalse(graph.addEdge(2, 3));
+        Assertions.assertTrue(graph.areFriends(2, 3));
+        Assertions.assertArrayEquals(new int[]{1, 3}, graph.neighbours(2).toArray());
+
+        Assertions.assertTrue(graph.removeEdge(1, 4));
+        Assertions.assertFalse(graph.removeEdge(4, 1));
+        Assertions.assertFalse(graph.areFriends(4, 1));
+        Assertions.assertArrayEquals(new int[]{2, 3}, graph.neighbours(1).toArray());
+        Assertions.assertEquals(3, graph.snapshot().edgeCount());
+    }
+
+    @Test
+    @DisplayName("Новые пользователи за пределами CSR и уплотнение после порога изменений")
+    void addEdge_NewVertices_Compaction() {
+        graph.addEdge(10, 11);
+        graph.addEdge(10, 12);
+        graph.addEdge(12, 13);
+        Assertions.assertArrayEquals(new int[]{11, 12}, graph.neighbours(10).toArray());
+        Assertions.assertArrayEquals(new int[]{10, 13}, graph.neighbours(12).toArray());
+        Assertions.assertArrayEquals(new int[]{2, 3, 4}, graph.neighbours(1).toArray());
+        Assertions.assertEquals(6, graph.snapshot().edgeCount());
+    }
+
+    @Test
+    @DisplayName("Снимок не меняется после записи")
+    void snapshot_Immutable() {
+        FriendshipGraph.Snapshot before = graph.snapshot();
+        graph.addEdge(2, 3);
+        Assertions.assertFalse(before.neighbours(2).contains(3));
+        Assertions.assertTrue(graph.snapshot().neighbours(2).contains(3));
+    }
+
+    @Test
+    @DisplayName("Удаление пользователя удаляет его из списков друзей")
+    void removeVertex_RemovedEverywhere() {
+        graph.removeVertex(1);
+        Assertions.assertEquals(0, graph.neighbours(1).size());
+        Assertions.assertEquals(0, graph.neighbours(2).size());
+        Assertions.assertEquals(0, graph.neighbours(3).size());
+        Assertions.assertEquals(0, graph.snapshot().edgeCount());
+    }
+
+    @Test
+    @DisplayName("Пакетное добавление и удаление пропускает повторы, себя и отсутствующие дружбы")
+    void addRemoveEdges_Batch() {
+        Assertions.assertEquals(3, graph.addEdges(1, new int[]{7, 2, 5, 5, 1, 6}));
+        Assertions.assertArrayEquals(new int[]{2, 3, 4, 5, 6, 7}, graph.neighbours(1).toArray());
+        Assertions.assertArrayEquals(new int[]{1}, graph.neighbours(7).toArray());
+        Assertions.assertEquals(6, graph.snapshot().edgeCount());
+
+        Assertions.assertEquals(2, graph.removeEdges(1, new int[]{3, 9, 6}));
+        Assertions.assertArrayEquals(new int[]{2, 4, 5, 7}, graph.neighbours(1).toArray());
+        Assertions.assertEquals(0, graph.neighbours(3).size());
+        Assertions.assertEquals(4, graph.snapshot().edgeCount());
+    }
+
+    @Test
+    @DisplayName("Общие друзья: слияние списков близкой длины и бинарный поиск в длинном списке")
+    void intersect_MergeAndGallop() {
+        Neighbours a = new Neighbours(new int[]{0, 2, 4, 6, 9, 0}, 1, 5);
+        Neighbours b = new Neighbours(new int[]{1, 2, 3, 6, 9}, 0, 5);
+        Assertions.assertArrayEquals(new int[]{2, 6, 9}, a.intersect(b));
+        Assertions.assertArrayEquals(new int[]{2, 6, 9}, b.intersect(a));
+        Assertions.assertEquals(3, a.intersectionSize(b));
+
+        int[] large = new int[1000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = i * 2;
+        }
+        Neighbours many = new Neighbours(large, 0, large.length);
+        Neighbours few = new Neighbours(new int[]{3, 4, 1998, 2000}, 0, 4);
+        Assertions.assertArrayEquals(new int[]{4, 1998}, few.intersect(many));
+        Assertions.assertArrayEquals(new int[]{4, 1998}, many.intersect(few));
+        Assertions.assertEquals(2, many.intersectionSize(few));
+        Assertions.assertEquals(0, Neighbours.EMPTY.intersect(many).length);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.social_network.service.graph;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Юнит-тесты поиска кратчайшего пути дружбы
+ */
+class ShortestPathTest {
+
+    private FriendshipGraph graph;
+
+    @BeforeEach
+    void init() {
+        // цепочка 1-2-3-4-5-6 и обход 1-7-8-6; 9 - хаб, дружит с 1 и с 100..1099
+        graph = new FriendshipGraph(16);
+        int[] from = new int[1009];
+        int[] to = new int[1009];
+        int[][] edges = {{1, 2}, {2, 3}, {3, 4}, {4, 5}, {5, 6}, {1, 7}, {7, 8}, {8, 6}, {1, 9}};
+        for (int i = 0; i < edges.length; i++) {
+            from[i] = edges[i][0];
+            to[i] = edges[i][1];
+        }
+        for (int i = 0; i < 1000; i++) {
+            from[edges.length + i] = 9;
+            to[edges.length + i] = 100 + i;
+        }
+        graph.load(from, to, from.length);
+    }
+
+    @Test
+    @DisplayName("Находится кратчайший из путей, в обе стороны")
+    void find_Shortest() {
+        Assertions.assertArrayEquals(new int[]{1, 7, 8, 6}, find(1, 6, 5).getPath());
+        Assertions.assertArrayEquals(new int[]{6, 8, 7, 1}, find(6, 1, 5).getPath());
+        Assertions.assertArrayEquals(new int[]{2, 3}, find(2, 3, 5).getPath());
+        Assertions.assertArrayEquals(new int[]{3, 2, 1, 9, 500}, find(3, 500, 5).getPath());
+        Assertions.assertArrayEquals(new int[]{4}, find(4, 4, 5).getPath());
+    }
+
+    @Test
+    @DisplayName("Путь длиннее ограничения глубины не ищется, поиск при этом полный")
+    void find_DepthCap() {
+        ShortestPath.Result result = find(1, 6, 2);
+
+        Assertions.assertNull(result.getPath());
+        Assertions.assertFalse(result.isExhausted());
+        Assertions.assertNull(find(1, 2000, 5).getPath());
+    }
+
+    @Test
+    @DisplayName("Раскрывается меньший фронт: друзья хаба не просматриваются, пока другая сторона дешевле")
+    void find_SmallerFrontierFirst() {
+        ShortestPath.Result result = find(500, 3, 5);
+
+        Assertions.assertArrayEquals(new int[]{500, 9, 1, 2, 3}, result.getPath());
+        Assertions.assertTrue(result.getScanned() < 1000, String.valueOf(result.getScanned()));
+    }
+
+    @Test
+    @DisplayName("Исчерпанный бюджет останавливает поиск без ответа")
+    void find_BudgetExhausted() {
+        ShortestPath.Result result = ShortestPath.find(graph.snapshot(), 1, 6, 5, 3);
+
+        Assertions.assertNull(result.getPath());
+        Assertions.assertTrue(result.isExhausted());
+        Assertions.assertEquals(4, result.getScanned());
+    }
+
+    private ShortestPath.Result find(int from, int to, int maxDepth) {
+        return ShortestPath.find(graph.snapshot(), from, to, maxDepth, 100_000);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.social_network.service.importing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Юнит-тесты чтения файлов импорта пользователей
+ */
+class ImportRowReaderTest {
+
+    @Test
+    @DisplayName("CSV: кавычки, запятые и переводы строк внутри значений, номера строк")
+    void csv_Quoting() throws IOException {
+        List<ImportRow> rows = read(ImportFormat.CSV, "surname,name,id\r\n"
+                + "Иванов,Иван,a1\r\n"
+                + "\"Петров, \"\"младший\"\"\",Петр,\n"
+                + "\"Сидо\nрова\",Мария,a3\n");
+
+        Assertions.assertEquals(3, rows.size());
+        Assertions.assertEquals("Иван", rows.get(0).getUser().getName());
+        Assertions.assertEquals("a1", rows.get(0).getExternalId());
+        Assertions.assertEquals(2, rows.get(0).getLine());
+        Assertions.assertEquals("Петров, \"младший\"", rows.get(1).getUser().getSurname());
+        Assertions.assertNull(rows.get(1).getExternalId());
+        Assertions.assertEquals("Сидо\nрова", rows.get(2).getUser().getSurname());
+        Assertions.assertEquals(4, rows.get(2).getLine());
+    }
+
+    @Test
+    @DisplayName("CSV: запись с другим числом колонок - ошибочная, чтение продолжается")
+    void csv_WrongColumns_Malformed() throws IOException {
+        List<ImportRow> rows = read(ImportFormat.CSV, "name,surname\nИван\n\nАнна,Иванова");
+
+        Assertions.assertEquals(2, rows.size());
+        Assertions.assertNull(rows.get(0).getUser());
+        Assertions.assertNotNull(rows.get(0).getError());
+        Assertions.assertEquals("Иванова", rows.get(1).getUser().getSurname());
+        Assertions.assertEquals(4, rows.get(1).getLine());
+    }
+
+    @Test
+    @DisplayName("CSV: без колонок name и surname - ошибка формата")
+    void csv_NoHeader_Exception() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> read(ImportFormat.CSV, "id,fio\n1,Иванов Иван"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> read(ImportFormat.CSV, ""));
+    }
+
+    @Test
+    @DisplayName("NDJSON: некорректная строка - ошибочная запись, пустые строки пропускаются")
+    void ndjson_Malformed() throws IOException {
+        List<ImportRow> rows = read(ImportFormat.NDJSON, "{\"id\": 7, \"name\": \"Иван\", \"surname\": \"Иванов\"}\n"
+                + "\n"
+                + "{\"name\": \"Петр\"\n"
+                + "[1]\n"
+                + "{\"name\": \"Анна\", \"surname\": null}\n");
+
+        Assertions.assertEquals(4, rows.size());
+        Assertions.assertEquals("7", rows.get(0).getExternalId());
+        Assertions.assertEquals("Иванов", rows.get(0).getUser().getSurname());
+        Assertions.assertNull(rows.get(1).getUser());
+        Assertions.assertEquals(3, rows.get(1).getLine());
+        Assertions.assertNull(rows.get(2).getUser());
+        Assertions.assertNull(rows.get(3).getUser().getSurname());
+    }
+
+    @Test
+    @DisplayName("Формат по имени или типу содержимого")
+    void format_Of() {
+        Assertions.assertEquals(ImportFormat.CSV, ImportFormat.of("csv", null));
+        Assertions.assertEquals(ImportFormat.CSV, ImportFormat.of(null, "text/csv"));
+        Assertions.assertEquals(ImportFormat.NDJSON, ImportFormat.of("", "application/x-ndjson"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImportFormat.of("xml", null));
+    }
+
+    private static List<ImportRow> read(ImportFormat format, String text) throws IOException {
+        List<ImportRow> rows = new ArrayList<>();
+        try (ImportRowReader reader = format.reader(new StringReader(text))) {
+            for (ImportRow row = reader.next(); row != null; row = reader.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
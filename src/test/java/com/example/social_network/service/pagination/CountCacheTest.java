@@ -0,0 +1,72 @@
+package com.example.social_network.service.pagination;
+
+import com.example.social_network.dto.ApproximatePage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Юнит-тесты кэша общего количества строк
+ */
+class CountCacheTest {
+
+    private final CountCache cache = new CountCache(100, Duration.ofMinutes(1));
+
+    private final AtomicInteger counts = new AtomicInteger();
+
+    @Test
+    @DisplayName("Первая страница считается запросом, следующие берут количество из кэша")
+    void page_CountOnce() {
+        Page<Integer> first = cache.page(slice(0, true), "key", this::count);
+        Page<Integer> second = cache.page(slice(1, true), "key", this::count);
+
+        Assertions.assertEquals(1, counts.get());
+        Assertions.assertEquals(50, first.getTotalElements());
+        Assertions.assertFalse(((ApproximatePage<Integer>) first).isTotalApproximate());
+        Assertions.assertEquals(50, second.getTotalElements());
+        Assertions.assertTrue(((ApproximatePage<Integer>) second).isTotalApproximate());
+    }
+
+    @Test
+    @DisplayName("На последней странице количество известно без запроса и обновляет кэш")
+    void page_LastPage_NoCount() {
+        Page<Integer> last = cache.page(slice(3, false), "key", this::count);
+        Page<Integer> first = cache.page(slice(0, true), "key", this::count);
+
+        Assertions.assertEquals(0, counts.get());
+        Assertions.assertEquals(32, last.getTotalElements());
+        Assertions.assertFalse(((ApproximatePage<Integer>) last).isTotalApproximate());
+        Assertions.assertEquals(32, first.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Количество из кэша не меньше уже прочитанных строк")
+    void page_StaleCount_AtLeastSeen() {
+        cache.page(slice(0, false), "key", this::count);
+        Page<Integer> grown = cache.page(slice(2, true), "key", this::count);
+
+        Assertions.assertEquals(0, counts.get());
+        Assertions.assertEquals(31, grown.getTotalElements());
+        Assertions.assertTrue(grown.hasNext());
+    }
+
+    /**
+     * Срез из 10 строк (на последней странице - 2) с номером страницы number
+     */
+    private static SliceImpl<Integer> slice(int number, boolean hasNext) {
+        return new SliceImpl<>(hasNext ? List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10) : List.of(1, 2),
+                PageRequest.of(number, 10), hasNext);
+    }
+
+    private long count() {
+        counts.incrementAndGet();
+        return 50;
+    }
+}
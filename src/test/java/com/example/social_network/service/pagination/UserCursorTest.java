@@ -0,0 +1,52 @@
+package com.example.social_network.service.pagination;
+
+import com.example.social_network.domain.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Юнит-тесты токена продолжения
+ */
+class UserCursorTest {
+
+    private final User user = User.builder()
+            .id(42L)
+            .name("Иван")
+            .surname("Иванов")
+            .build();
+
+    @Test
+    @DisplayName("Курсор по ключу (surname, name, id) восстанавливается из токена")
+    void byFio_EncodeDecode_SameKey() {
+        UserCursor cursor = UserCursor.decode(UserCursor.byFio(user).encode());
+
+        Assertions.assertTrue(cursor.isByFio());
+        Assertions.assertEquals("Иванов", cursor.getSurname());
+        Assertions.assertEquals("Иван", cursor.getName());
+        Assertions.assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    @DisplayName("Курсор по ключу id восстанавливается из токена")
+    void byId_EncodeDecode_SameKey() {
+        UserCursor cursor = UserCursor.decode(UserCursor.byId(user).encode());
+
+        Assertions.assertFalse(cursor.isByFio());
+        Assertions.assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    @DisplayName("Пустой токен - первая страница")
+    void decode_Empty_ReturnNull() {
+        Assertions.assertNull(UserCursor.decode(null));
+        Assertions.assertNull(UserCursor.decode(""));
+    }
+
+    @Test
+    @DisplayName("Поврежденный токен отклоняется")
+    void decode_Garbage_ThrowException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> UserCursor.decode("not a cursor"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> UserCursor.decode("eDox"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.social_network.service.search;
+
+import com.example.social_network.dto.CityDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Юнит-тесты справочника городов в памяти
+ */
+class CityIndexTest {
+
+    private EmbeddedDatabase dataSource;
+
+    private JdbcTemplate jdbc;
+
+    private CityIndex index;
+
+    @BeforeEach
+    void init() {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE regions (id BIGINT PRIMARY KEY, name VARCHAR(256))");
+        jdbc.execute("CREATE TABLE cities (id BIGINT PRIMARY KEY, name VARCHAR(256), region_id BIGINT)");
+        jdbc.update("INSERT INTO regions VALUES (1, 'Московская область'), (2, 'Алтайский край')");
+        jdbc.update("INSERT INTO cities VALUES (1, 'г Москва', 1), (2, 'г Барнаул', 2), "
+                + "(3, 'с Новомосковское', 2), (4, 'г Королёв', 1), (5, 'г Московский', 2)");
+        index = new CityIndex(dataSource);
+        index.reload();
+    }
+
+    @AfterEach
+    void shutdown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    @DisplayName("Сначала совпадения с началом слова, затем остальные вхождения, внутри - по региону")
+    void search_RankOrder() {
+        Assertions.assertEquals(List.of("г Московский", "г Москва", "с Новомосковское"), names(index.search("МОСК")));
+        Assertions.assertEquals("Алтайский край", index.search("московский").get(0).getRegionName());
+    }
+
+    @Test
+    @DisplayName("Буква ё и лишние пробелы не влияют на поиск")
+    void search_Normalization() {
+        Assertions.assertEquals(List.of("г Королёв"), names(index.search("королев")));
+        Assertions.assertEquals(List.of("г Королёв"), names(index.search("  Г   КОРОЛЁВ ")));
+    }
+
+    @Test
+    @DisplayName("Короткие и длинные строки, пустая строка возвращает все города")
+    void search_ShortLongEmpty() {
+        Assertions.assertEquals(List.of("г Барнаул", "г Москва"), names(index.search("а")));
+        Assertions.assertEquals(List.of("с Новомосковское"), names(index.search("новомосковск")));
+        Assertions.assertTrue(index.search("новомосковский").isEmpty());
+        Assertions.assertEquals(5, index.search(null).size());
+    }
+
+    @Test
+    @DisplayName("Изменения справочника видны только после перезагрузки")
+    void reload() {
+        jdbc.update("INSERT INTO cities VALUES (6, 'г Томск', 1)");
+        Assertions.assertTrue(index.search("томск").isEmpty());
+        index.reload();
+        Assertions.assertEquals(List.of("г Томск"), names(index.search("томск")));
+    }
+
+    private static List<String> names(List<CityDto> cities) {
+        return cities.stream().map(CityDto::getName).collect(Collectors.toList());
+    }
+}
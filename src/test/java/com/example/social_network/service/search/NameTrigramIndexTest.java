@@ -0,0 +1,134 @@
+package com.example.social_network.service.search;
+
+import com.example.social_network.datasource.ReadReplicaDataSource;
+import com.example.social_network.service.events.UserDeletedEvent;
+import com.example.social_network.service.events.UserSavedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Юнит-тесты триграммного индекса имен
+ */
+class NameTrigramIndexTest {
+
+    private EmbeddedDatabase dataSource;
+
+    private NameTrigramIndex index;
+
+    @BeforeEach
+    void init() {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, name VARCHAR(50), surname VARCHAR(50))");
+        jdbc.update("INSERT INTO users VALUES (1, 'Иван', 'Иванов'), (2, 'Петр', 'Петров'), "
+                + "(3, 'Анна', 'Иванова'), (4, 'Мария', 'Сидорова')");
+        index = new NameTrigramIndex(dataSource, new DataSourceTransactionManager(dataSource), true, 100, 100);
+        index.rebuild();
+    }
+
+    @AfterEach
+    void shutdown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    @DisplayName("Кандидаты содержат всех пользователей, у которых каждое слово входит в имя или фамилию")
+    void candidates_AllTokens() {
+        Assertions.assertEquals(Set.of(1L, 3L), new HashSet<>(index.candidates(new String[]{"ИВАН"})));
+        Assertions.assertEquals(Set.of(3L), new HashSet<>(index.candidates(new String[]{"анна", "иван"})));
+        Assertions.assertTrue(index.candidates(new String[]{"ольга"}).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Для слова достаточно вхождения любого из вариантов написания")
+    void candidates_Variants() {
+        Assertions.assertEquals(Set.of(1L, 2L, 3L),
+                new HashSet<>(index.candidatesOfVariants(new String[][]{{"иван", "петр"}})));
+        Assertions.assertEquals(Set.of(3L),
+                new HashSet<>(index.candidatesOfVariants(new String[][]{{"fyyf", "анна"}, {"иван"}})));
+        Assertions.assertNull(index.candidatesOfVariants(new String[][]{{"иван", "ив"}}));
+    }
+
+    @Test
+    @DisplayName("Слова короче трех символов не сужают поиск")
+    void candidates_ShortTokens_Null() {
+        Assertions.assertNull(index.candidates(new String[]{"ив"}));
+        Assertions.assertNull(index.candidates(null));
+    }
+
+    @Test
+    @DisplayName("Изменения и удаления после построения индекса учитываются")
+    void candidates_Changes() {
+        index.onUserSaved(new UserSavedEvent(2L, "Иван", "Смирнов"));
+        index.onUserSaved(new UserSavedEvent(5L, "Ольга", "Иванова"));
+        index.onUserDeleted(new UserDeletedEvent(1L));
+
+        Assertions.assertEquals(Set.of(2L, 3L, 5L), new HashSet<>(index.candidates(new String[]{"иван"})));
+        Assertions.assertTrue(index.candidates(new String[]{"петр"}).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Слишком много кандидатов - индекс не используется")
+    void candidates_TooMany_Null() {
+        NameTrigramIndex small = new NameTrigramIndex(dataSource, new DataSourceTransactionManager(dataSource), true, 1, 100);
+        small.rebuild();
+        Assertions.assertNull(small.candidates(new String[]{"иван"}));
+        Assertions.assertEquals(List.of(4L), small.candidates(new String[]{"мария"}));
+    }
+
+    @Test
+    @DisplayName("Индекс строится по основной БД, а не по отстающей реплике")
+    void rebuild_LaggingReplica_FromPrimary() {
+        EmbeddedDatabase replica = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        // реплика исправна, но пользователи до нее еще не дошли
+        new JdbcTemplate(replica).execute("CREATE TABLE users (id BIGINT PRIMARY KEY, name VARCHAR(50), surname VARCHAR(50))");
+        ReadReplicaDataSource routing = new ReadReplicaDataSource(dataSource, Map.of("replica-0", replica),
+                Duration.ofSeconds(10), "SELECT 1", Duration.ZERO);
+        try {
+            NameTrigramIndex routed = new NameTrigramIndex(routing, new DataSourceTransactionManager(routing), true, 100, 100);
+            routed.rebuild();
+
+            Assertions.assertEquals(Set.of(1L, 3L), new HashSet<>(routed.candidates(new String[]{"иван"})));
+        } finally {
+            replica.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Пересечение отсортированных массивов")
+    void intersect() {
+        Assertions.assertArrayEquals(new int[]{3, 7},
+                Trigrams.intersect(new int[]{1, 3, 5, 7}, new int[]{2, 3, 7, 9}));
+        Assertions.assertArrayEquals(new int[0],
+                Trigrams.intersect(new int[]{1}, new int[0]));
+    }
+
+    @Test
+    @DisplayName("Объединение отсортированных массивов")
+    void union() {
+        Assertions.assertArrayEquals(new int[]{1, 2, 3, 5, 7, 9},
+                Trigrams.union(new int[]{1, 3, 5, 7}, new int[]{2, 3, 7, 9}));
+        Assertions.assertArrayEquals(new int[]{1},
+                Trigrams.union(new int[0], new int[]{1}));
+    }
+}
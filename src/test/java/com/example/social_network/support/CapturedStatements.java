@@ -0,0 +1,61 @@
+package com.example.social_network.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Инспектор запросов Hibernate для тестов: запоминает тексты запросов текущего потока после {@link #start()}.
+ * Подключен ко всем тестовым контекстам в application.properties тестов (вместе с бюджетом запросов),
+ * пока запись не начата - ничего не делает
+ */
+public class CapturedStatements implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<List<String>> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Начинает запись запросов текущего потока заново
+     */
+    public static void start() {
+        CURRENT.set(new ArrayList<>());
+    }
+
+    /**
+     * Запросы, выполненные текущим потоком после {@link #start()}
+     *
+     * @return тексты запросов по порядку
+     */
+    public static List<String> all() {
+        List<String> statements = CURRENT.get();
+        return statements == null ? Collections.emptyList() : Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * Последний записанный запрос, содержащий строку
+     *
+     * @param fragment часть текста запроса, например имя таблицы
+     * @return текст запроса или null, если такого не было
+     */
+    public static String last(String fragment) {
+        List<String> statements = all();
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            if (statements.get(i).contains(fragment)) {
+                return statements.get(i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = CURRENT.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.social_network.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Юнит-тесты конвертации раскладки клавиатуры
+ */
+class KeyboardConverterTest {
+
+    @Test
+    @DisplayName("Английская раскладка конвертируется в русскую в нижнем регистре")
+    void convert_English() {
+        Assertions.assertEquals("иванов иван", KeyboardConverter.convert("bdfyjd bdfy"));
+        Assertions.assertEquals("иванов", KeyboardConverter.convert("BDFYJD"));
+        Assertions.assertEquals("хъжэбюё", KeyboardConverter.convert("{}:\"<>~"));
+        Assertions.assertEquals("фёдор", KeyboardConverter.convert("a`ljh"));
+    }
+
+    @Test
+    @DisplayName("Строка, которую не нужно конвертировать, возвращается тем же объектом")
+    void convert_NotConverted_SameInstance() {
+        String russian = "Иванов Иван";
+        String digits = "Ivanov2";
+        Assertions.assertSame(russian, KeyboardConverter.convert(russian));
+        Assertions.assertSame(digits, KeyboardConverter.convert(digits));
+        Assertions.assertSame(digits, KeyboardConverter.switchLayout(digits));
+    }
+
+    @Test
+    @DisplayName("Смена раскладки работает в обе стороны")
+    void switchLayout_BothDirections() {
+        Assertions.assertEquals("иванов иван", KeyboardConverter.switchLayout("bdfyjd bdfy"));
+        Assertions.assertEquals("bdfyjd bdfy", KeyboardConverter.switchLayout("Иванов Иван"));
+        Assertions.assertEquals("[]", KeyboardConverter.switchLayout("ХЪ"));
+        Assertions.assertEquals("`", KeyboardConverter.switchLayout("Ё"));
+    }
+
+    @Test
+    @DisplayName("Смешанные раскладки и другие алфавиты не конвертируются")
+    void switchLayout_Mixed_NotConverted() {
+        String mixed = "Иван bdfyjd";
+        String greek = "αβγ";
+        Assertions.assertSame(mixed, KeyboardConverter.switchLayout(mixed));
+        Assertions.assertSame(greek, KeyboardConverter.switchLayout(greek));
+        Assertions.assertEquals("", KeyboardConverter.switchLayout(""));
+    }
+}
@@ -0,0 +1,93 @@
+-- Пользователи для проверки количества запросов страницы пользователя
+INSERT INTO cities (id, name, region_id) VALUES (1, 'г Барнаул', 1);
+INSERT INTO cities (id, name, region_id) VALUES (2, 'г Бийск', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (1, 'Елена', 'Козлова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (2, 'Владимир', 'Ленин', '1990-01-01', 'M', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (3, 'Боб', 'Марлей', '1990-01-01', 'M', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (4, 'Иван', 'Иванов', '1990-01-01', 'M', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (5, 'Друг5', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (6, 'Друг6', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (7, 'Друг7', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (8, 'Друг8', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (9, 'Друг9', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (10, 'Друг10', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (11, 'Друг11', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (12, 'Друг12', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (13, 'Друг13', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (14, 'Друг14', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (15, 'Друг15', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (16, 'Друг16', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (17, 'Друг17', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (18, 'Друг18', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (19, 'Друг19', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (20, 'Друг20', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (21, 'Друг21', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (22, 'Друг22', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (23, 'Друг23', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (24, 'Друг24', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (25, 'Друг25', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (26, 'Друг26', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (27, 'Друг27', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (28, 'Друг28', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (29, 'Друг29', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (30, 'Друг30', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (31, 'Друг31', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (32, 'Друг32', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (33, 'Друг33', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (34, 'Друг34', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (35, 'Друг35', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (36, 'Друг36', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (37, 'Друг37', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (38, 'Друг38', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (39, 'Друг39', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (40, 'Друг40', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (41, 'Друг41', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (42, 'Друг42', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (43, 'Друг43', 'Иванова', '1990-01-01', 'F', 1);
+INSERT INTO users (id, name, surname, date_of_birth, gender, city_id) VALUES (44, 'Друг44', 'Иванова', '1990-01-01', 'F', 2);
+INSERT INTO friendship (id_user, id_friend) VALUES (1, 2), (2, 1);
+INSERT INTO friendship (id_user, id_friend) VALUES (3, 1), (1, 3);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 5), (5, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (6, 4), (4, 6);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 7), (7, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (8, 4), (4, 8);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 9), (9, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (10, 4), (4, 10);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 11), (11, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (12, 4), (4, 12);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 13), (13, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (14, 4), (4, 14);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 15), (15, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (16, 4), (4, 16);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 17), (17, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (18, 4), (4, 18);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 19), (19, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (20, 4), (4, 20);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 21), (21, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (22, 4), (4, 22);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 23), (23, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (24, 4), (4, 24);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 25), (25, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (26, 4), (4, 26);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 27), (27, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (28, 4), (4, 28);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 29), (29, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (30, 4), (4, 30);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 31), (31, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (32, 4), (4, 32);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 33), (33, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (34, 4), (4, 34);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 35), (35, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (36, 4), (4, 36);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 37), (37, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (38, 4), (4, 38);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 39), (39, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (40, 4), (4, 40);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 41), (41, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (42, 4), (4, 42);
+INSERT INTO friendship (id_user, id_friend) VALUES (4, 43), (43, 4);
+INSERT INTO friendship (id_user, id_friend) VALUES (44, 4), (4, 44);
+UPDATE users SET friends_count = (SELECT COUNT(*) FROM friendship f WHERE f.id_user = users.id);
+INSERT INTO user_search (user_id, name, surname, fio, city_name, region_id, date_of_birth, gender)
+SELECT u.id, u.name, u.surname, LOWER(u.name) || ' ' || LOWER(u.surname), LOWER(c.name), c.region_id, u.date_of_birth, u.gender
+FROM users u LEFT JOIN cities c ON c.id = u.city_id;